@@ -52,6 +52,14 @@ const ShopifyCheckoutSheetKit = {
   getConstants: jest.fn(() => ({version: '0.7.0'})),
   preload: jest.fn(),
   present: jest.fn(),
+  presentCheckout: jest.fn(() =>
+    Promise.resolve({
+      sessionId: '1',
+      presented: true,
+      config: exampleConfig,
+      timings: {presentMs: 1, totalMs: 2},
+    }),
+  ),
   dismiss: jest.fn(),
   invalidateCache: jest.fn(),
   getConfig: jest.fn(() => exampleConfig),
@@ -59,6 +67,21 @@ const ShopifyCheckoutSheetKit = {
   addEventListener: jest.fn(),
   removeEventListeners: jest.fn(),
   initiateGeolocationRequest: jest.fn(),
+  getMetrics: jest.fn(() => ({
+    since: 0,
+    timestamp: 0,
+    counters: {},
+    gauges: {},
+    histograms: {},
+  })),
+  dumpNativeLogs: jest.fn(() => ({entries: [], suppressed: {}})),
+  getEventStreamState: jest.fn(() => null),
+  ackEvents: jest.fn(),
+  ackCompletedEvent: jest.fn(),
+  redeliverCompletedEvents: jest.fn(),
+  getFunnelSummary: jest.fn(() => null),
+  getPreloadStats: jest.fn(() => null),
+  resetPreloadStats: jest.fn(),
   configureAcceleratedCheckouts: jest.fn(() => true),
   isAcceleratedCheckoutAvailable: jest.fn(() => true),
   isApplePayAvailable: jest.fn(() => true),
@@ -0,0 +1,98 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.shopify.checkoutsheetkit.Color;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of `setConfig`, the color parsing behind it, and reading the config
+ * back as `getConfig` does. `colorScheme` selects the config shape: a single
+ * palette, or light and dark palettes for `automatic`.
+ *
+ * Run with `./gradlew :shopify_checkout-sheet-kit:jmh` from sample/android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigParsingBenchmark {
+  @Param({"light", "dark", "automatic"})
+  public String colorScheme;
+
+  private ShopifyCheckoutSheetKitModule module;
+  private JavaOnlyMap baseConfig;
+  private JavaOnlyMap colorsConfig;
+
+  @Setup
+  public void setup() {
+    module = new ShopifyCheckoutSheetKitModule(
+        BenchmarkFixtures.reactContext(new BenchmarkFixtures.SinkEmitter((eventName, data) -> {})));
+    baseConfig = BenchmarkFixtures.baseConfig();
+    colorsConfig = BenchmarkFixtures.colorsConfig(colorScheme);
+  }
+
+  @Benchmark
+  public void setConfigWithoutColors() {
+    module.setConfig(baseConfig);
+  }
+
+  @Benchmark
+  public void setConfigWithColors() {
+    module.setConfig(colorsConfig);
+  }
+
+  @Benchmark
+  public JavaOnlyMap configSnapshot() {
+    JavaOnlyMap snapshot = new JavaOnlyMap();
+    module.writeConfig(snapshot);
+    return snapshot;
+  }
+
+  @Benchmark
+  public Color parseRgbColor() {
+    return module.parseColor("#2D9B5F");
+  }
+
+  @Benchmark
+  public Color parseArgbColor() {
+    return module.parseColor("#FF2D9B5F");
+  }
+}
@@ -0,0 +1,103 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.HttpException;
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of the events forwarded to JavaScript. Each benchmark
+ * runs the processor callback end to end; the emitter hands the JSON string
+ * to a Blackhole instead of the bridge. The error benchmarks read a mocked
+ * HttpException, so they also time four stub-only Mockito calls.
+ *
+ * Run with `./gradlew :shopify_checkout-sheet-kit:jmh` from sample/android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+  private CustomCheckoutEventProcessor processor;
+  private StandardPixelEvent standardPixelEvent;
+  private CustomPixelEvent customPixelEvent;
+  private CheckoutCompletedEvent completedEvent;
+  private HttpException httpException;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    processor = BenchmarkFixtures.processor(
+        new BenchmarkFixtures.SinkEmitter((eventName, data) -> blackhole.consume(data)));
+    standardPixelEvent = BenchmarkFixtures.standardPixelEvent();
+    customPixelEvent = BenchmarkFixtures.customPixelEvent();
+    completedEvent = BenchmarkFixtures.checkoutCompletedEvent();
+    httpException = BenchmarkFixtures.httpException();
+  }
+
+  @Benchmark
+  public void standardPixelEvent() {
+    processor.onWebPixelEvent(standardPixelEvent);
+  }
+
+  @Benchmark
+  public void customPixelEvent() {
+    processor.onWebPixelEvent(customPixelEvent);
+  }
+
+  @Benchmark
+  public void checkoutCompletedEvent() {
+    processor.onCheckoutCompleted(completedEvent);
+  }
+
+  @Benchmark
+  public void checkoutFailedEvent() {
+    processor.onCheckoutFailed(httpException);
+  }
+
+  @Benchmark
+  public String writeErrorDetails() throws IOException {
+    return JsonEventWriter.write(mapper, generator -> processor.writeErrorDetails(generator, httpException));
+  }
+}
@@ -0,0 +1,303 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a short set of benchmarks and compares them to the checked-in
+ * baseline (`perf-baseline.json`). Each entry has a time budget in us/op and
+ * an allocation budget in bytes/op, each with its own tolerance band. The
+ * check fails when any result is above baseline * (1 + tolerance).
+ * Benchmarks without a recorded baseline are reported and warned about, but
+ * never fail the check.
+ *
+ * Run with `./gradlew :shopify_checkout-sheet-kit:perfBudget` from
+ * sample/android. Add -Pperf.record to rewrite the baseline from the current
+ * results, keeping the existing tolerances.
+ */
+public final class PerformanceBudgetCheck {
+  static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+  static final double DEFAULT_TIME_TOLERANCE = 0.25;
+  static final double DEFAULT_ALLOCATION_TOLERANCE = 0.10;
+
+  /**
+   * Benchmarks in the gate, keyed the same way as the baseline file.
+   */
+  static final String[] BENCHMARKS = {
+      "EventSerializationBenchmark.standardPixelEvent",
+      "EventSerializationBenchmark.customPixelEvent",
+      "EventSerializationBenchmark.checkoutCompletedEvent",
+      "EventSerializationBenchmark.writeErrorDetails",
+      "ConfigParsingBenchmark.parseRgbColor",
+      "ConfigParsingBenchmark.setConfigWithColors",
+      "ConfigParsingBenchmark.configSnapshot",
+  };
+
+  static final class Measurement {
+    final double timeMicros;
+    final double allocationBytes;
+
+    Measurement(double timeMicros, double allocationBytes) {
+      this.timeMicros = timeMicros;
+      this.allocationBytes = allocationBytes;
+    }
+  }
+
+  static final class Row {
+    final String benchmark;
+    final String metric;
+    final double baseline;
+    final double tolerance;
+    final double actual;
+
+    Row(String benchmark, String metric, double baseline, double tolerance, double actual) {
+      this.benchmark = benchmark;
+      this.metric = metric;
+      this.baseline = baseline;
+      this.tolerance = tolerance;
+      this.actual = actual;
+    }
+
+    boolean recorded() {
+      return !Double.isNaN(baseline);
+    }
+
+    double budget() {
+      return baseline * (1 + tolerance);
+    }
+
+    double delta() {
+      return baseline == 0 ? 0 : (actual - baseline) / baseline;
+    }
+
+    boolean exceeded() {
+      return recorded() && actual > budget();
+    }
+
+    String status() {
+      if (!recorded()) {
+        return "no baseline";
+      }
+      if (exceeded()) {
+        return "OVER BUDGET";
+      }
+      // Well under the baseline usually means the baseline is stale
+      return delta() < -tolerance ? "improved, re-record" : "ok";
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      throw new IllegalArgumentException("Usage: PerformanceBudgetCheck <baseline.json> [--record]");
+    }
+    File baselineFile = new File(args[0]);
+    boolean record = args.length > 1 && "--record".equals(args[1]);
+
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    ObjectNode baseline = (ObjectNode) mapper.readTree(baselineFile);
+    Map<String, Measurement> results = runBenchmarks();
+
+    if (record) {
+      mapper.writeValue(baselineFile, recordBaseline(mapper, baseline, results));
+      System.out.println("Recorded " + results.size() + " benchmarks to " + baselineFile);
+      return;
+    }
+
+    List<Row> rows = compare(baseline, results);
+    System.out.print(format(rows));
+
+    if (!isRecorded(baseline)) {
+      // Budgets nobody measured would pass or fail at random, so only warn
+      System.err.println("Warning: some benchmarks have no recorded baseline in " + baselineFile
+          + " and were not checked. Record one with -Pperf.record on the machine that runs the gate "
+          + "and commit perf-baseline.json.");
+    }
+
+    int failures = 0;
+    for (Row row : rows) {
+      if (row.exceeded()) {
+        failures++;
+      }
+    }
+    if (failures > 0) {
+      System.err.println(failures + " performance budget(s) exceeded. If the regression is intended, "
+          + "re-record the baseline with -Pperf.record and commit perf-baseline.json.");
+      System.exit(1);
+    }
+  }
+
+  static Map<String, Measurement> runBenchmarks() throws Exception {
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .mode(Mode.AverageTime)
+        .timeUnit(TimeUnit.MICROSECONDS)
+        .warmupIterations(3)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(5)
+        .measurementTime(TimeValue.seconds(1))
+        .forks(1)
+        .param("colorScheme", "automatic")
+        .addProfiler("gc");
+    for (String benchmark : BENCHMARKS) {
+      options.include(Pattern.quote(PerformanceBudgetCheck.class.getPackage().getName() + "." + benchmark) + "$");
+    }
+
+    Collection<RunResult> runResults = new Runner(options.build()).run();
+
+    Map<String, Measurement> measurements = new LinkedHashMap<>();
+    for (RunResult runResult : runResults) {
+      measurements.put(benchmarkKey(runResult.getParams()), new Measurement(
+          runResult.getPrimaryResult().getScore(),
+          allocationScore(runResult.getSecondaryResults())));
+    }
+    return measurements;
+  }
+
+  /**
+   * Whether every benchmark in the gate has a recorded time and allocation.
+   */
+  static boolean isRecorded(JsonNode baseline) {
+    JsonNode benchmarks = baseline.path("benchmarks");
+    for (String benchmark : BENCHMARKS) {
+      JsonNode entry = benchmarks.path(benchmark);
+      if (!entry.has("timeMicros") || !entry.has("allocationBytes")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static List<Row> compare(JsonNode baseline, Map<String, Measurement> results) {
+    JsonNode benchmarks = baseline.path("benchmarks");
+    List<Row> rows = new ArrayList<>();
+
+    for (String benchmark : BENCHMARKS) {
+      JsonNode entry = benchmarks.path(benchmark);
+      Measurement measurement = results.get(benchmark);
+      if (measurement == null) {
+        throw new IllegalStateException("No result for " + benchmark);
+      }
+
+      rows.add(new Row(benchmark, "time us/op", entry.path("timeMicros").asDouble(Double.NaN),
+          entry.path("timeTolerance").asDouble(baseline.path("defaultTimeTolerance").asDouble(DEFAULT_TIME_TOLERANCE)),
+          measurement.timeMicros));
+      if (!Double.isNaN(measurement.allocationBytes)) {
+        rows.add(new Row(benchmark, "alloc B/op", entry.path("allocationBytes").asDouble(Double.NaN),
+            entry.path("allocationTolerance").asDouble(
+                baseline.path("defaultAllocationTolerance").asDouble(DEFAULT_ALLOCATION_TOLERANCE)),
+            measurement.allocationBytes));
+      }
+    }
+    return rows;
+  }
+
+  static String format(List<Row> rows) {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format(Locale.ROOT, "%-50s %-11s %10s %10s %10s %8s  %s%n",
+        "Benchmark", "Metric", "Baseline", "Budget", "Actual", "Delta", "Status"));
+    for (Row row : rows) {
+      if (row.recorded()) {
+        out.append(String.format(Locale.ROOT, "%-50s %-11s %10.3f %10.3f %10.3f %+7.1f%%  %s%n",
+            row.benchmark, row.metric, row.baseline, row.budget(), row.actual, row.delta() * 100, row.status()));
+      } else {
+        out.append(String.format(Locale.ROOT, "%-50s %-11s %10s %10s %10.3f %8s  %s%n",
+            row.benchmark, row.metric, "-", "-", row.actual, "-", row.status()));
+      }
+    }
+    return out.toString();
+  }
+
+  // Private
+
+  private PerformanceBudgetCheck() {}
+
+  private static String benchmarkKey(BenchmarkParams params) {
+    String name = params.getBenchmark();
+    String[] parts = name.split("\\.");
+    return parts[parts.length - 2] + "." + parts[parts.length - 1];
+  }
+
+  private static double allocationScore(Map<String, Result> secondaryResults) {
+    for (Map.Entry<String, Result> entry : secondaryResults.entrySet()) {
+      if (entry.getKey().endsWith(ALLOCATION_METRIC)) {
+        return entry.getValue().getScore();
+      }
+    }
+    return Double.NaN;
+  }
+
+  private static ObjectNode recordBaseline(ObjectMapper mapper, ObjectNode previous,
+      Map<String, Measurement> results) {
+    ObjectNode updated = previous.deepCopy();
+    ObjectNode benchmarks = mapper.createObjectNode();
+    JsonNode previousBenchmarks = previous.path("benchmarks");
+
+    for (Map.Entry<String, Measurement> result : results.entrySet()) {
+      ObjectNode entry = mapper.createObjectNode();
+      JsonNode previousEntry = previousBenchmarks.path(result.getKey());
+      entry.put("timeMicros", round(result.getValue().timeMicros));
+      entry.put("allocationBytes", Math.ceil(result.getValue().allocationBytes));
+      Iterator<String> fields = previousEntry.fieldNames();
+      while (fields.hasNext()) {
+        String field = fields.next();
+        if (field.endsWith("Tolerance")) {
+          entry.set(field, previousEntry.get(field));
+        }
+      }
+      benchmarks.set(result.getKey(), entry);
+    }
+
+    updated.put("recordedWith", System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+        + " on " + System.getProperty("os.name") + "/" + System.getProperty("os.arch"));
+    updated.set("benchmarks", benchmarks);
+    return updated;
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 1000) / 1000.0;
+  }
+}
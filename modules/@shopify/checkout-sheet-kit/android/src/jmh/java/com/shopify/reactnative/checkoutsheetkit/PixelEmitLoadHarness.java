@@ -0,0 +1,329 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load harness for the pixel emit path. Producer threads call
+ * `CustomCheckoutEventProcessor.onWebPixelEvent` against a fake
+ * RCTDeviceEventEmitter and the harness reports sustained throughput,
+ * p50/p99/p999 callback latency and heap growth.
+ *
+ * With `rate=0` (the default) producers run flat out, which gives the
+ * ceiling. With a target rate, each producer paces its events and latency is
+ * measured from the scheduled send time, so once the module cannot keep up
+ * the backlog shows up as climbing latency rather than lower throughput.
+ *
+ * Run with `./gradlew :shopify_checkout-sheet-kit:pixelLoadTest` from
+ * sample/android. Options are passed as key=value pairs through
+ * -Pload.args, e.g. -Pload.args="threads=8 rate=20000 duration=30".
+ */
+public final class PixelEmitLoadHarness {
+  static final class Options {
+    int threads = 4;
+    int warmupSeconds = 5;
+    int durationSeconds = 20;
+    long rate = 0;
+    long bridgeCostNanos = 0;
+    String event = "standard";
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (String arg : args) {
+        String[] pair = arg.split("=", 2);
+        if (pair.length != 2) {
+          throw new IllegalArgumentException("Expected key=value, got " + arg);
+        }
+        switch (pair[0]) {
+          case "threads":
+            options.threads = Integer.parseInt(pair[1]);
+            break;
+          case "warmup":
+            options.warmupSeconds = Integer.parseInt(pair[1]);
+            break;
+          case "duration":
+            options.durationSeconds = Integer.parseInt(pair[1]);
+            break;
+          case "rate":
+            options.rate = Long.parseLong(pair[1]);
+            break;
+          case "bridgeCostNanos":
+            options.bridgeCostNanos = Long.parseLong(pair[1]);
+            break;
+          case "event":
+            options.event = pair[1];
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + pair[0]);
+        }
+      }
+      return options;
+    }
+  }
+
+  /**
+   * Log-linear histogram: 32 linear sub-buckets per power of two, so
+   * percentiles are within ~3% of the recorded value. Single writer.
+   */
+  static final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+      long value = Math.max(nanos, 0);
+      counts[indexFor(value)]++;
+      total++;
+      if (value > max) {
+        max = value;
+      }
+    }
+
+    void add(LatencyHistogram other) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += other.counts[i];
+      }
+      total += other.total;
+      max = Math.max(max, other.max);
+    }
+
+    long count() {
+      return total;
+    }
+
+    long max() {
+      return max;
+    }
+
+    long percentile(double percentile) {
+      if (total == 0) {
+        return 0;
+      }
+      long threshold = (long) Math.ceil(total * percentile / 100.0);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= threshold) {
+          return Math.min(upperBound(i), max);
+        }
+      }
+      return max;
+    }
+
+    private static int indexFor(long value) {
+      if (value < SUB_BUCKETS) {
+        return (int) value;
+      }
+      int magnitude = 63 - Long.numberOfLeadingZeros(value);
+      int shift = magnitude - SUB_BUCKET_BITS;
+      int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+      return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+      if (index < SUB_BUCKETS) {
+        return index;
+      }
+      int shift = index / SUB_BUCKETS - 1;
+      long subBucket = index % SUB_BUCKETS;
+      return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+  }
+
+  /**
+   * Fake emitter standing in for the JS bridge. Optionally spins for a fixed
+   * time per call to model the cost of crossing into JavaScript.
+   */
+  static final class CountingEmitter implements BenchmarkFixtures.SinkEmitter.Sink {
+    final AtomicLong events = new AtomicLong();
+    final AtomicLong chars = new AtomicLong();
+    private final long costNanos;
+
+    CountingEmitter(long costNanos) {
+      this.costNanos = costNanos;
+    }
+
+    @Override
+    public void accept(String eventName, Object data) {
+      events.incrementAndGet();
+      if (data instanceof String) {
+        chars.addAndGet(((String) data).length());
+      }
+      if (costNanos > 0) {
+        long until = System.nanoTime() + costNanos;
+        while (System.nanoTime() < until) {
+          // Busy-wait to hold the producer thread like a synchronous bridge call
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    Result result = run(options);
+    System.out.print(result.report(options));
+  }
+
+  static Result run(Options options) throws InterruptedException {
+    CountingEmitter emitter = new CountingEmitter(options.bridgeCostNanos);
+    CustomCheckoutEventProcessor processor =
+        BenchmarkFixtures.processor(new BenchmarkFixtures.SinkEmitter(emitter));
+    PixelEvent event = "custom".equals(options.event)
+        ? BenchmarkFixtures.customPixelEvent()
+        : BenchmarkFixtures.standardPixelEvent();
+
+    runPhase(processor, event, options, options.warmupSeconds);
+
+    long heapBefore = usedHeapAfterGc();
+    long eventsBefore = emitter.events.get();
+    long charsBefore = emitter.chars.get();
+
+    long start = System.nanoTime();
+    LatencyHistogram latencies = runPhase(processor, event, options, options.durationSeconds);
+    long elapsed = System.nanoTime() - start;
+
+    Result result = new Result();
+    result.elapsedNanos = elapsed;
+    result.latencies = latencies;
+    result.events = emitter.events.get() - eventsBefore;
+    result.chars = emitter.chars.get() - charsBefore;
+    result.heapBeforeBytes = heapBefore;
+    result.heapAfterBytes = usedHeapAfterGc();
+    return result;
+  }
+
+  static final class Result {
+    long elapsedNanos;
+    long events;
+    long chars;
+    long heapBeforeBytes;
+    long heapAfterBytes;
+    LatencyHistogram latencies;
+
+    double throughput() {
+      return events / (elapsedNanos / 1e9);
+    }
+
+    String report(Options options) {
+      StringBuilder out = new StringBuilder();
+      out.append(String.format(Locale.ROOT,
+          "Pixel emit load: %d threads, %s events, target rate %s, bridge cost %d ns%n",
+          options.threads, options.event, options.rate > 0 ? options.rate + "/s" : "unbounded",
+          options.bridgeCostNanos));
+      out.append(String.format(Locale.ROOT, "  duration        %.1f s%n", elapsedNanos / 1e9));
+      out.append(String.format(Locale.ROOT, "  events          %d (%.0f/s)%n", events, throughput()));
+      out.append(String.format(Locale.ROOT, "  payload         %.0f chars/event%n",
+          events == 0 ? 0.0 : (double) chars / events));
+      out.append(String.format(Locale.ROOT, "  latency p50     %.1f us%n", latencies.percentile(50) / 1e3));
+      out.append(String.format(Locale.ROOT, "  latency p99     %.1f us%n", latencies.percentile(99) / 1e3));
+      out.append(String.format(Locale.ROOT, "  latency p999    %.1f us%n", latencies.percentile(99.9) / 1e3));
+      out.append(String.format(Locale.ROOT, "  latency max     %.1f us%n", latencies.max() / 1e3));
+      out.append(String.format(Locale.ROOT, "  heap growth     %+.1f KiB (%.1f -> %.1f MiB after GC)%n",
+          (heapAfterBytes - heapBeforeBytes) / 1024.0, heapBeforeBytes / 1048576.0, heapAfterBytes / 1048576.0));
+      return out.toString();
+    }
+  }
+
+  // Private
+
+  private PixelEmitLoadHarness() {}
+
+  private static LatencyHistogram runPhase(CustomCheckoutEventProcessor processor, PixelEvent event,
+      Options options, int seconds) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    long intervalNanos = options.rate > 0 ? TimeUnit.SECONDS.toNanos(options.threads) / options.rate : 0;
+    CountDownLatch ready = new CountDownLatch(options.threads);
+    CountDownLatch go = new CountDownLatch(1);
+    List<Thread> producers = new ArrayList<>();
+    List<LatencyHistogram> histograms = new ArrayList<>();
+
+    for (int i = 0; i < options.threads; i++) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histograms.add(histogram);
+      Thread producer = new Thread(() -> {
+        ready.countDown();
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long scheduled = System.nanoTime();
+        while (true) {
+          long now = System.nanoTime();
+          if (now >= deadline) {
+            break;
+          }
+          long sendTime = now;
+          if (intervalNanos > 0) {
+            if (scheduled > now) {
+              LockSupport.parkNanos(scheduled - now);
+            }
+            // Measure from when the event should have been sent, not when the
+            // producer got around to it, so a backlog is counted as latency.
+            sendTime = scheduled;
+            scheduled += intervalNanos;
+          }
+          processor.onWebPixelEvent(event);
+          histogram.record(System.nanoTime() - sendTime);
+        }
+      }, "pixel-producer-" + i);
+      producers.add(producer);
+      producer.start();
+    }
+
+    ready.await();
+    go.countDown();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+
+    LatencyHistogram merged = new LatencyHistogram();
+    for (LatencyHistogram histogram : histograms) {
+      merged.add(histogram);
+    }
+    return merged;
+  }
+
+  // java.lang.management is not part of the Android API surface these
+  // sources compile against, so heap usage comes from Runtime instead.
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
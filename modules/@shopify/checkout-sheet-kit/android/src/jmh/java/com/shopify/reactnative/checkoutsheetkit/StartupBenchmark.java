@@ -0,0 +1,280 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the module adds to app startup, phase by phase:
+ *
+ * - classLoad: loading and initializing the package, the module and the
+ *   SDK's entry points
+ * - getModule: `ShopifyCheckoutSheetKitPackage.getModule`, which runs the
+ *   module constructor
+ * - prewarm: waiting for the serializer warm-up the constructor schedules on
+ *   the background thread, including the first ObjectMapper
+ * - configure: `setConfig` with light and dark colors, which calls
+ *   `ShopifyCheckoutSheetKit.configure`
+ * - processor: constructing the first `CustomCheckoutEventProcessor`
+ * - firstEvent: emitting the first completed and pixel events, the first
+ *   real use of Jackson
+ *
+ * Every cold run loads the classes in a fresh classloader whose parent is the
+ * platform classloader, so nothing the module or its dependencies load is
+ * shared between runs. Warm runs repeat the phases in the same classloader
+ * afterwards. Mocks for the React context are created before timing starts.
+ *
+ * Run with `./gradlew :shopify_checkout-sheet-kit:startupBenchmark` from
+ * sample/android. Options are passed as key=value pairs through
+ * -Pstartup.args, e.g. -Pstartup.args="runs=20 warmRuns=50". With
+ * output=<file> the medians are also written as JSON so they can be tracked
+ * across releases.
+ */
+public final class StartupBenchmark {
+  static final String[] PHASES = {"classLoad", "getModule", "prewarm", "configure", "processor", "firstEvent"};
+
+  static final class Options {
+    int runs = 10;
+    int warmRuns = 20;
+    String output;
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (String arg : args) {
+        String[] pair = arg.split("=", 2);
+        if (pair.length != 2) {
+          throw new IllegalArgumentException("Expected key=value, got " + arg);
+        }
+        switch (pair[0]) {
+          case "runs":
+            options.runs = Integer.parseInt(pair[1]);
+            break;
+          case "warmRuns":
+            options.warmRuns = Integer.parseInt(pair[1]);
+            break;
+          case "output":
+            options.output = pair[1];
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + pair[0]);
+        }
+      }
+      return options;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    Result result = run(options);
+    System.out.print(result.report(options));
+    if (options.output != null) {
+      result.write(new File(options.output), options);
+    }
+  }
+
+  static Result run(Options options) throws Exception {
+    URL[] classpath = classpath();
+    Result result = new Result(options.runs);
+
+    for (int run = 0; run < options.runs; run++) {
+      try (URLClassLoader loader = new URLClassLoader(classpath, ClassLoader.getSystemClassLoader().getParent())) {
+        Class<?> phases = Class.forName(Phases.class.getName(), true, loader);
+        long[][] nanos = (long[][]) phases.getDeclaredMethod("measure", int.class).invoke(null, options.warmRuns);
+        result.add(run, nanos[0], nanos[1]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs inside the fresh classloader. Everything it references is loaded
+   * again for each cold run, so it must only be reached by reflection, and is
+   * public because the classloaders do not share a runtime package.
+   */
+  public static final class Phases {
+    private Phases() {}
+
+    /**
+     * Returns the nanoseconds of each phase for the cold run, followed by the
+     * median of each phase over warmRuns repetitions.
+     */
+    public static long[][] measure(int warmRuns) throws Exception {
+      BenchmarkFixtures.SinkEmitter emitter = new BenchmarkFixtures.SinkEmitter((eventName, data) -> {});
+      ReactApplicationContext reactContext = BenchmarkFixtures.reactContext(emitter);
+      android.content.Context context = BenchmarkFixtures.context();
+      CheckoutCompletedEvent completedEvent = BenchmarkFixtures.checkoutCompletedEvent();
+      StandardPixelEvent pixelEvent = BenchmarkFixtures.standardPixelEvent();
+
+      long[] cold = new long[PHASES.length];
+      long start = System.nanoTime();
+      ClassLoader loader = Phases.class.getClassLoader();
+      Class.forName("com.shopify.reactnative.checkoutsheetkit.ShopifyCheckoutSheetKitPackage", true, loader);
+      Class.forName("com.shopify.reactnative.checkoutsheetkit.ShopifyCheckoutSheetKitModule", true, loader);
+      Class.forName("com.shopify.checkoutsheetkit.ShopifyCheckoutSheetKit", true, loader);
+      cold[0] = System.nanoTime() - start;
+      initialize(cold, reactContext, context, emitter, completedEvent, pixelEvent);
+
+      long[][] warm = new long[PHASES.length][warmRuns];
+      long[] repetition = new long[PHASES.length];
+      for (int i = 0; i < warmRuns; i++) {
+        initialize(repetition, reactContext, context, emitter, completedEvent, pixelEvent);
+        for (int phase = 1; phase < PHASES.length; phase++) {
+          warm[phase][i] = repetition[phase];
+        }
+      }
+
+      long[] warmMedians = new long[PHASES.length];
+      for (int phase = 0; phase < PHASES.length; phase++) {
+        warmMedians[phase] = median(warm[phase]);
+      }
+      return new long[][] {cold, warmMedians};
+    }
+
+    private static void initialize(long[] nanos, ReactApplicationContext reactContext,
+        android.content.Context context, BenchmarkFixtures.SinkEmitter emitter,
+        CheckoutCompletedEvent completedEvent, StandardPixelEvent pixelEvent) throws Exception {
+      long start = System.nanoTime();
+      ShopifyCheckoutSheetKitModule module = (ShopifyCheckoutSheetKitModule) new ShopifyCheckoutSheetKitPackage()
+          .getModule(ShopifyCheckoutSheetKitModule.NAME, reactContext);
+      nanos[1] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      BackgroundScheduler.get().submit(() -> {}).get(30, TimeUnit.SECONDS);
+      nanos[2] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      module.setConfig(BenchmarkFixtures.colorsConfig("automatic"));
+      nanos[3] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      CustomCheckoutEventProcessor processor =
+          new CustomCheckoutEventProcessor(context, emitter, new GeolocationRequestQueue());
+      nanos[4] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      processor.onCheckoutCompleted(completedEvent);
+      processor.onWebPixelEvent(pixelEvent);
+      nanos[5] = System.nanoTime() - start;
+    }
+  }
+
+  static final class Result {
+    final long[][] cold;
+    final long[][] warm;
+
+    Result(int runs) {
+      cold = new long[PHASES.length][runs];
+      warm = new long[PHASES.length][runs];
+    }
+
+    void add(int run, long[] coldNanos, long[] warmNanos) {
+      for (int phase = 0; phase < PHASES.length; phase++) {
+        cold[phase][run] = coldNanos[phase];
+        warm[phase][run] = warmNanos[phase];
+      }
+    }
+
+    String report(Options options) {
+      StringBuilder out = new StringBuilder();
+      out.append(String.format(Locale.ROOT, "Startup: %d cold runs, %d warm repetitions each%n",
+          options.runs, options.warmRuns));
+      out.append(String.format(Locale.ROOT, "  %-12s %12s %12s %12s %12s%n",
+          "phase", "cold p50 ms", "cold min ms", "cold max ms", "warm p50 us"));
+      long coldTotal = 0;
+      long warmTotal = 0;
+      for (int phase = 0; phase < PHASES.length; phase++) {
+        long[] sorted = sorted(cold[phase]);
+        coldTotal += median(cold[phase]);
+        warmTotal += median(warm[phase]);
+        out.append(String.format(Locale.ROOT, "  %-12s %12.2f %12.2f %12.2f %12.1f%n",
+            PHASES[phase], median(cold[phase]) / 1e6, sorted[0] / 1e6, sorted[sorted.length - 1] / 1e6,
+            median(warm[phase]) / 1e3));
+      }
+      out.append(String.format(Locale.ROOT, "  %-12s %12.2f %12s %12s %12.1f%n",
+          "total", coldTotal / 1e6, "", "", warmTotal / 1e3));
+      return out.toString();
+    }
+
+    void write(File file, Options options) throws Exception {
+      ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+      ObjectNode root = mapper.createObjectNode();
+      root.put("runs", options.runs);
+      root.put("warmRuns", options.warmRuns);
+      root.put("java", System.getProperty("java.version"));
+      ObjectNode phases = root.putObject("phases");
+      for (int phase = 0; phase < PHASES.length; phase++) {
+        ObjectNode node = phases.putObject(PHASES[phase]);
+        node.put("coldMicros", median(cold[phase]) / 1e3);
+        node.put("warmMicros", median(warm[phase]) / 1e3);
+      }
+
+      File dir = file.getAbsoluteFile().getParentFile();
+      if (dir != null) {
+        dir.mkdirs();
+      }
+      mapper.writeValue(file, root);
+    }
+  }
+
+  // Helpers
+
+  private static URL[] classpath() throws Exception {
+    List<URL> urls = new ArrayList<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        urls.add(new File(entry).toURI().toURL());
+      }
+    }
+    return urls.toArray(new URL[0]);
+  }
+
+  private static long median(long[] values) {
+    if (values.length == 0) {
+      return 0;
+    }
+    return sorted(values)[values.length / 2];
+  }
+
+  private static long[] sorted(long[] values) {
+    long[] copy = values.clone();
+    Arrays.sort(copy);
+    return copy;
+  }
+}
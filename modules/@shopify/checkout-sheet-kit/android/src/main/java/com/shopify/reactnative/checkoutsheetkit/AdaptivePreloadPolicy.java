@@ -0,0 +1,100 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Decides whether and when a `preload` request is carried out, based on the
+ * install's PreloadHistory.
+ *
+ * Until minSamples preload requests have been seen every preload is carried
+ * out. After that, preloads are skipped when fewer than minConversionRate of
+ * them are followed by `present`. Otherwise the preload is delayed so that it
+ * completes about leadTimeMs before the usual time of `present`, which keeps
+ * the preloaded checkout fresh for apps where customers linger in the cart.
+ */
+public final class AdaptivePreloadPolicy {
+  public static final int DEFAULT_MIN_SAMPLES = 10;
+  public static final double DEFAULT_MIN_CONVERSION_RATE = 0.2;
+  public static final long DEFAULT_LEAD_TIME_MS = 5_000;
+  public static final long DEFAULT_MAX_DELAY_MS = 60_000;
+
+  public static final String PRELOAD = "preload";
+  public static final String DELAY = "delay";
+  public static final String SKIP = "skip";
+  public static final String LEARNING = "learning";
+
+  private final int minSamples;
+  private final double minConversionRate;
+  private final long leadTimeMs;
+  private final long maxDelayMs;
+
+  public AdaptivePreloadPolicy(int minSamples, double minConversionRate, long leadTimeMs, long maxDelayMs) {
+    this.minSamples = Math.max(0, minSamples);
+    this.minConversionRate = minConversionRate;
+    this.leadTimeMs = Math.max(0, leadTimeMs);
+    this.maxDelayMs = Math.max(0, maxDelayMs);
+  }
+
+  /**
+   * Returns null when adaptive preloading is not configured or disabled.
+   */
+  @Nullable
+  public static AdaptivePreloadPolicy fromConfig(@Nullable ReadableMap config) {
+    if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled"))) {
+      return null;
+    }
+
+    return new AdaptivePreloadPolicy(
+        config.hasKey("minSamples") ? config.getInt("minSamples") : DEFAULT_MIN_SAMPLES,
+        config.hasKey("minConversionRate") ? config.getDouble("minConversionRate") : DEFAULT_MIN_CONVERSION_RATE,
+        config.hasKey("leadTimeMs") ? (long) config.getDouble("leadTimeMs") : DEFAULT_LEAD_TIME_MS,
+        config.hasKey("maxDelayMs") ? (long) config.getDouble("maxDelayMs") : DEFAULT_MAX_DELAY_MS);
+  }
+
+  /**
+   * One of PRELOAD, DELAY, SKIP or LEARNING.
+   */
+  public String decide(PreloadHistory history) {
+    if (history.getRequests() < minSamples) {
+      return LEARNING;
+    }
+    if (history.getConversionRate() < minConversionRate) {
+      return SKIP;
+    }
+    return getDelayMs(history) > 0 ? DELAY : PRELOAD;
+  }
+
+  /**
+   * How long to wait before preloading, given the usual gap between preload
+   * and present.
+   */
+  public long getDelayMs(PreloadHistory history) {
+    return Math.max(0, Math.min(history.getAverageGapMs() - leadTimeMs, maxDelayMs));
+  }
+}
@@ -0,0 +1,182 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deduplicates checkout failures during outages.
+ *
+ * Failures are grouped by __typename, code and statusCode. The first failure
+ * of a group is delivered immediately; repeats within the window are only
+ * counted. When the window closes, a single summary with the total count and
+ * the first/last timestamps is handed to the listener, provided anything was
+ * suppressed.
+ */
+public class CheckoutErrorAggregator {
+  public static final long DEFAULT_WINDOW_MS = 30_000;
+
+  public interface SummaryListener {
+    void onSummary(Map<String, Object> summary);
+  }
+
+  public interface Clock {
+    long currentTimeMillis();
+  }
+
+  private final Map<String, Group> groups = new HashMap<>();
+  private final long windowMs;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final SummaryListener listener;
+
+  public CheckoutErrorAggregator(long windowMs, ScheduledExecutorService scheduler, Clock clock,
+      SummaryListener listener) {
+    this.windowMs = windowMs;
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.listener = listener;
+  }
+
+  /**
+   * Builds an aggregator from the "errorAggregation" section of the Android
+   * configuration. Returns null when aggregation is not configured or disabled.
+   */
+  @Nullable
+  public static CheckoutErrorAggregator fromConfig(@Nullable ReadableMap config,
+      ScheduledExecutorService scheduler, SummaryListener listener) {
+    if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled"))) {
+      return null;
+    }
+
+    long windowMs = config.hasKey("windowMs") ? (long) config.getDouble("windowMs") : DEFAULT_WINDOW_MS;
+    return new CheckoutErrorAggregator(windowMs, scheduler, System::currentTimeMillis, listener);
+  }
+
+  /**
+   * Records a failure.
+   *
+   * @return true if this is the first failure of its group in the current
+   *         window and should be delivered now, false if it was suppressed
+   */
+  public boolean record(String typeName, @Nullable String code, @Nullable Integer statusCode,
+      @Nullable String message) {
+    String key = typeName + "|" + code + "|" + statusCode;
+    long now = clock.currentTimeMillis();
+
+    synchronized (this) {
+      Group group = groups.get(key);
+      if (group != null) {
+        group.count++;
+        group.lastSeenAt = now;
+        return false;
+      }
+
+      groups.put(key, new Group(typeName, code, statusCode, message, now));
+    }
+
+    Runnable closeWindow = () -> flush(key);
+    scheduler.schedule(closeWindow, windowMs, TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  /**
+   * Closes every open window now, emitting summaries for groups with
+   * suppressed failures.
+   */
+  public void flushAll() {
+    List<Group> closed;
+    synchronized (this) {
+      closed = new ArrayList<>(groups.values());
+      groups.clear();
+    }
+
+    for (Group group : closed) {
+      emitSummary(group);
+    }
+  }
+
+  // Private
+
+  private void flush(String key) {
+    Group group;
+    synchronized (this) {
+      group = groups.remove(key);
+    }
+
+    if (group != null) {
+      emitSummary(group);
+    }
+  }
+
+  private void emitSummary(Group group) {
+    if (group.count <= 1) {
+      return;
+    }
+
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("__typename", group.typeName);
+    summary.put("code", group.code);
+    summary.put("message", group.message);
+    if (group.statusCode != null) {
+      summary.put("statusCode", group.statusCode);
+    }
+    summary.put("count", group.count);
+    summary.put("suppressed", group.count - 1);
+    summary.put("firstSeenAt", group.firstSeenAt);
+    summary.put("lastSeenAt", group.lastSeenAt);
+    summary.put("windowMs", windowMs);
+
+    listener.onSummary(summary);
+  }
+
+  private static class Group {
+    final String typeName;
+    final String code;
+    final Integer statusCode;
+    final String message;
+    final long firstSeenAt;
+    long lastSeenAt;
+    int count = 1;
+
+    Group(String typeName, String code, Integer statusCode, String message, long firstSeenAt) {
+      this.typeName = typeName;
+      this.code = code;
+      this.statusCode = statusCode;
+      this.message = message;
+      this.firstSeenAt = firstSeenAt;
+      this.lastSeenAt = firstSeenAt;
+    }
+  }
+}
@@ -0,0 +1,395 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.lifecycleevents.Address;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartInfo;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartLine;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartLineImage;
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.lifecycleevents.DeliveryDetails;
+import com.shopify.checkoutsheetkit.lifecycleevents.DeliveryInfo;
+import com.shopify.checkoutsheetkit.lifecycleevents.Discount;
+import com.shopify.checkoutsheetkit.lifecycleevents.Money;
+import com.shopify.checkoutsheetkit.lifecycleevents.OrderDetails;
+import com.shopify.checkoutsheetkit.lifecycleevents.PaymentMethod;
+import com.shopify.checkoutsheetkit.lifecycleevents.Price;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEventData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written serializers for the checkout event models.
+ *
+ * Jackson builds a serializer for each model class the first time it is
+ * written, by introspecting the class through reflection. For the completed
+ * event that is a dozen classes at the moment the order confirmation is
+ * shown. These writers produce the same JSON as Jackson's default bean
+ * serialization: properties in declaration order, nulls included.
+ *
+ * The `context` and `data` of pixel events are large generated model graphs
+ * and are still written by Jackson; their serializers are resolved ahead of
+ * time by {@link #prewarm(ObjectMapper)}.
+ */
+final class CheckoutEventSerializers {
+  private CheckoutEventSerializers() {
+  }
+
+  /**
+   * Resolves and caches the serializers that are still built by reflection,
+   * so the first pixel event does not pay for it. Call off the main thread.
+   */
+  static void prewarm(ObjectMapper mapper) {
+    mapper.canSerialize(com.shopify.checkoutsheetkit.pixelevents.Context.class);
+    mapper.canSerialize(StandardPixelEventData.class);
+  }
+
+  static void writeCompletedEvent(JsonGenerator generator, CheckoutCompletedEvent event) throws IOException {
+    generator.writeStartObject();
+    generator.writeFieldName("orderDetails");
+    writeOrderDetails(generator, event.getOrderDetails());
+    generator.writeEndObject();
+  }
+
+  /**
+   * @param customDataPolicy - Limits applied to the customData of custom
+   *                         events, or null to write it as is
+   */
+  static void writePixelEvent(JsonGenerator generator, ObjectMapper mapper, PixelEvent event,
+      @Nullable CustomDataPolicy customDataPolicy) throws IOException {
+    CustomDataPolicy.Result limited = customDataPolicy != null && event instanceof CustomPixelEvent
+        ? customDataPolicy.apply(((CustomPixelEvent) event).getCustomData())
+        : null;
+    writePixelEvent(generator, mapper, event, limited, 1.0);
+  }
+
+  /**
+   * Writes a pixel event whose customData limits were already applied, so
+   * that an event written more than once is only limited once.
+   *
+   * @param limited    - The customData to write instead of the event's own,
+   *                   or null to write it as is
+   * @param sampleRate - Written as the event's `sampleRate` when below 1
+   */
+  static void writePixelEvent(JsonGenerator generator, ObjectMapper mapper, PixelEvent event,
+      @Nullable CustomDataPolicy.Result limited, double sampleRate) throws IOException {
+    if (event instanceof StandardPixelEvent) {
+      StandardPixelEvent standardEvent = (StandardPixelEvent) event;
+      writePixelEventStart(generator, event, sampleRate);
+      generator.writeFieldName("context");
+      writeWithMapper(generator, mapper, standardEvent.getContext());
+      generator.writeFieldName("data");
+      writeWithMapper(generator, mapper, standardEvent.getData());
+      generator.writeEndObject();
+    } else if (event instanceof CustomPixelEvent) {
+      CustomPixelEvent customEvent = (CustomPixelEvent) event;
+      writePixelEventStart(generator, event, sampleRate);
+      generator.writeFieldName("context");
+      writeWithMapper(generator, mapper, customEvent.getContext());
+      writeCustomData(generator, customEvent.getCustomData(), limited);
+      generator.writeEndObject();
+    } else {
+      mapper.writeValue(generator, event);
+    }
+  }
+
+  // Private
+
+  private static void writePixelEventStart(JsonGenerator generator, PixelEvent event, double sampleRate)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", event.getId());
+    generator.writeStringField("name", event.getName());
+    generator.writeStringField("timestamp", event.getTimestamp());
+    EventType type = event.getType();
+    generator.writeStringField("type", type != null ? type.name() : null);
+    if (sampleRate < 1.0) {
+      generator.writeNumberField("sampleRate", sampleRate);
+    }
+  }
+
+  private static void writeCustomData(JsonGenerator generator, @Nullable String customData,
+      @Nullable CustomDataPolicy.Result limited) throws IOException {
+    if (limited == null) {
+      generator.writeStringField("customData", customData);
+      return;
+    }
+
+    generator.writeStringField("customData", limited.customData);
+    if (limited.limitAction != null) {
+      generator.writeObjectFieldStart("customDataLimit");
+      generator.writeStringField("action", limited.limitAction);
+      generator.writeNumberField("originalBytes", limited.originalBytes);
+      generator.writeEndObject();
+    }
+  }
+
+  private static void writeWithMapper(JsonGenerator generator, ObjectMapper mapper, @Nullable Object value)
+      throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      mapper.writeValue(generator, value);
+    }
+  }
+
+  private static void writeOrderDetails(JsonGenerator generator, @Nullable OrderDetails details) throws IOException {
+    if (details == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("billingAddress");
+    writeAddress(generator, details.getBillingAddress());
+    generator.writeFieldName("cart");
+    writeCartInfo(generator, details.getCart());
+    generator.writeFieldName("deliveries");
+    if (details.getDeliveries() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (DeliveryInfo delivery : details.getDeliveries()) {
+        writeDeliveryInfo(generator, delivery);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeStringField("email", details.getEmail());
+    generator.writeStringField("id", details.getId());
+    generator.writeFieldName("paymentMethods");
+    if (details.getPaymentMethods() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (PaymentMethod paymentMethod : details.getPaymentMethods()) {
+        writePaymentMethod(generator, paymentMethod);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeStringField("phone", details.getPhone());
+    generator.writeEndObject();
+  }
+
+  private static void writeAddress(JsonGenerator generator, @Nullable Address address) throws IOException {
+    if (address == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeStringField("address1", address.getAddress1());
+    generator.writeStringField("address2", address.getAddress2());
+    generator.writeStringField("city", address.getCity());
+    generator.writeStringField("countryCode", address.getCountryCode());
+    generator.writeStringField("firstName", address.getFirstName());
+    generator.writeStringField("lastName", address.getLastName());
+    generator.writeStringField("name", address.getName());
+    generator.writeStringField("phone", address.getPhone());
+    generator.writeStringField("postalCode", address.getPostalCode());
+    generator.writeStringField("referenceId", address.getReferenceId());
+    generator.writeStringField("zoneCode", address.getZoneCode());
+    generator.writeEndObject();
+  }
+
+  private static void writeCartInfo(JsonGenerator generator, @Nullable CartInfo cart) throws IOException {
+    if (cart == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("lines");
+    if (cart.getLines() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartArray();
+      for (CartLine line : cart.getLines()) {
+        writeCartLine(generator, line);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeFieldName("price");
+    writePrice(generator, cart.getPrice());
+    generator.writeStringField("token", cart.getToken());
+    generator.writeEndObject();
+  }
+
+  private static void writeCartLine(JsonGenerator generator, @Nullable CartLine line) throws IOException {
+    if (line == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("discounts");
+    writeDiscounts(generator, line.getDiscounts());
+    generator.writeFieldName("image");
+    writeCartLineImage(generator, line.getImage());
+    generator.writeStringField("merchandiseId", line.getMerchandiseId());
+    generator.writeFieldName("price");
+    writeMoney(generator, line.getPrice());
+    generator.writeStringField("productId", line.getProductId());
+    generator.writeNumberField("quantity", line.getQuantity());
+    generator.writeStringField("title", line.getTitle());
+    generator.writeEndObject();
+  }
+
+  private static void writeCartLineImage(JsonGenerator generator, @Nullable CartLineImage image) throws IOException {
+    if (image == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeStringField("altText", image.getAltText());
+    generator.writeStringField("lg", image.getLg());
+    generator.writeStringField("md", image.getMd());
+    generator.writeStringField("sm", image.getSm());
+    generator.writeEndObject();
+  }
+
+  private static void writePrice(JsonGenerator generator, @Nullable Price price) throws IOException {
+    if (price == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("discounts");
+    writeDiscounts(generator, price.getDiscounts());
+    generator.writeFieldName("shipping");
+    writeMoney(generator, price.getShipping());
+    generator.writeFieldName("subtotal");
+    writeMoney(generator, price.getSubtotal());
+    generator.writeFieldName("taxes");
+    writeMoney(generator, price.getTaxes());
+    generator.writeFieldName("total");
+    writeMoney(generator, price.getTotal());
+    generator.writeEndObject();
+  }
+
+  private static void writeDiscounts(JsonGenerator generator, @Nullable List<Discount> discounts) throws IOException {
+    if (discounts == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartArray();
+    for (Discount discount : discounts) {
+      if (discount == null) {
+        generator.writeNull();
+        continue;
+      }
+
+      generator.writeStartObject();
+      generator.writeFieldName("amount");
+      writeMoney(generator, discount.getAmount());
+      generator.writeStringField("applicationType", discount.getApplicationType());
+      generator.writeStringField("title", discount.getTitle());
+      generator.writeFieldName("value");
+      writeDouble(generator, discount.getValue());
+      generator.writeStringField("valueType", discount.getValueType());
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+  }
+
+  private static void writeMoney(JsonGenerator generator, @Nullable Money money) throws IOException {
+    if (money == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("amount");
+    writeDouble(generator, money.getAmount());
+    generator.writeStringField("currencyCode", money.getCurrencyCode());
+    generator.writeEndObject();
+  }
+
+  private static void writeDeliveryInfo(JsonGenerator generator, @Nullable DeliveryInfo delivery) throws IOException {
+    if (delivery == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("details");
+    DeliveryDetails details = delivery.getDetails();
+    if (details == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartObject();
+      generator.writeStringField("additionalInfo", details.getAdditionalInfo());
+      generator.writeFieldName("location");
+      writeAddress(generator, details.getLocation());
+      generator.writeStringField("name", details.getName());
+      generator.writeEndObject();
+    }
+    generator.writeStringField("method", delivery.getMethod());
+    generator.writeEndObject();
+  }
+
+  private static void writePaymentMethod(JsonGenerator generator, @Nullable PaymentMethod paymentMethod)
+      throws IOException {
+    if (paymentMethod == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject();
+    generator.writeFieldName("details");
+    Map<String, String> details = paymentMethod.getDetails();
+    if (details == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartObject();
+      for (Map.Entry<String, String> entry : details.entrySet()) {
+        generator.writeStringField(entry.getKey(), entry.getValue());
+      }
+      generator.writeEndObject();
+    }
+    generator.writeStringField("type", paymentMethod.getType());
+    generator.writeEndObject();
+  }
+
+  private static void writeDouble(JsonGenerator generator, @Nullable Double value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(value);
+    }
+  }
+}
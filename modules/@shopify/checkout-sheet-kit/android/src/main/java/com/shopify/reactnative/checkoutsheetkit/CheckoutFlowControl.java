@@ -0,0 +1,202 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayDeque;
+
+/**
+ * Credit-based flow control for pixel events.
+ *
+ * JS grants credits with `ackEvents` as it finishes handling pixel events.
+ * Every pixel event sent over the bridge uses up one credit. While no credits
+ * are left, pixel events wait here, unserialized, in arrival order. Once the
+ * buffer is full the oldest waiting event is dropped. Lifecycle events
+ * (completed, error, close, ...) are never held back.
+ *
+ * One instance is shared by every checkout session, since all of them are
+ * consumed by the same JS thread. Buffered events are emitted under their own
+ * session, in arrival order, and only receive a sequence number once they are
+ * actually emitted, so dropped events do not show up as gaps in the stream.
+ */
+public class CheckoutFlowControl {
+  public static final int DEFAULT_WINDOW = 64;
+  public static final int DEFAULT_BUFFER_SIZE = 256;
+
+  private final ArrayDeque<Pending> buffer = new ArrayDeque<>();
+  private final CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+  private final int window;
+  private final int bufferSize;
+  private int credits;
+  private boolean draining;
+  private boolean released;
+
+  public CheckoutFlowControl(int window, int bufferSize) {
+    this.window = Math.max(1, window);
+    this.bufferSize = Math.max(0, bufferSize);
+    this.credits = this.window;
+    updateGauges();
+  }
+
+  /**
+   * Builds flow control from the "flowControl" section of the Android
+   * configuration. Returns null when flow control is not configured or
+   * disabled.
+   */
+  @Nullable
+  public static CheckoutFlowControl fromConfig(@Nullable ReadableMap config) {
+    if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled"))) {
+      return null;
+    }
+
+    int window = config.hasKey("window") ? config.getInt("window") : DEFAULT_WINDOW;
+    int bufferSize = config.hasKey("bufferSize") ? config.getInt("bufferSize") : DEFAULT_BUFFER_SIZE;
+    return new CheckoutFlowControl(window, bufferSize);
+  }
+
+  /**
+   * Emits the pixel event now if a credit is available, otherwise buffers it
+   * until JS grants more.
+   */
+  void submit(CustomCheckoutEventProcessor processor, CustomCheckoutEventProcessor.PreparedPixelEvent event) {
+    synchronized (this) {
+      if (!released && (credits == 0 || !buffer.isEmpty())) {
+        metrics.increment(CheckoutMetrics.FLOW_CONTROL_BUFFERED_COUNT);
+        if (buffer.size() >= bufferSize) {
+          metrics.increment(CheckoutMetrics.FLOW_CONTROL_DROPPED_COUNT);
+          if (bufferSize == 0) {
+            updateGauges();
+            return;
+          }
+          buffer.pollFirst();
+        }
+      }
+      buffer.addLast(new Pending(processor, event));
+    }
+
+    drain();
+  }
+
+  /**
+   * Returns credits for events JS has finished handling and emits buffered
+   * events against them. Credits never exceed the configured window.
+   */
+  public void ack(int count) {
+    if (count <= 0) {
+      return;
+    }
+
+    synchronized (this) {
+      credits = Math.min(window, credits + count);
+    }
+
+    drain();
+  }
+
+  /**
+   * Stops limiting: every buffered event is emitted, regardless of credits,
+   * and later events pass straight through. Used when flow control is
+   * reconfigured or turned off.
+   */
+  public void release() {
+    synchronized (this) {
+      released = true;
+    }
+
+    drain();
+  }
+
+  public synchronized int getCredits() {
+    return credits;
+  }
+
+  public synchronized int getBufferedCount() {
+    return buffer.size();
+  }
+
+  // Private
+
+  /**
+   * Emits buffered events while credits last. Only one thread drains at a
+   * time so that events leave in arrival order; a thread that finds another
+   * one draining leaves its event to it.
+   */
+  private void drain() {
+    synchronized (this) {
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+
+    boolean finished = false;
+    try {
+      while (true) {
+        Pending next;
+        synchronized (this) {
+          if (buffer.isEmpty() || (credits == 0 && !released)) {
+            draining = false;
+            finished = true;
+            updateGauges();
+            return;
+          }
+          next = buffer.pollFirst();
+          if (credits > 0) {
+            credits--;
+          }
+        }
+
+        next.processor.emitPixelEvent(next.event);
+      }
+    } finally {
+      if (!finished) {
+        synchronized (this) {
+          draining = false;
+          updateGauges();
+        }
+      }
+    }
+  }
+
+  private void updateGauges() {
+    metrics.setGauge(CheckoutMetrics.FLOW_CONTROL_CREDITS, credits);
+    metrics.setGauge(CheckoutMetrics.FLOW_CONTROL_BUFFER_DEPTH, buffer.size());
+    metrics.setGauge(CheckoutMetrics.FLOW_CONTROL_BUFFER_SATURATION,
+        bufferSize == 0 ? 0 : buffer.size() * 100L / bufferSize);
+  }
+
+  private static class Pending {
+    final CustomCheckoutEventProcessor processor;
+    final CustomCheckoutEventProcessor.PreparedPixelEvent event;
+
+    Pending(CustomCheckoutEventProcessor processor, CustomCheckoutEventProcessor.PreparedPixelEvent event) {
+      this.processor = processor;
+      this.event = event;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
+
+import java.io.IOException;
+
+/**
+ * Aggregates the standard checkout pixel events of one checkout session into
+ * a funnel.
+ *
+ * Only the number of times each step was seen and the time it was first
+ * reached are kept, in fixed-size primitive arrays, so recording an event
+ * does not allocate. The funnel is written out as a single summary when the
+ * session ends, or on demand. Times are taken when the event reaches the
+ * native module; pixel timestamps are strings from the web page and are not
+ * parsed.
+ */
+public final class CheckoutFunnel {
+  /**
+   * Funnel steps, in checkout order.
+   */
+  public static final String[] STEPS = {
+      "checkout_started",
+      "checkout_contact_info_submitted",
+      "checkout_address_info_submitted",
+      "checkout_shipping_info_submitted",
+      "payment_info_submitted",
+      "checkout_completed",
+  };
+
+  /**
+   * Options from the "funnel" section of the Android configuration.
+   */
+  public static final class Options {
+    /**
+     * Whether pixel events are still emitted to JS individually. Apps that
+     * only need the funnel turn this off to skip serializing and bridging
+     * every pixel event.
+     */
+    public final boolean forwardPixelEvents;
+
+    public Options(boolean forwardPixelEvents) {
+      this.forwardPixelEvents = forwardPixelEvents;
+    }
+
+    /**
+     * Returns null when funnel aggregation is not configured or disabled.
+     */
+    @Nullable
+    public static Options fromConfig(@Nullable ReadableMap config) {
+      if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled"))) {
+        return null;
+      }
+
+      boolean forwardPixelEvents = !config.hasKey("forwardPixelEvents") || config.getBoolean("forwardPixelEvents");
+      return new Options(forwardPixelEvents);
+    }
+  }
+
+  private final long startedAt;
+  private final int[] counts = new int[STEPS.length];
+  private final long[] firstReachedAt = new long[STEPS.length];
+  private int pixelEvents;
+
+  public CheckoutFunnel(long startedAtMs) {
+    this.startedAt = startedAtMs;
+  }
+
+  /**
+   * Records a pixel event. Every event is counted; standard events that are
+   * funnel steps also update their step.
+   *
+   * @return true if the event was a funnel step
+   */
+  public synchronized boolean record(PixelEvent event, long nowMs) {
+    pixelEvents++;
+    if (event.getType() != EventType.STANDARD) {
+      return false;
+    }
+
+    int step = stepIndex(event.getName());
+    if (step < 0) {
+      return false;
+    }
+
+    if (counts[step]++ == 0) {
+      firstReachedAt[step] = nowMs;
+    }
+    return true;
+  }
+
+  /**
+   * Writes the funnel as
+   * `{"final":..,"durationMs":..,"pixelEvents":..,"lastStep":..,"completed":..,"steps":[..]}`.
+   * Each step carries its count, the time it was first reached and the
+   * milliseconds since the start of the funnel and since the previous step
+   * that was reached. Steps that were not reached have null times.
+   *
+   * @param isFinal whether the session has ended
+   */
+  public synchronized void write(JsonGenerator generator, boolean isFinal, long nowMs) throws IOException {
+    int lastStep = -1;
+    for (int i = 0; i < STEPS.length; i++) {
+      if (counts[i] > 0) {
+        lastStep = i;
+      }
+    }
+
+    generator.writeStartObject();
+    generator.writeBooleanField("final", isFinal);
+    generator.writeNumberField("durationMs", nowMs - startedAt);
+    generator.writeNumberField("pixelEvents", pixelEvents);
+    generator.writeStringField("lastStep", lastStep >= 0 ? STEPS[lastStep] : null);
+    generator.writeBooleanField("completed", counts[STEPS.length - 1] > 0);
+
+    generator.writeArrayFieldStart("steps");
+    int previous = -1;
+    for (int i = 0; i < STEPS.length; i++) {
+      boolean reached = counts[i] > 0;
+      generator.writeStartObject();
+      generator.writeStringField("name", STEPS[i]);
+      generator.writeNumberField("count", counts[i]);
+      writeTime(generator, "firstReachedAt", reached ? firstReachedAt[i] : null);
+      writeTime(generator, "msSinceStart", reached && counts[0] > 0 ? firstReachedAt[i] - firstReachedAt[0] : null);
+      writeTime(generator, "msSincePreviousStep",
+          reached && previous >= 0 ? firstReachedAt[i] - firstReachedAt[previous] : null);
+      generator.writeEndObject();
+
+      if (reached) {
+        previous = i;
+      }
+    }
+    generator.writeEndArray();
+
+    generator.writeEndObject();
+  }
+
+  // Private
+
+  private static int stepIndex(@Nullable String name) {
+    if (name == null) {
+      return -1;
+    }
+
+    switch (name) {
+      case "checkout_started":
+        return 0;
+      case "checkout_contact_info_submitted":
+        return 1;
+      case "checkout_address_info_submitted":
+        return 2;
+      case "checkout_shipping_info_submitted":
+        return 3;
+      case "payment_info_submitted":
+        return 4;
+      case "checkout_completed":
+        return 5;
+      default:
+        return -1;
+    }
+  }
+
+  private static void writeTime(JsonGenerator generator, String fieldName, @Nullable Long value) throws IOException {
+    if (value == null) {
+      generator.writeNullField(fieldName);
+    } else {
+      generator.writeNumberField(fieldName, value);
+    }
+  }
+}
@@ -0,0 +1,368 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Native diagnostics for the module, kept in a fixed-size in-memory ring
+ * buffer and pulled on demand with `dumpNativeLogs()`.
+ *
+ * Every message has a key naming its call site. A key is recorded at most
+ * once per minIntervalMs; further messages with the same key are only
+ * counted, and the count is attached to the next message recorded for it.
+ * A bad theme or a failing serializer therefore costs a map lookup per
+ * occurrence rather than a logcat write. Messages may be given as a format
+ * and arguments, which are only formatted once the message is recorded.
+ *
+ * Only messages at or above the logcat level are also written to logcat. The
+ * level defaults to WARN in debuggable apps and to NONE otherwise, so release
+ * builds stay out of logcat unless "logcatLevel" is configured.
+ */
+public final class CheckoutLog {
+  // Same values as the android.util.Log priorities
+  public static final int DEBUG = 3;
+  public static final int INFO = 4;
+  public static final int WARN = 5;
+  public static final int ERROR = 6;
+  public static final int NONE = Integer.MAX_VALUE;
+
+  public static final int DEFAULT_CAPACITY = 100;
+  public static final long DEFAULT_MIN_INTERVAL_MS = 10_000;
+
+  private static final String TAG = "ShopifyCheckoutSheetKit";
+  // Keys are call-site constants; this only guards against misuse
+  @VisibleForTesting
+  static final int MAX_KEYS = 256;
+
+  private static final CheckoutLog INSTANCE = new CheckoutLog(DEFAULT_CAPACITY, DEFAULT_MIN_INTERVAL_MS, NONE);
+
+  private volatile int logcatLevel;
+  private volatile long minIntervalMs;
+
+  // Guarded by this; the level used while "logcatLevel" is not configured
+  private int defaultLogcatLevel;
+  private boolean logcatLevelConfigured;
+
+  // Guarded by this
+  private Entry[] entries;
+  private int next;
+  private int size;
+  // In access order, so the least recently logged key is evicted first and a
+  // hot key keeps its rate limit when rare keys overflow the map
+  private final Map<String, KeyState> keys = new LinkedHashMap<String, KeyState>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, KeyState> eldest) {
+      return size() > MAX_KEYS;
+    }
+  };
+
+  @VisibleForTesting
+  CheckoutLog(int capacity, long minIntervalMs, int logcatLevel) {
+    this.entries = new Entry[Math.max(1, capacity)];
+    this.minIntervalMs = minIntervalMs;
+    this.logcatLevel = logcatLevel;
+    this.defaultLogcatLevel = logcatLevel;
+  }
+
+  public static CheckoutLog getInstance() {
+    return INSTANCE;
+  }
+
+  public static void e(String key, String message, @Nullable Throwable error) {
+    INSTANCE.log(ERROR, key, message, error, System.currentTimeMillis());
+  }
+
+  public static void w(String key, String message) {
+    INSTANCE.log(WARN, key, message, null, System.currentTimeMillis());
+  }
+
+  public static void w(String key, String message, @Nullable Throwable error) {
+    INSTANCE.log(WARN, key, message, error, System.currentTimeMillis());
+  }
+
+  /**
+   * Formats the message with String.format only if it is recorded, so a
+   * suppressed repeat costs no string building.
+   */
+  public static void e(String key, @Nullable Throwable error, String format, Object... args) {
+    INSTANCE.log(ERROR, key, format, args, error, System.currentTimeMillis());
+  }
+
+  /**
+   * Formats the message with String.format only if it is recorded. A
+   * Throwable passed as the only argument selects w(key, message, error).
+   */
+  public static void w(String key, String format, Object... args) {
+    INSTANCE.log(WARN, key, format, args, null, System.currentTimeMillis());
+  }
+
+  /**
+   * Sets the logcat level used until "logcatLevel" is configured: WARN for a
+   * debuggable app, NONE otherwise.
+   */
+  public synchronized void setDebuggable(boolean debuggable) {
+    defaultLogcatLevel = debuggable ? WARN : NONE;
+    if (!logcatLevelConfigured) {
+      logcatLevel = defaultLogcatLevel;
+    }
+  }
+
+  /**
+   * Applies the "nativeLogs" section of the Android configuration. Missing
+   * options, or a null section, restore the defaults.
+   */
+  public synchronized void configure(@Nullable ReadableMap config) {
+    int capacity = DEFAULT_CAPACITY;
+    long interval = DEFAULT_MIN_INTERVAL_MS;
+    int level = defaultLogcatLevel;
+    boolean levelConfigured = false;
+    if (config != null) {
+      if (config.hasKey("bufferSize")) {
+        capacity = config.getInt("bufferSize");
+      }
+      if (config.hasKey("minIntervalMs")) {
+        interval = (long) config.getDouble("minIntervalMs");
+      }
+      if (config.hasKey("logcatLevel")) {
+        level = parseLevel(config.getString("logcatLevel"));
+        levelConfigured = true;
+      }
+    }
+
+    minIntervalMs = Math.max(0, interval);
+    logcatLevel = level;
+    logcatLevelConfigured = levelConfigured;
+    resize(Math.max(1, capacity));
+  }
+
+  @VisibleForTesting
+  void log(int level, String key, String message, @Nullable Throwable error, long nowMs) {
+    log(level, key, message, null, error, nowMs);
+  }
+
+  @VisibleForTesting
+  void log(int level, String key, String format, @Nullable Object[] args, @Nullable Throwable error, long nowMs) {
+    int suppressed;
+    String message;
+    synchronized (this) {
+      KeyState state = keys.get(key);
+      if (state == null) {
+        state = new KeyState();
+        keys.put(key, state);
+      } else if (nowMs - state.lastRecordedAt < minIntervalMs) {
+        state.suppressed++;
+        CheckoutMetrics.getInstance().increment(CheckoutMetrics.LOGS_SUPPRESSED_COUNT);
+        return;
+      }
+
+      suppressed = state.suppressed;
+      state.suppressed = 0;
+      state.lastRecordedAt = nowMs;
+      message = args == null || args.length == 0 ? format : String.format(Locale.ROOT, format, args);
+
+      entries[next] = new Entry(nowMs, level, key, message, error != null ? error.toString() : null, suppressed);
+      next = (next + 1) % entries.length;
+      size = Math.min(size + 1, entries.length);
+    }
+
+    if (level >= logcatLevel) {
+      String text = suppressed > 0 ? message + " (" + suppressed + " similar messages suppressed)" : message;
+      writeToLogcat(level, text, error);
+    }
+  }
+
+  @VisibleForTesting
+  int getLogcatLevel() {
+    return logcatLevel;
+  }
+
+  /**
+   * Returns the recorded entries, oldest first.
+   */
+  @VisibleForTesting
+  synchronized List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>(size);
+    int start = (next - size + entries.length) % entries.length;
+    for (int i = 0; i < size; i++) {
+      result.add(entries[(start + i) % entries.length]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns `{"entries": [...], "suppressed": {key: count}}`, where
+   * suppressed counts the messages not recorded since the last entry for each
+   * key.
+   *
+   * @param clear - Empty the buffer and the suppressed counts after reading
+   */
+  public WritableMap snapshot(boolean clear) {
+    List<Entry> recorded;
+    Map<String, Integer> suppressed = new HashMap<>();
+    synchronized (this) {
+      recorded = getEntries();
+      for (Map.Entry<String, KeyState> key : keys.entrySet()) {
+        if (key.getValue().suppressed > 0) {
+          suppressed.put(key.getKey(), key.getValue().suppressed);
+        }
+      }
+      if (clear) {
+        entries = new Entry[entries.length];
+        next = 0;
+        size = 0;
+        keys.clear();
+      }
+    }
+
+    WritableArray entryValues = Arguments.createArray();
+    for (Entry entry : recorded) {
+      WritableMap value = Arguments.createMap();
+      value.putDouble("timestamp", entry.timestamp);
+      value.putString("level", levelToString(entry.level));
+      value.putString("key", entry.key);
+      value.putString("message", entry.message);
+      if (entry.error != null) {
+        value.putString("error", entry.error);
+      }
+      value.putInt("suppressed", entry.suppressed);
+      entryValues.pushMap(value);
+    }
+
+    WritableMap suppressedValues = Arguments.createMap();
+    for (Map.Entry<String, Integer> key : suppressed.entrySet()) {
+      suppressedValues.putInt(key.getKey(), key.getValue());
+    }
+
+    WritableMap result = Arguments.createMap();
+    result.putArray("entries", entryValues);
+    result.putMap("suppressed", suppressedValues);
+    return result;
+  }
+
+  static final class Entry {
+    final long timestamp;
+    final int level;
+    final String key;
+    final String message;
+    @Nullable
+    final String error;
+    final int suppressed;
+
+    Entry(long timestamp, int level, String key, String message, @Nullable String error, int suppressed) {
+      this.timestamp = timestamp;
+      this.level = level;
+      this.key = key;
+      this.message = message;
+      this.error = error;
+      this.suppressed = suppressed;
+    }
+  }
+
+  // Private
+
+  private synchronized void resize(int capacity) {
+    if (capacity == entries.length) {
+      return;
+    }
+
+    List<Entry> recorded = getEntries();
+    int keep = Math.min(recorded.size(), capacity);
+    entries = new Entry[capacity];
+    for (int i = 0; i < keep; i++) {
+      entries[i] = recorded.get(recorded.size() - keep + i);
+    }
+    size = keep;
+    next = keep % capacity;
+  }
+
+  private static void writeToLogcat(int level, String message, @Nullable Throwable error) {
+    switch (level) {
+      case ERROR:
+        Log.e(TAG, message, error);
+        break;
+      case WARN:
+        Log.w(TAG, message, error);
+        break;
+      case INFO:
+        Log.i(TAG, message);
+        break;
+      default:
+        Log.d(TAG, message);
+    }
+  }
+
+  private static int parseLevel(@Nullable String level) {
+    if (level == null) {
+      return WARN;
+    }
+
+    switch (level) {
+      case "debug":
+        return DEBUG;
+      case "info":
+        return INFO;
+      case "error":
+        return ERROR;
+      case "none":
+        return NONE;
+      default:
+        return WARN;
+    }
+  }
+
+  private static String levelToString(int level) {
+    switch (level) {
+      case ERROR:
+        return "error";
+      case WARN:
+        return "warn";
+      case INFO:
+        return "info";
+      default:
+        return "debug";
+    }
+  }
+
+  private static final class KeyState {
+    long lastRecordedAt;
+    int suppressed;
+  }
+}
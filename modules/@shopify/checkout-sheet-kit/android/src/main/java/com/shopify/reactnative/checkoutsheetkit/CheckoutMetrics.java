@@ -0,0 +1,257 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide, lock-free registry of counters, gauges and fixed-bucket
+ * histograms for the module's hot paths.
+ *
+ * Recording never blocks: counters and histogram buckets are plain atomics,
+ * and metric names are registered once with putIfAbsent. Snapshots read each
+ * cell independently, so a snapshot taken while events are in flight may be
+ * off by the events recorded during the read.
+ */
+public final class CheckoutMetrics {
+  // Counters
+  public static final String EVENTS_EMITTED_PREFIX = "events.emitted.";
+  public static final String PRESENT_COUNT = "present.count";
+  public static final String PRESENT_RETRY_COUNT = "present.retry.count";
+  public static final String PRELOAD_COUNT = "preload.count";
+  public static final String PRELOAD_DELAYED_COUNT = "preload.delayed.count";
+  public static final String PRELOAD_SKIPPED_COUNT = "preload.skipped.count";
+  public static final String THEME_SWITCH_COUNT = "theme.switch.count";
+  public static final String LOGS_SUPPRESSED_COUNT = "logs.suppressed.count";
+  public static final String SERIALIZATION_FAILURE_COUNT = "serialization.failure.count";
+  public static final String ERRORS_SUPPRESSED_COUNT = "errors.suppressed.count";
+  public static final String CUSTOM_DATA_STRIPPED_COUNT = "pixel.customdata.stripped.count";
+  public static final String CUSTOM_DATA_TRUNCATED_COUNT = "pixel.customdata.truncated.count";
+  public static final String CUSTOM_DATA_DROPPED_COUNT = "pixel.customdata.dropped.count";
+  public static final String CUSTOM_DATA_BYTES_SAVED = "pixel.customdata.bytes.saved";
+  public static final String FLOW_CONTROL_BUFFERED_COUNT = "flowcontrol.buffered.count";
+  public static final String FLOW_CONTROL_DROPPED_COUNT = "flowcontrol.dropped.count";
+  public static final String PIXELS_NOT_FORWARDED_COUNT = "pixel.notforwarded.count";
+  public static final String PIXELS_SAMPLED_OUT_COUNT = "pixel.sampledout.count";
+  public static final String PIXEL_SINK_EVENTS_COUNT = "pixelsink.events.count";
+  public static final String PIXEL_SINK_BATCHES_SENT_COUNT = "pixelsink.batches.sent.count";
+  public static final String PIXEL_SINK_BATCHES_SPILLED_COUNT = "pixelsink.batches.spilled.count";
+  public static final String PIXEL_SINK_BATCHES_DROPPED_COUNT = "pixelsink.batches.dropped.count";
+  public static final String PIXEL_SINK_RETRY_COUNT = "pixelsink.retry.count";
+  public static final String JOURNAL_APPENDED_COUNT = "journal.appended.count";
+  public static final String JOURNAL_ACKED_COUNT = "journal.acked.count";
+  public static final String JOURNAL_REDELIVERED_COUNT = "journal.redelivered.count";
+  public static final String JOURNAL_DROPPED_COUNT = "journal.dropped.count";
+  public static final String JOURNAL_SYNC_COUNT = "journal.sync.count";
+
+  // Gauges
+  public static final String GEOLOCATION_QUEUE_DEPTH = "geolocation.queue.depth";
+  public static final String FLOW_CONTROL_CREDITS = "flowcontrol.credits";
+  public static final String FLOW_CONTROL_BUFFER_DEPTH = "flowcontrol.buffer.depth";
+  public static final String FLOW_CONTROL_BUFFER_SATURATION = "flowcontrol.buffer.saturation.percent";
+  public static final String PIXEL_SINK_SPILL_BYTES = "pixelsink.spill.bytes";
+  public static final String JOURNAL_PENDING = "journal.pending";
+
+  // Histograms
+  public static final String SERIALIZATION_MICROS = "serialization.micros";
+  public static final String PAYLOAD_BYTES = "payload.bytes";
+  public static final String BRIDGE_EMIT_MICROS = "bridge.emit.micros";
+
+  private static final long[] LATENCY_MICROS_BOUNDS = { 10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 50_000 };
+  private static final long[] SIZE_BYTES_BOUNDS = { 256, 1_024, 4_096, 16_384, 65_536, 262_144, 1_048_576 };
+
+  private static final CheckoutMetrics INSTANCE = new CheckoutMetrics();
+
+  private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  // Keyed by bare event name so the emit path does not build a counter name per event
+  private final ConcurrentHashMap<String, AtomicLong> eventsEmitted = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+  private final AtomicLong since = new AtomicLong(System.currentTimeMillis());
+
+  private CheckoutMetrics() {
+    histograms.put(SERIALIZATION_MICROS, new Histogram(LATENCY_MICROS_BOUNDS));
+    histograms.put(BRIDGE_EMIT_MICROS, new Histogram(LATENCY_MICROS_BOUNDS));
+    histograms.put(PAYLOAD_BYTES, new Histogram(SIZE_BYTES_BOUNDS));
+  }
+
+  public static CheckoutMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  public void increment(String name) {
+    add(name, 1);
+  }
+
+  public void add(String name, long delta) {
+    getOrCreate(counters, name).addAndGet(delta);
+  }
+
+  /**
+   * Counts an event sent to JavaScript. Reported as
+   * {@link #EVENTS_EMITTED_PREFIX} followed by the event name.
+   */
+  public void incrementEventsEmitted(String eventName) {
+    getOrCreate(eventsEmitted, eventName).incrementAndGet();
+  }
+
+  public void setGauge(String name, long value) {
+    getOrCreate(gauges, name).set(value);
+  }
+
+  /**
+   * Records a value in one of the predefined histograms. Unknown names are
+   * ignored so that callers cannot grow the registry unboundedly.
+   */
+  public void record(String histogram, long value) {
+    Histogram target = histograms.get(histogram);
+    if (target != null) {
+      target.record(value);
+    }
+  }
+
+  public void recordElapsedMicros(String histogram, long startNanos) {
+    record(histogram, (System.nanoTime() - startNanos) / 1_000);
+  }
+
+  public long getCounter(String name) {
+    AtomicLong counter = name.startsWith(EVENTS_EMITTED_PREFIX)
+        ? eventsEmitted.get(name.substring(EVENTS_EMITTED_PREFIX.length()))
+        : counters.get(name);
+    return counter == null ? 0 : counter.get();
+  }
+
+  /**
+   * Returns the current values. When reset is true, counters and histograms
+   * are zeroed as they are read; gauges always report their latest value.
+   */
+  public WritableMap snapshot(boolean reset) {
+    WritableMap result = Arguments.createMap();
+    long now = System.currentTimeMillis();
+    result.putDouble("since", reset ? since.getAndSet(now) : since.get());
+    result.putDouble("timestamp", now);
+
+    WritableMap counterValues = Arguments.createMap();
+    for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+      long value = reset ? entry.getValue().getAndSet(0) : entry.getValue().get();
+      counterValues.putDouble(entry.getKey(), value);
+    }
+    for (Map.Entry<String, AtomicLong> entry : eventsEmitted.entrySet()) {
+      long value = reset ? entry.getValue().getAndSet(0) : entry.getValue().get();
+      counterValues.putDouble(EVENTS_EMITTED_PREFIX + entry.getKey(), value);
+    }
+    result.putMap("counters", counterValues);
+
+    WritableMap gaugeValues = Arguments.createMap();
+    for (Map.Entry<String, AtomicLong> entry : gauges.entrySet()) {
+      gaugeValues.putDouble(entry.getKey(), entry.getValue().get());
+    }
+    result.putMap("gauges", gaugeValues);
+
+    WritableMap histogramValues = Arguments.createMap();
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      histogramValues.putMap(entry.getKey(), entry.getValue().snapshot(reset));
+    }
+    result.putMap("histograms", histogramValues);
+
+    return result;
+  }
+
+  // Private
+
+  private static AtomicLong getOrCreate(ConcurrentHashMap<String, AtomicLong> values, String name) {
+    AtomicLong value = values.get(name);
+    if (value == null) {
+      AtomicLong created = new AtomicLong();
+      value = values.putIfAbsent(name, created);
+      if (value == null) {
+        value = created;
+      }
+    }
+    return value;
+  }
+
+  private static final class Histogram {
+    private final long[] bounds;
+    // One bucket per bound plus an overflow bucket.
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(long[] bounds) {
+      this.bounds = bounds;
+      this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    void record(long value) {
+      int index = bounds.length;
+      for (int i = 0; i < bounds.length; i++) {
+        if (value <= bounds[i]) {
+          index = i;
+          break;
+        }
+      }
+
+      buckets.incrementAndGet(index);
+      count.incrementAndGet();
+      sum.addAndGet(value);
+
+      long currentMax;
+      do {
+        currentMax = max.get();
+      } while (value > currentMax && !max.compareAndSet(currentMax, value));
+    }
+
+    WritableMap snapshot(boolean reset) {
+      WritableMap result = Arguments.createMap();
+      result.putDouble("count", reset ? count.getAndSet(0) : count.get());
+      result.putDouble("sum", reset ? sum.getAndSet(0) : sum.get());
+      result.putDouble("max", reset ? max.getAndSet(0) : max.get());
+
+      WritableArray bucketValues = Arguments.createArray();
+      for (int i = 0; i < buckets.length(); i++) {
+        WritableMap bucket = Arguments.createMap();
+        if (i < bounds.length) {
+          bucket.putDouble("le", bounds[i]);
+        } else {
+          bucket.putNull("le");
+        }
+        bucket.putDouble("count", reset ? buckets.getAndSet(i, 0) : buckets.get(i));
+        bucketValues.pushMap(bucket);
+      }
+      result.putArray("buckets", bucketValues);
+
+      return result;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Decides whether a recoverable checkout failure should be retried natively,
+ * and how long to wait before doing so.
+ *
+ * Failures are matched on their bridge type name (see
+ * CustomCheckoutEventProcessor#getErrorTypeName) and, for HTTP errors, their
+ * status code. Delays grow exponentially from initialDelayMs, are capped at
+ * maxDelayMs and are spread by a jitter factor so that many clients recovering
+ * from the same outage do not retry in lockstep.
+ */
+public class CheckoutRetryPolicy {
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_INITIAL_DELAY_MS = 250;
+  public static final long DEFAULT_MAX_DELAY_MS = 4_000;
+  public static final double DEFAULT_MULTIPLIER = 2.0;
+  public static final double DEFAULT_JITTER = 0.5;
+
+  private static final Set<String> DEFAULT_ERROR_TYPES = Collections.singleton("CheckoutHTTPError");
+  private static final Set<Integer> DEFAULT_STATUS_CODES = new HashSet<>(Arrays.asList(408, 429, 500, 502, 503, 504));
+
+  private final int maxAttempts;
+  private final long initialDelayMs;
+  private final long maxDelayMs;
+  private final double multiplier;
+  private final double jitter;
+  private final Set<String> errorTypes;
+  private final Set<Integer> statusCodes;
+  private final Random random;
+
+  public CheckoutRetryPolicy(int maxAttempts, long initialDelayMs, long maxDelayMs, double multiplier,
+      double jitter, Set<String> errorTypes, Set<Integer> statusCodes, Random random) {
+    this.maxAttempts = Math.max(0, maxAttempts);
+    this.initialDelayMs = Math.max(0, initialDelayMs);
+    this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+    this.multiplier = Math.max(1.0, multiplier);
+    this.jitter = Math.min(1.0, Math.max(0.0, jitter));
+    this.errorTypes = errorTypes;
+    this.statusCodes = statusCodes;
+    this.random = random;
+  }
+
+  /**
+   * Builds a policy from the "errorRetry" section of the Android configuration.
+   * Returns null when retries are not configured or explicitly disabled.
+   */
+  @Nullable
+  public static CheckoutRetryPolicy fromConfig(@Nullable ReadableMap config) {
+    if (config == null) {
+      return null;
+    }
+
+    if (config.hasKey("enabled") && !config.getBoolean("enabled")) {
+      return null;
+    }
+
+    Set<String> errorTypes = DEFAULT_ERROR_TYPES;
+    if (config.hasKey("errorTypes") && config.getArray("errorTypes") != null) {
+      ReadableArray array = config.getArray("errorTypes");
+      errorTypes = new HashSet<>();
+      for (int i = 0; i < array.size(); i++) {
+        errorTypes.add(array.getString(i));
+      }
+    }
+
+    Set<Integer> statusCodes = DEFAULT_STATUS_CODES;
+    if (config.hasKey("statusCodes") && config.getArray("statusCodes") != null) {
+      ReadableArray array = config.getArray("statusCodes");
+      statusCodes = new HashSet<>();
+      for (int i = 0; i < array.size(); i++) {
+        statusCodes.add((int) array.getDouble(i));
+      }
+    }
+
+    return new CheckoutRetryPolicy(
+        config.hasKey("maxAttempts") ? config.getInt("maxAttempts") : DEFAULT_MAX_ATTEMPTS,
+        config.hasKey("initialDelayMs") ? (long) config.getDouble("initialDelayMs") : DEFAULT_INITIAL_DELAY_MS,
+        config.hasKey("maxDelayMs") ? (long) config.getDouble("maxDelayMs") : DEFAULT_MAX_DELAY_MS,
+        config.hasKey("multiplier") ? config.getDouble("multiplier") : DEFAULT_MULTIPLIER,
+        config.hasKey("jitter") ? config.getDouble("jitter") : DEFAULT_JITTER,
+        errorTypes,
+        statusCodes,
+        new Random());
+  }
+
+  /**
+   * @param errorTypeName   - The bridge type name of the failure, e.g.
+   *                        "CheckoutHTTPError"
+   * @param statusCode      - The HTTP status code, or null for non-HTTP failures
+   * @param recoverable     - CheckoutException#isRecoverable
+   * @param attemptsSoFar   - How many retries have already been made for this
+   *                        checkout
+   */
+  public boolean shouldRetry(String errorTypeName, @Nullable Integer statusCode, boolean recoverable,
+      int attemptsSoFar) {
+    if (!recoverable || attemptsSoFar >= maxAttempts || !errorTypes.contains(errorTypeName)) {
+      return false;
+    }
+
+    // Status codes only narrow HTTP failures; other error types match on name alone.
+    return statusCode == null || statusCodes.contains(statusCode);
+  }
+
+  /**
+   * Returns the delay before the given retry (0-based), including jitter.
+   */
+  public long getDelayMs(int attempt) {
+    double exponential = initialDelayMs * Math.pow(multiplier, attempt);
+    long capped = (long) Math.min(maxDelayMs, exponential);
+    long jitterRange = (long) (capped * jitter);
+
+    if (jitterRange == 0) {
+      return capped;
+    }
+
+    // Keep (1 - jitter) of the delay and randomise the rest.
+    synchronized (random) {
+      return capped - jitterRange + (long) (random.nextDouble() * jitterRange);
+    }
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+}
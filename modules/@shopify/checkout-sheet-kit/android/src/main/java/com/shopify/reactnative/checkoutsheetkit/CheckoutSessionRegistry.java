@@ -0,0 +1,115 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks the event processors of checkouts that have been presented and have
+ * not ended yet, keyed by session id.
+ *
+ * A processor stays registered until its session ends (the checkout is
+ * closed, dismissed or fails without recovery), so late events from an
+ * earlier checkout are still emitted under that checkout's session id rather
+ * than being attributed to the one presented after it. The most recently
+ * presented session is the active one. Sessions that never end, e.g. because
+ * the host activity was destroyed, are ended oldest-first once more than
+ * {@link #MAX_SESSIONS} are registered. The session that ended last is kept
+ * around separately so its final state can still be inspected.
+ */
+final class CheckoutSessionRegistry {
+  static final int MAX_SESSIONS = 8;
+
+  private final ConcurrentHashMap<String, CustomCheckoutEventProcessor> sessions = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<String> presentationOrder = new ConcurrentLinkedQueue<>();
+  private final AtomicReference<CustomCheckoutEventProcessor> active = new AtomicReference<>();
+  private final AtomicReference<CustomCheckoutEventProcessor> lastEnded = new AtomicReference<>();
+
+  /**
+   * Registers the processor and makes it the active session. The processor is
+   * removed again when its session ends.
+   */
+  void register(CustomCheckoutEventProcessor processor) {
+    String sessionId = processor.getSessionId();
+    processor.setSessionListener(this::remove);
+    sessions.put(sessionId, processor);
+    presentationOrder.add(sessionId);
+    active.set(processor);
+
+    while (sessions.size() > MAX_SESSIONS) {
+      String oldest = presentationOrder.poll();
+      if (oldest == null) {
+        break;
+      }
+      CustomCheckoutEventProcessor evicted = sessions.get(oldest);
+      if (evicted != null) {
+        evicted.endSession();
+      }
+    }
+  }
+
+  @Nullable
+  CustomCheckoutEventProcessor get(String sessionId) {
+    return sessions.get(sessionId);
+  }
+
+  @Nullable
+  CustomCheckoutEventProcessor getActive() {
+    return active.get();
+  }
+
+  /**
+   * The session that ended most recently, if any. It is no longer returned
+   * from {@link #get} or {@link #getActive}.
+   */
+  @Nullable
+  CustomCheckoutEventProcessor getLastEnded() {
+    return lastEnded.get();
+  }
+
+  Collection<CustomCheckoutEventProcessor> getAll() {
+    return new ArrayList<>(sessions.values());
+  }
+
+  int size() {
+    return sessions.size();
+  }
+
+  // Private
+
+  private void remove(CustomCheckoutEventProcessor processor) {
+    String sessionId = processor.getSessionId();
+    sessions.remove(sessionId, processor);
+    presentationOrder.remove(sessionId);
+    active.compareAndSet(processor, null);
+    lastEnded.set(processor);
+  }
+}
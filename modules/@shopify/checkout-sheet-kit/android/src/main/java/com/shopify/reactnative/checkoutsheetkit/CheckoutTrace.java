@@ -0,0 +1,104 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Perfetto/systrace instrumentation for the module's hot paths.
+ *
+ * Tracing is off by default and enabled with the `android.tracing` config
+ * flag. Every method returns after a single volatile read when disabled, so
+ * callers do not need to guard them. The flag is read once, when a section is
+ * opened: begin methods return whether they opened one, and the caller passes
+ * that on to the matching end, so toggling tracing mid-section neither leaves
+ * a section open nor ends one that was never begun. Synchronous sections must
+ * be closed on the thread that opened them; use try/finally.
+ */
+public final class CheckoutTrace {
+  public static final String PRESENT = "ShopifyCheckout.present";
+  public static final String PRELOAD = "ShopifyCheckout.preload";
+  public static final String SET_CONFIG_COLORS = "ShopifyCheckout.setConfig.colors";
+  public static final String SERIALIZE = "ShopifyCheckout.serialize";
+  public static final String EMIT = "ShopifyCheckout.emit";
+  public static final String SESSION = "ShopifyCheckout.session";
+
+  private static volatile boolean enabled = false;
+
+  private CheckoutTrace() {}
+
+  public static void setEnabled(boolean value) {
+    enabled = value;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Opens a section when tracing is enabled. Returns whether it did; pass the
+   * result to {@link #endSection(boolean)}.
+   */
+  public static boolean beginSection(String name) {
+    if (!enabled) {
+      return false;
+    }
+    Trace.beginSection(name);
+    return true;
+  }
+
+  public static void endSection(boolean begun) {
+    if (begun) {
+      Trace.endSection();
+    }
+  }
+
+  /**
+   * Opens an async slice that may be closed on another thread, such as the
+   * lifetime of a presented checkout, keyed on the session's id. Returns
+   * whether it did; pass the result to
+   * {@link #endAsyncSection(String, String, boolean)}. No-op below API 29.
+   */
+  public static boolean beginAsyncSection(String name, String sessionId) {
+    if (!enabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+      return false;
+    }
+    Trace.beginAsyncSection(name, cookie(sessionId));
+    return true;
+  }
+
+  public static void endAsyncSection(String name, String sessionId, boolean begun) {
+    if (begun) {
+      Trace.endAsyncSection(name, cookie(sessionId));
+    }
+  }
+
+  // Private
+
+  // Only has to tell apart slices of the same name that overlap
+  private static int cookie(String sessionId) {
+    return sessionId.hashCode();
+  }
+}
@@ -0,0 +1,412 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of "completed" event envelopes that JS has not
+ * acknowledged yet, so that an order confirmation survives the JS context
+ * reloading or the process dying before a listener handled it.
+ *
+ * Each envelope is written to the journal before it is emitted, as a
+ * `+<journalId>\t<envelope>` line; an acknowledgement appends a
+ * `-<journalId>` line. The pending entries are kept in memory and updated
+ * right away, while the file is written on the executor in the order the
+ * changes were made. fsync is deferred by a short window so that writes close
+ * together share one sync.
+ * The file is truncated once nothing is pending and rewritten with only the
+ * pending entries when it is opened or grows past a few kilobytes.
+ *
+ * The file is read on the executor too, so creating a journal does not block
+ * the caller. Entries appended before it is read are kept after the ones
+ * read back; use afterOpen to see the restored entries.
+ *
+ * A line cut short by a crash has no trailing newline and is ignored when the
+ * journal is read back.
+ */
+public class CompletedEventJournal {
+  public static final int DEFAULT_MAX_ENTRIES = 20;
+
+  static final String FILE_NAME = "completed-events.journal";
+  static final long SYNC_DELAY_MS = 50;
+  static final long COMPACT_THRESHOLD_BYTES = 16 * 1024;
+  private static final char APPEND = '+';
+  private static final char ACK = '-';
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final File file;
+  private final int maxEntries;
+  private final ScheduledExecutorService executor;
+  private final CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+  // Ids start with the time the journal was opened so they stay unique across restarts
+  private final String idPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+
+  // Guarded by this
+  private final LinkedHashMap<String, String> pending = new LinkedHashMap<>();
+  private long nextId;
+
+  // Only used on the executor
+  @Nullable
+  private FileOutputStream out;
+  private long fileBytes;
+  private boolean syncScheduled;
+
+  public CompletedEventJournal(File file, int maxEntries, ScheduledExecutorService executor) {
+    this.file = file;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.executor = executor;
+
+    synchronized (this) {
+      enqueue(this::open);
+    }
+  }
+
+  /**
+   * Builds a journal from the "completedEventJournal" section of the Android
+   * configuration. Returns null when the journal is not configured or
+   * disabled.
+   *
+   * @param dir - Directory that holds the journal file
+   */
+  @Nullable
+  public static CompletedEventJournal fromConfig(@Nullable ReadableMap config, File dir) {
+    if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled"))) {
+      return null;
+    }
+
+    int maxEntries = config.hasKey("maxEntries") ? config.getInt("maxEntries") : DEFAULT_MAX_ENTRIES;
+    return new CompletedEventJournal(new File(dir, FILE_NAME), maxEntries, BackgroundScheduler.get());
+  }
+
+  /**
+   * Returns a new id for an entry, unique across journals opened at
+   * different times.
+   */
+  public synchronized String nextId() {
+    return idPrefix + (nextId++);
+  }
+
+  /**
+   * Writes an envelope to the journal. Once more than maxEntries envelopes
+   * are pending the oldest one is dropped.
+   */
+  public void append(String journalId, String envelope) {
+    append(journalId, envelope, null);
+  }
+
+  /**
+   * Writes an envelope to the journal like {@link #append(String, String)},
+   * then runs onWritten on the executor once the line is in the file, or
+   * failed to be written.
+   */
+  public synchronized void append(String journalId, String envelope, @Nullable Runnable onWritten) {
+    pending.put(journalId, envelope);
+    metrics.increment(CheckoutMetrics.JOURNAL_APPENDED_COUNT);
+
+    String droppedId = null;
+    if (pending.size() > maxEntries) {
+      Iterator<String> oldest = pending.keySet().iterator();
+      droppedId = oldest.next();
+      oldest.remove();
+      metrics.increment(CheckoutMetrics.JOURNAL_DROPPED_COUNT);
+    }
+    metrics.setGauge(CheckoutMetrics.JOURNAL_PENDING, pending.size());
+
+    final String record = APPEND + journalId + "\t" + envelope + "\n"
+        + (droppedId != null ? ACK + droppedId + "\n" : "");
+    enqueue(() -> {
+      try {
+        write(record);
+      } finally {
+        if (onWritten != null) {
+          onWritten.run();
+        }
+      }
+    });
+  }
+
+  /**
+   * Removes an entry once JS confirmed that a listener received it. Returns
+   * false when the entry was not pending, e.g. because it was acknowledged
+   * already.
+   */
+  public synchronized boolean ack(String journalId) {
+    if (pending.remove(journalId) == null) {
+      return false;
+    }
+    metrics.increment(CheckoutMetrics.JOURNAL_ACKED_COUNT);
+    metrics.setGauge(CheckoutMetrics.JOURNAL_PENDING, pending.size());
+
+    final Map<String, String> remaining = new LinkedHashMap<>(pending);
+    enqueue(() -> {
+      try {
+        if (remaining.isEmpty() || fileBytes > COMPACT_THRESHOLD_BYTES) {
+          rewrite(remaining);
+          return;
+        }
+      } catch (IOException e) {
+        CheckoutLog.e("journal.compact", "Error compacting completed event journal", e);
+      }
+      write(ACK + journalId + "\n");
+    });
+    return true;
+  }
+
+  /**
+   * Runs task on the executor once the entries in the file have been read
+   * back, e.g. to redeliver them.
+   */
+  public synchronized void afterOpen(Runnable task) {
+    enqueue(task);
+  }
+
+  /**
+   * Returns the pending envelopes, oldest first.
+   */
+  public synchronized List<String> getPending() {
+    return new ArrayList<>(pending.values());
+  }
+
+  /**
+   * Returns the pending envelopes to emit again, oldest first, each marked
+   * with `"redelivered":true` so that JS can tell them apart from events of
+   * the current session's stream.
+   */
+  public synchronized List<String> redeliver() {
+    metrics.add(CheckoutMetrics.JOURNAL_REDELIVERED_COUNT, pending.size());
+    List<String> envelopes = new ArrayList<>(pending.size());
+    for (String envelope : pending.values()) {
+      envelopes.add(JsonEventWriter.markRedelivered(envelope));
+    }
+    return envelopes;
+  }
+
+  /**
+   * Syncs and closes the file once the writes queued before it are done.
+   * Used when the journal is replaced by one with other settings; appends
+   * after closing are not written.
+   */
+  public synchronized void close() {
+    enqueue(() -> {
+      if (out != null) {
+        try {
+          out.getFD().sync();
+        } catch (IOException e) {
+          CheckoutLog.w("journal.sync", "Could not sync completed event journal", e);
+        }
+      }
+      closeStream();
+    });
+  }
+
+  // Private
+
+  /**
+   * Runs a file operation on the executor. Called with the lock held, so the
+   * operations run in the order the in-memory entries changed.
+   */
+  private void enqueue(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // The executor is shut down; write on this thread rather than dropping the change.
+      task.run();
+    }
+  }
+
+  /**
+   * Reads the file back and rewrites it with only the pending entries.
+   */
+  private void open() {
+    LinkedHashMap<String, String> restored = new LinkedHashMap<>();
+    try {
+      readPending(restored);
+    } catch (IOException e) {
+      CheckoutLog.e("journal.open", "Error opening completed event journal", e);
+    }
+
+    Map<String, String> entries;
+    synchronized (this) {
+      // Entries appended while the file was read are newer than the ones in it
+      restored.putAll(pending);
+      pending.clear();
+      pending.putAll(restored);
+      while (pending.size() > maxEntries) {
+        Iterator<String> oldest = pending.keySet().iterator();
+        oldest.next();
+        oldest.remove();
+        metrics.increment(CheckoutMetrics.JOURNAL_DROPPED_COUNT);
+      }
+      metrics.setGauge(CheckoutMetrics.JOURNAL_PENDING, pending.size());
+      entries = new LinkedHashMap<>(pending);
+    }
+
+    try {
+      rewrite(entries);
+    } catch (IOException e) {
+      CheckoutLog.e("journal.open", "Error opening completed event journal", e);
+    }
+  }
+
+  private void readPending(Map<String, String> entries) throws IOException {
+    if (!file.exists()) {
+      return;
+    }
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+      StringBuilder line = new StringBuilder();
+      int c;
+      while ((c = reader.read()) != -1) {
+        if (c != '\n') {
+          line.append((char) c);
+          continue;
+        }
+        replay(entries, line);
+        line.setLength(0);
+      }
+      // Whatever is left has no newline, so its write did not complete
+    }
+  }
+
+  private static void replay(Map<String, String> entries, CharSequence line) {
+    if (line.length() < 2) {
+      return;
+    }
+    String record = line.toString();
+    if (record.charAt(0) == APPEND) {
+      int tab = record.indexOf('\t');
+      if (tab > 1) {
+        entries.put(record.substring(1, tab), record.substring(tab + 1));
+      }
+    } else if (record.charAt(0) == ACK) {
+      entries.remove(record.substring(1));
+    }
+  }
+
+  /**
+   * Replaces the file with one holding only the pending entries. The new
+   * contents are synced to a temporary file and renamed over the journal, so
+   * a crash leaves either the old or the new journal.
+   */
+  private void rewrite(Map<String, String> entries) throws IOException {
+    closeStream();
+    File dir = file.getParentFile();
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Could not create " + dir);
+    }
+
+    long bytes = 0;
+    if (entries.isEmpty()) {
+      out = new FileOutputStream(file, false);
+    } else {
+      File temp = new File(file.getPath() + ".tmp");
+      try (FileOutputStream tempOut = new FileOutputStream(temp, false)) {
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+          bytes += writeTo(tempOut, APPEND + entry.getKey() + "\t" + entry.getValue() + "\n");
+        }
+        tempOut.getFD().sync();
+      }
+      if (!temp.renameTo(file)) {
+        throw new IOException("Could not replace " + file);
+      }
+      out = new FileOutputStream(file, true);
+    }
+    fileBytes = bytes;
+  }
+
+  private void write(String record) {
+    if (out == null) {
+      return;
+    }
+    try {
+      fileBytes += writeTo(out, record);
+    } catch (IOException e) {
+      CheckoutLog.e("journal.write", "Error writing completed event journal", e);
+      return;
+    }
+
+    if (!syncScheduled) {
+      syncScheduled = true;
+      try {
+        executor.schedule(this::sync, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        sync();
+      }
+    }
+  }
+
+  private void sync() {
+    syncScheduled = false;
+    if (out == null) {
+      return;
+    }
+
+    try {
+      out.getFD().sync();
+      metrics.increment(CheckoutMetrics.JOURNAL_SYNC_COUNT);
+    } catch (IOException e) {
+      CheckoutLog.w("journal.sync", "Could not sync completed event journal", e);
+    }
+  }
+
+  private void closeStream() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      CheckoutLog.w("journal.close", "Error closing completed event journal", e);
+    }
+    out = null;
+  }
+
+  private static int writeTo(OutputStream stream, String record) throws IOException {
+    byte[] bytes = record.getBytes(UTF_8);
+    stream.write(bytes);
+    return bytes.length;
+  }
+}
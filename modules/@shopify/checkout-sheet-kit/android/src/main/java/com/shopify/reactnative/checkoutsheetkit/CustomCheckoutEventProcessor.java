@@ -24,44 +24,349 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SO
 package com.shopify.reactnative.checkoutsheetkit;
 
 import android.content.Context;
-import android.util.Log;
 import android.webkit.GeolocationPermissions;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.shopify.checkoutsheetkit.*;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
-import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
 import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
 import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CustomCheckoutEventProcessor extends DefaultCheckoutEventProcessor {
-  private final ReactApplicationContext reactContext;
-  private final ObjectMapper mapper = new ObjectMapper();
+  /**
+   * Presents the checkout again after a failure that is being retried natively.
+   */
+  public interface RetryHandler {
+    void retry();
+  }
+
+  /**
+   * Notified once when this processor's checkout session ends, so that its
+   * owner can release it.
+   */
+  public interface SessionListener {
+    void onSessionEnded(CustomCheckoutEventProcessor processor);
+  }
+
+  // Shared so serializers are resolved once per process, not once per checkout
+  private static final ObjectMapper mapper = new ObjectMapper();
+  private final CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+  private final CheckoutEventEmitter eventEmitter;
 
   // Geolocation-specific variables
 
-  private String geolocationOrigin;
-  private GeolocationPermissions.Callback geolocationCallback;
+  private final GeolocationRequestQueue geolocationRequests;
+  // Requests this session's WebView asked for; the queue is shared by every session
+  private final Set<String> geolocationRequestIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  // Retry-specific variables
+
+  private CheckoutRetryPolicy retryPolicy;
+  private ScheduledExecutorService retryScheduler;
+  private RetryHandler retryHandler;
+  private ScheduledFuture<?> pendingRetry;
+  // Incremented when a pending retry is cancelled; guarded by this
+  private int retryGeneration = 0;
+  private int retryAttempts = 0;
+
+  private volatile CheckoutErrorAggregator errorAggregator;
+
+  private volatile CustomDataPolicy customDataPolicy;
+
+  private volatile PixelSamplingPolicy pixelSampling;
+
+  private volatile CheckoutFlowControl flowControl;
+
+  // Funnel-specific variables
+
+  private volatile CheckoutFunnel.Options funnelOptions;
+  private volatile CheckoutFunnel funnel;
+
+  private volatile PixelEventSink pixelSink;
+
+  private volatile CompletedEventJournal completedEventJournal;
+
+  // Session-specific variables
+
+  // Random rather than counted, so a journaled event redelivered after a
+  // restart never carries the id of a live session
+  private final String sessionId = UUID.randomUUID().toString();
+  // Where this session falls for pixel sampling; see PixelSamplingPolicy
+  private final double samplingPosition = PixelSamplingPolicy.position(sessionId);
+  private final AtomicBoolean sessionTraceOpen = new AtomicBoolean(false);
+  private final AtomicBoolean sessionEnded = new AtomicBoolean(false);
+  private volatile SessionListener sessionListener;
+
+  // Event stream variables
+
+  private final Object emitLock = new Object();
+  private volatile long lastSequence = 0;
+  private volatile long lastEmittedAt = 0;
+  // Guarded by emitLock. Events waiting for a journal write ahead of them,
+  // so that they still reach the bridge in sequence order.
+  private final ArrayDeque<PendingSend> pendingSends = new ArrayDeque<>();
 
   public CustomCheckoutEventProcessor(Context context, ReactApplicationContext reactContext) {
+    this(context, reactContext, new GeolocationRequestQueue());
+  }
+
+  public CustomCheckoutEventProcessor(Context context, ReactApplicationContext reactContext,
+      GeolocationRequestQueue geolocationRequests) {
+    this(context, new DeviceEventEmitter(reactContext), geolocationRequests);
+  }
+
+  public CustomCheckoutEventProcessor(Context context, CheckoutEventEmitter eventEmitter,
+      GeolocationRequestQueue geolocationRequests) {
     super(context);
-    this.reactContext = reactContext;
+    this.eventEmitter = eventEmitter;
+    this.geolocationRequests = geolocationRequests;
+  }
+
+  /**
+   * Resolves the serializers that are still built by reflection ahead of the
+   * first event. Runs on a background thread when the module is created.
+   */
+  static void prewarmSerializers() {
+    CheckoutEventSerializers.prewarm(mapper);
   }
 
   // Public methods
 
+  /**
+   * Resolves pending geolocation requests.
+   *
+   * @param allow     - Whether the app granted geolocation permissions
+   * @param requestId - The request to resolve, as emitted in the
+   *                  "geolocationRequest" event
+   * @param origin    - When no requestId is given, resolve every pending request
+   *                  for this origin. When both are null, resolve all pending
+   *                  requests.
+   */
+  public void invokeGeolocationCallback(boolean allow, @Nullable String requestId, @Nullable String origin) {
+    if (requestId != null) {
+      geolocationRequests.resolve(requestId, allow);
+    } else {
+      geolocationRequests.resolveAll(origin, allow);
+    }
+  }
+
   public void invokeGeolocationCallback(boolean allow) {
-    if (geolocationCallback != null) {
-      boolean retainGeolocationForFutureRequests = false;
-      geolocationCallback.invoke(geolocationOrigin, allow, retainGeolocationForFutureRequests);
-      geolocationCallback = null;
+    invokeGeolocationCallback(allow, null, null);
+  }
+
+  /**
+   * Enables native retries for recoverable failures. Failures matched by the
+   * policy are not emitted to the app; instead the handler is invoked after the
+   * policy's backoff delay. Only the final failure is emitted, together with the
+   * number of retries that were made.
+   */
+  public synchronized void setRetryPolicy(@Nullable CheckoutRetryPolicy policy, ScheduledExecutorService scheduler,
+      RetryHandler handler) {
+    this.retryPolicy = policy;
+    this.retryScheduler = scheduler;
+    this.retryHandler = handler;
+  }
+
+  /**
+   * Identifies this checkout session. It is returned from `present`, tagged
+   * onto every event this processor emits and used in trace output.
+   */
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  public void setSessionListener(@Nullable SessionListener listener) {
+    this.sessionListener = listener;
+  }
+
+  /**
+   * Ends this checkout session: cancels a pending retry, closes the session
+   * trace and notifies the session listener. Safe to call more than once; the
+   * listener is only notified the first time.
+   */
+  public void endSession() {
+    // Mark the session ended before cancelling, so that a failure arriving
+    // concurrently cannot schedule a new retry once the pending one is gone.
+    boolean ending = sessionEnded.compareAndSet(false, true);
+    cancelPendingRetry();
+    endSessionTrace();
+
+    if (ending) {
+      emitFunnelSummary();
+
+      PixelEventSink sink = pixelSink;
+      if (sink != null) {
+        sink.flush();
+      }
+
+      SessionListener listener = sessionListener;
+      if (listener != null) {
+        listener.onSessionEnded(this);
+      }
+    }
+  }
+
+  public boolean isSessionEnded() {
+    return sessionEnded.get();
+  }
+
+  /**
+   * The sequence number of the last event emitted in this session. Sequence
+   * numbers start at 1 and increase by one per emitted event, so JS can detect
+   * events it missed, e.g. across a reload. 0 when nothing was emitted yet.
+   */
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Epoch milliseconds at which the last event was emitted, 0 when nothing was
+   * emitted yet.
+   */
+  public long getLastEmittedAt() {
+    return lastEmittedAt;
+  }
+
+  /**
+   * Opens the async trace slice covering this session's presentation. It is
+   * closed when the checkout is closed or fails without recovery.
+   */
+  public void beginSessionTrace() {
+    if (sessionTraceOpen.compareAndSet(false, true)
+        && !CheckoutTrace.beginAsyncSection(CheckoutTrace.SESSION, sessionId)) {
+      // Tracing is off; a later call may still open the slice
+      sessionTraceOpen.set(false);
+    }
+  }
+
+  public void endSessionTrace() {
+    if (sessionTraceOpen.compareAndSet(true, false)) {
+      CheckoutTrace.endAsyncSection(CheckoutTrace.SESSION, sessionId, true);
+    }
+  }
+
+  /**
+   * Cancels a retry that is waiting for its backoff delay, e.g. because the
+   * checkout was dismissed or replaced.
+   */
+  public synchronized void cancelPendingRetry() {
+    retryGeneration++;
+    if (pendingRetry != null) {
+      pendingRetry.cancel(false);
+      pendingRetry = null;
+    }
+  }
+
+  public synchronized int getRetryAttempts() {
+    return retryAttempts;
+  }
+
+  /**
+   * Routes final failures through the aggregator so that repeats of the same
+   * failure are counted instead of emitted. Suppressed failures skip
+   * serialization entirely.
+   */
+  public void setErrorAggregator(@Nullable CheckoutErrorAggregator aggregator) {
+    this.errorAggregator = aggregator;
+  }
+
+  /**
+   * Limits the customData of custom pixel events before they are serialized.
+   */
+  public void setCustomDataPolicy(@Nullable CustomDataPolicy policy) {
+    this.customDataPolicy = policy;
+  }
+
+  /**
+   * Drops pixel events that are not sampled for this session before they are
+   * serialized or offered to the pixel sink. The funnel still sees every event.
+   */
+  public void setPixelSampling(@Nullable PixelSamplingPolicy policy) {
+    this.pixelSampling = policy;
+  }
+
+  /**
+   * Holds pixel events back while JS has not granted credits for them.
+   */
+  public void setFlowControl(@Nullable CheckoutFlowControl flowControl) {
+    this.flowControl = flowControl;
+  }
+
+  /**
+   * Aggregates standard pixel events into a checkout funnel, emitted as a
+   * "funnel" event when the session ends. The funnel starts when aggregation
+   * is first enabled for this session and is discarded when it is disabled.
+   */
+  public synchronized void setFunnelOptions(@Nullable CheckoutFunnel.Options options) {
+    this.funnelOptions = options;
+    if (options == null) {
+      funnel = null;
+    } else if (funnel == null) {
+      funnel = new CheckoutFunnel(System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Sends pixel events to an analytics endpoint natively. Unless the sink is
+   * configured to forward them, pixel events are no longer emitted to JS.
+   */
+  public void setPixelSink(@Nullable PixelEventSink sink) {
+    this.pixelSink = sink;
+  }
+
+  /**
+   * Writes "completed" events to a journal before they are emitted, until JS
+   * acknowledges them.
+   */
+  public void setCompletedEventJournal(@Nullable CompletedEventJournal journal) {
+    this.completedEventJournal = journal;
+  }
+
+  /**
+   * Returns the funnel recorded so far as JSON, or null when funnel
+   * aggregation is off.
+   */
+  @Nullable
+  public String getFunnelSummary() throws IOException {
+    CheckoutFunnel current = funnel;
+    if (current == null) {
+      return null;
+    }
+
+    boolean isFinal = isSessionEnded();
+    long now = System.currentTimeMillis();
+    return JsonEventWriter.write(mapper, generator -> current.write(generator, isFinal, now));
+  }
+
+  /**
+   * Emits an aggregated "errorSummary" event produced by the
+   * CheckoutErrorAggregator.
+   */
+  public void emitErrorSummary(Map<String, Object> summary) {
+    try {
+      emitEvent("errorSummary", generator -> mapper.writeValue(generator, summary));
+    } catch (IOException e) {
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.errorSummary", "Error emitting \"errorSummary\" event", e);
     }
   }
 
@@ -71,10 +376,11 @@ public class CustomCheckoutEventProcessor extends DefaultCheckoutEventProcessor
    * This method is called when the checkout sheet webpage requests geolocation
    * permissions.
    *
-   * Since the app needs to request permissions first before granting, we store
-   * the callback and origin in memory and emit a "geolocationRequest" event to
-   * the app. The app will then request the necessary geolocation permissions
-   * and invoke the native callback with the result.
+   * Since the app needs to request permissions first before granting, we queue
+   * the callback and origin under a request id and emit a "geolocationRequest"
+   * event to the app. The app will then request the necessary geolocation
+   * permissions and invoke the native callback with the result. Requests that
+   * are not answered in time are denied.
    *
    * @param origin   - The origin of the request
    * @param callback - The callback to invoke when the app requests permissions
@@ -83,18 +389,27 @@ public class CustomCheckoutEventProcessor extends DefaultCheckoutEventProcessor
   public void onGeolocationPermissionsShowPrompt(@NonNull String origin,
       @NonNull GeolocationPermissions.Callback callback) {
 
-    // Store the callback and origin in memory. The kit will wait for the app to
-    // request permissions first before granting.
-    this.geolocationCallback = callback;
-    this.geolocationOrigin = origin;
+    // Queue the callback and origin. The kit will wait for the app to request
+    // permissions first before granting.
+    // Ids are forgotten once resolved or timed out; the lock keeps a request
+    // settled right away from being added back after its removal
+    String requestId;
+    synchronized (geolocationRequestIds) {
+      requestId = geolocationRequests.enqueue(origin, callback, this::forgetGeolocationRequest);
+      geolocationRequestIds.add(requestId);
+    }
 
     // Emit a "geolocationRequest" event to the app.
     try {
-      Map<String, Object> event = new HashMap<>();
-      event.put("origin", origin);
-      sendEventWithStringData("geolocationRequest", mapper.writeValueAsString(event));
+      emitEvent("geolocationRequest", generator -> {
+        generator.writeStartObject();
+        generator.writeStringField("origin", origin);
+        generator.writeStringField("requestId", requestId);
+        generator.writeEndObject();
+      });
     } catch (IOException e) {
-      Log.e("ShopifyCheckoutSheetKit", "Error emitting \"geolocationRequest\" event", e);
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.geolocationRequest", "Error emitting \"geolocationRequest\" event", e);
     }
   }
 
@@ -102,60 +417,220 @@ public class CustomCheckoutEventProcessor extends DefaultCheckoutEventProcessor
   public void onGeolocationPermissionsHidePrompt() {
     super.onGeolocationPermissionsHidePrompt();
 
-    // Reset the geolocation callback and origin when the prompt is hidden.
-    this.geolocationCallback = null;
-    this.geolocationOrigin = null;
+    // Drop this session's pending geolocation requests when the prompt is
+    // hidden; the queue forgets their ids as it drops them.
+    geolocationRequests.clear(new ArrayList<>(geolocationRequestIds));
   }
 
   @Override
   public void onWebPixelEvent(@NonNull PixelEvent event) {
+    boolean forwardToJs = true;
+
+    CheckoutFunnel currentFunnel = funnel;
+    if (currentFunnel != null) {
+      currentFunnel.record(event, System.currentTimeMillis());
+      CheckoutFunnel.Options options = funnelOptions;
+      forwardToJs = options == null || options.forwardPixelEvents;
+    }
+
+    PixelSamplingPolicy sampling = pixelSampling;
+    double sampleRate = 1.0;
+    if (sampling != null) {
+      sampleRate = sampling.rateFor(event.getName());
+      if (!PixelSamplingPolicy.keeps(samplingPosition, sampleRate)) {
+        metrics.increment(CheckoutMetrics.PIXELS_SAMPLED_OUT_COUNT);
+        return;
+      }
+    }
+
+    // Limit customData once, for both the sink and JS
+    PreparedPixelEvent prepared = new PreparedPixelEvent(event, limitCustomData(event), sampleRate);
+
+    PixelEventSink sink = pixelSink;
+    if (sink != null) {
+      offerToSink(sink, prepared);
+      forwardToJs &= sink.forwardsPixelEvents();
+    }
+
+    if (!forwardToJs) {
+      metrics.increment(CheckoutMetrics.PIXELS_NOT_FORWARDED_COUNT);
+      return;
+    }
+
+    CheckoutFlowControl control = flowControl;
+    if (control != null) {
+      control.submit(this, prepared);
+    } else {
+      emitPixelEvent(prepared);
+    }
+  }
+
+  /**
+   * Serializes and emits a pixel event, bypassing flow control. Called by
+   * CheckoutFlowControl once the event has a credit.
+   */
+  void emitPixelEvent(PreparedPixelEvent prepared) {
+    PixelEvent event = prepared.event;
     try {
-      String data = mapper.writeValueAsString(event);
-      sendEventWithStringData("pixel", data);
+      emitEvent("pixel", generator -> CheckoutEventSerializers.writePixelEvent(generator, mapper, event,
+          prepared.customData, prepared.sampleRate));
     } catch (IOException e) {
-      Log.e("ShopifyCheckoutSheetKit", "Error processing pixel event", e);
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.pixel", "Error processing pixel event", e);
     }
   }
 
   @Override
   public void onCheckoutFailed(CheckoutException checkoutError) {
+    if (scheduleRetry(checkoutError)) {
+      return;
+    }
+
+    CheckoutErrorAggregator aggregator = errorAggregator;
+    if (aggregator != null && !aggregator.record(getErrorTypeName(checkoutError), checkoutError.getErrorCode(),
+        getStatusCode(checkoutError), checkoutError.getErrorDescription())) {
+      metrics.increment(CheckoutMetrics.ERRORS_SUPPRESSED_COUNT);
+      return;
+    }
+
+    if (!checkoutError.isRecoverable()) {
+      endSession();
+    }
+
     try {
-      String data = mapper.writeValueAsString(populateErrorDetails(checkoutError));
-      sendEventWithStringData("error", data);
+      emitEvent("error", generator -> writeErrorDetails(generator, checkoutError));
     } catch (IOException e) {
-      Log.e("ShopifyCheckoutSheetKit", "Error processing checkout failed event", e);
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.error", "Error processing checkout failed event", e);
     }
   }
 
   @Override
   public void onCheckoutCanceled() {
-    sendEvent("close", null);
+    endSession();
+
+    try {
+      emitEvent("close", JsonGenerator::writeNull);
+    } catch (IOException e) {
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.close", "Error emitting \"close\" event", e);
+    }
   }
 
   @Override
   public void onCheckoutCompleted(@NonNull CheckoutCompletedEvent event) {
     try {
-      String data = mapper.writeValueAsString(event);
-      sendEventWithStringData("completed", data);
+      emitEvent("completed", completedEventJournal,
+          generator -> CheckoutEventSerializers.writeCompletedEvent(generator, event));
     } catch (IOException e) {
-      Log.e("ShopifyCheckoutSheetKit", "Error processing completed event", e);
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.completed", "Error processing completed event", e);
     }
   }
 
   // Private
 
-  private Map<String, Object> populateErrorDetails(CheckoutException checkoutError) {
-    Map<String, Object> errorMap = new HashMap();
-    errorMap.put("__typename", getErrorTypeName(checkoutError));
-    errorMap.put("message", checkoutError.getErrorDescription());
-    errorMap.put("recoverable", checkoutError.isRecoverable());
-    errorMap.put("code", checkoutError.getErrorCode());
+  @Nullable
+  private CustomDataPolicy.Result limitCustomData(PixelEvent event) {
+    CustomDataPolicy policy = customDataPolicy;
+    if (policy == null || !(event instanceof CustomPixelEvent)) {
+      return null;
+    }
+    return policy.apply(((CustomPixelEvent) event).getCustomData());
+  }
+
+  private void forgetGeolocationRequest(String requestId) {
+    synchronized (geolocationRequestIds) {
+      geolocationRequestIds.remove(requestId);
+    }
+  }
+
+  private void offerToSink(PixelEventSink sink, PreparedPixelEvent prepared) {
+    long receivedAt = System.currentTimeMillis();
+    try {
+      sink.offer(JsonEventWriter.write(mapper, generator -> {
+        generator.writeStartObject();
+        generator.writeStringField("sessionId", sessionId);
+        generator.writeNumberField("receivedAt", receivedAt);
+        generator.writeFieldName("event");
+        CheckoutEventSerializers.writePixelEvent(generator, mapper, prepared.event, prepared.customData,
+            prepared.sampleRate);
+        generator.writeEndObject();
+      }));
+    } catch (IOException e) {
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("pixelSink.serialize", "Error serializing pixel event for the pixel sink", e);
+    }
+  }
+
+  private void emitFunnelSummary() {
+    CheckoutFunnel current = funnel;
+    if (current == null) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    try {
+      emitEvent("funnel", generator -> current.write(generator, true, now));
+    } catch (IOException e) {
+      metrics.increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit.funnel", "Error emitting \"funnel\" event", e);
+    }
+  }
+
+  private synchronized boolean scheduleRetry(CheckoutException checkoutError) {
+    if (retryPolicy == null || retryHandler == null || sessionEnded.get()) {
+      return false;
+    }
+
+    if (!retryPolicy.shouldRetry(getErrorTypeName(checkoutError), getStatusCode(checkoutError),
+        checkoutError.isRecoverable(),
+        retryAttempts)) {
+      return false;
+    }
+
+    long delayMs = retryPolicy.getDelayMs(retryAttempts);
+    retryAttempts++;
+
+    RetryHandler handler = retryHandler;
+    int generation = retryGeneration;
+    // The handler runs under the lock, so once cancelPendingRetry() returns no
+    // retry is running or about to run.
+    Runnable retry = () -> {
+      synchronized (this) {
+        if (generation != retryGeneration || sessionEnded.get()) {
+          return;
+        }
+        pendingRetry = null;
+        handler.retry();
+      }
+    };
+    pendingRetry = retryScheduler.schedule(retry, delayMs, TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  @VisibleForTesting
+  void writeErrorDetails(JsonGenerator generator, CheckoutException checkoutError) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("__typename", getErrorTypeName(checkoutError));
+    generator.writeStringField("message", checkoutError.getErrorDescription());
+    generator.writeBooleanField("recoverable", checkoutError.isRecoverable());
+    generator.writeStringField("code", checkoutError.getErrorCode());
 
     if (checkoutError instanceof HttpException) {
-      errorMap.put("statusCode", ((HttpException) checkoutError).getStatusCode());
+      generator.writeNumberField("statusCode", ((HttpException) checkoutError).getStatusCode());
+    }
+
+    if (retryPolicy != null) {
+      generator.writeNumberField("retryAttempts", getRetryAttempts());
     }
 
-    return errorMap;
+    generator.writeEndObject();
+  }
+
+  @Nullable
+  private Integer getStatusCode(CheckoutException error) {
+    return error instanceof HttpException ? ((HttpException) error).getStatusCode() : null;
   }
 
   private String getErrorTypeName(CheckoutException error) {
@@ -174,15 +649,149 @@ public class CustomCheckoutEventProcessor extends DefaultCheckoutEventProcessor
     }
   }
 
-  private void sendEvent(String eventName, @Nullable WritableNativeMap params) {
-    reactContext
-        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-        .emit(eventName, params);
+  /**
+   * Serializes and emits an event under the next sequence number. Sequence
+   * numbers are assigned and events sent or queued under one lock so that
+   * events reach the bridge in sequence order, and a sequence number is only
+   * used up once its event was serialized.
+   */
+  private void emitEvent(String name, JsonEventWriter.Body body) throws IOException {
+    emitEvent(name, null, body);
+  }
+
+  /**
+   * Emits an event like {@link #emitEvent(String, JsonEventWriter.Body)},
+   * first appending its envelope to the journal when one is given. The
+   * journal writes on its own executor; the event, and any emitted after it,
+   * wait in pendingSends until the write is done.
+   */
+  private void emitEvent(String name, @Nullable CompletedEventJournal journal, JsonEventWriter.Body body)
+      throws IOException {
+    synchronized (emitLock) {
+      long sequence = lastSequence + 1;
+      long emittedAt = System.currentTimeMillis();
+      String journalId = journal != null ? journal.nextId() : null;
+      String data = serialize(sequence, emittedAt, journalId, body);
+      if (journal == null && pendingSends.isEmpty()) {
+        sendEventWithStringData(name, data);
+        lastEmittedAt = emittedAt;
+        lastSequence = sequence;
+        return;
+      }
+
+      // Queued events keep their sequence number even if sending fails later
+      lastEmittedAt = emittedAt;
+      lastSequence = sequence;
+      final PendingSend send = new PendingSend(name, data);
+      pendingSends.add(send);
+      if (journal == null) {
+        send.ready = true;
+        return;
+      }
+      journal.append(journalId, data, () -> {
+        synchronized (emitLock) {
+          send.ready = true;
+          sendPendingEvents();
+        }
+      });
+    }
+  }
+
+  /**
+   * Sends the queued events whose journal writes are done, stopping at the
+   * first one still being written. Called with emitLock held.
+   */
+  private void sendPendingEvents() {
+    PendingSend send;
+    while ((send = pendingSends.peek()) != null && send.ready) {
+      pendingSends.poll();
+      try {
+        sendEventWithStringData(send.name, send.data);
+      } catch (RuntimeException e) {
+        CheckoutLog.e("emit." + send.name, e, "Error emitting \"%s\" event", send.name);
+      }
+    }
+  }
+
+  private String serialize(long sequence, long emittedAt, @Nullable String journalId, JsonEventWriter.Body body)
+      throws IOException {
+    long start = System.nanoTime();
+    String data;
+    boolean traced = CheckoutTrace.beginSection(CheckoutTrace.SERIALIZE);
+    try {
+      data = JsonEventWriter.writeEnvelope(mapper, sessionId, sequence, emittedAt, journalId, body);
+    } finally {
+      CheckoutTrace.endSection(traced);
+    }
+    metrics.recordElapsedMicros(CheckoutMetrics.SERIALIZATION_MICROS, start);
+    // Payloads are almost entirely ASCII, so the string length is a close
+    // approximation of the UTF-8 size without encoding it.
+    metrics.record(CheckoutMetrics.PAYLOAD_BYTES, data.length());
+    return data;
   }
 
   private void sendEventWithStringData(String name, String data) {
-    reactContext
-        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-        .emit(name, data);
+    long start = System.nanoTime();
+    boolean traced = CheckoutTrace.beginSection(CheckoutTrace.EMIT);
+    try {
+      eventEmitter.emit(name, data);
+    } finally {
+      CheckoutTrace.endSection(traced);
+    }
+    metrics.recordElapsedMicros(CheckoutMetrics.BRIDGE_EMIT_MICROS, start);
+    metrics.incrementEventsEmitted(name);
+  }
+
+  private static final class PendingSend {
+    final String name;
+    final String data;
+    // Guarded by emitLock
+    boolean ready;
+
+    PendingSend(String name, String data) {
+      this.name = name;
+      this.data = data;
+    }
+  }
+
+  /**
+   * A pixel event with its customData limits and sampling rate already
+   * worked out, ready to be written for the sink and for JS.
+   */
+  static final class PreparedPixelEvent {
+    final PixelEvent event;
+    @Nullable
+    final CustomDataPolicy.Result customData;
+    final double sampleRate;
+
+    PreparedPixelEvent(PixelEvent event, @Nullable CustomDataPolicy.Result customData, double sampleRate) {
+      this.event = event;
+      this.customData = customData;
+      this.sampleRate = sampleRate;
+    }
+  }
+
+  /**
+   * Emits through the legacy `DeviceEventManagerModule`. The emitter is looked
+   * up once; the React context it comes from does not change for the lifetime
+   * of a checkout.
+   */
+  static final class DeviceEventEmitter implements CheckoutEventEmitter {
+    private final ReactApplicationContext reactContext;
+    private volatile DeviceEventManagerModule.RCTDeviceEventEmitter emitter;
+
+    DeviceEventEmitter(ReactApplicationContext reactContext) {
+      this.reactContext = reactContext;
+    }
+
+    @Override
+    public void emit(String eventName, String data) {
+      DeviceEventManagerModule.RCTDeviceEventEmitter current = emitter;
+      if (current == null) {
+        current = reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class);
+        emitter = current;
+      }
+      current.emit(eventName, data);
+    }
   }
 }
@@ -0,0 +1,259 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Limits the `customData` of custom pixel events before they are serialized
+ * and sent to JavaScript.
+ *
+ * Configured top-level fields are stripped first. If the remaining payload is
+ * still larger than maxBytes (UTF-8), it is either truncated to that size or
+ * dropped. Either way the emitted event carries a `customDataLimit` marker
+ * with the action taken and the original size, since truncated data is no
+ * longer valid JSON.
+ */
+public class CustomDataPolicy {
+  public enum OversizeAction {
+    TRUNCATE("truncated"),
+    DROP("dropped");
+
+    final String marker;
+
+    OversizeAction(String marker) {
+      this.marker = marker;
+    }
+  }
+
+  public static final int DEFAULT_MAX_BYTES = 16 * 1024;
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final int maxBytes;
+  private final OversizeAction oversizeAction;
+  private final Set<String> stripFields;
+  private final CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+
+  /**
+   * The outcome of applying the policy to a payload that had to change.
+   */
+  public static final class Result {
+    @Nullable
+    public final String customData;
+    /** "truncated" or "dropped", or null when fields were only stripped. */
+    @Nullable
+    public final String limitAction;
+    public final int originalBytes;
+
+    Result(@Nullable String customData, @Nullable String limitAction, int originalBytes) {
+      this.customData = customData;
+      this.limitAction = limitAction;
+      this.originalBytes = originalBytes;
+    }
+  }
+
+  /**
+   * @param maxBytes       - Largest payload emitted as is, in UTF-8 bytes. 0 or
+   *                       less disables the limit.
+   * @param oversizeAction - What to do with payloads over the limit
+   * @param stripFields    - Top-level fields removed from object payloads
+   */
+  public CustomDataPolicy(int maxBytes, OversizeAction oversizeAction, Set<String> stripFields) {
+    this.maxBytes = maxBytes;
+    this.oversizeAction = oversizeAction;
+    this.stripFields = stripFields;
+  }
+
+  /**
+   * Builds a policy from the "customData" section of the Android
+   * configuration. Returns null when it is missing or explicitly disabled.
+   */
+  @Nullable
+  public static CustomDataPolicy fromConfig(@Nullable ReadableMap config) {
+    if (config == null) {
+      return null;
+    }
+
+    if (config.hasKey("enabled") && !config.getBoolean("enabled")) {
+      return null;
+    }
+
+    Set<String> stripFields = Collections.emptySet();
+    if (config.hasKey("stripFields") && config.getArray("stripFields") != null) {
+      ReadableArray array = config.getArray("stripFields");
+      stripFields = new HashSet<>();
+      for (int i = 0; i < array.size(); i++) {
+        stripFields.add(array.getString(i));
+      }
+    }
+
+    OversizeAction oversizeAction = OversizeAction.DROP;
+    if (config.hasKey("oversize") && "truncate".equals(config.getString("oversize"))) {
+      oversizeAction = OversizeAction.TRUNCATE;
+    }
+
+    return new CustomDataPolicy(
+        config.hasKey("maxBytes") ? config.getInt("maxBytes") : DEFAULT_MAX_BYTES,
+        oversizeAction,
+        stripFields);
+  }
+
+  /**
+   * Applies the policy to a customData payload.
+   *
+   * @return the changed payload, or null when the payload is emitted as is
+   */
+  @Nullable
+  public Result apply(@Nullable String customData) {
+    if (customData == null) {
+      return null;
+    }
+
+    String data = customData;
+    boolean stripped = false;
+    if (!stripFields.isEmpty()) {
+      String withoutFields = strip(data);
+      if (withoutFields != null) {
+        data = withoutFields;
+        stripped = true;
+        metrics.increment(CheckoutMetrics.CUSTOM_DATA_STRIPPED_COUNT);
+      }
+    }
+
+    // Payloads that cannot exceed the limit even at 3 bytes per char skip
+    // the byte count.
+    boolean underLimit = maxBytes <= 0 || (long) data.length() * 3 <= maxBytes;
+    int originalBytes = underLimit && !stripped ? 0 : utf8Length(customData);
+    int bytes = stripped ? utf8Length(data) : originalBytes;
+
+    if (!underLimit && bytes > maxBytes) {
+      if (oversizeAction == OversizeAction.TRUNCATE) {
+        String truncated = truncate(data, maxBytes);
+        metrics.increment(CheckoutMetrics.CUSTOM_DATA_TRUNCATED_COUNT);
+        metrics.add(CheckoutMetrics.CUSTOM_DATA_BYTES_SAVED, originalBytes - utf8Length(truncated));
+        return new Result(truncated, oversizeAction.marker, originalBytes);
+      }
+
+      metrics.increment(CheckoutMetrics.CUSTOM_DATA_DROPPED_COUNT);
+      metrics.add(CheckoutMetrics.CUSTOM_DATA_BYTES_SAVED, originalBytes);
+      return new Result(null, oversizeAction.marker, originalBytes);
+    }
+
+    if (stripped) {
+      metrics.add(CheckoutMetrics.CUSTOM_DATA_BYTES_SAVED, originalBytes - bytes);
+      return new Result(data, null, originalBytes);
+    }
+
+    return null;
+  }
+
+  // Private
+
+  /**
+   * Returns the payload without the configured fields, or null when it is not
+   * a JSON object or none of the fields are present.
+   */
+  @Nullable
+  private String strip(String data) {
+    try {
+      JsonNode node = mapper.readTree(data);
+      if (!(node instanceof ObjectNode)) {
+        return null;
+      }
+
+      ObjectNode object = (ObjectNode) node;
+      boolean removed = false;
+      for (String field : stripFields) {
+        removed |= object.remove(field) != null;
+      }
+      return removed ? mapper.writeValueAsString(object) : null;
+    } catch (IOException e) {
+      // Not JSON; leave it to the size limit.
+      return null;
+    }
+  }
+
+  private static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Cuts the value to at most maxBytes of UTF-8 without splitting a
+   * character.
+   */
+  private static String truncate(String value, int maxBytes) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      int charBytes;
+      int charLength = 1;
+      if (c < 0x80) {
+        charBytes = 1;
+      } else if (c < 0x800) {
+        charBytes = 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        charBytes = 4;
+        charLength = 2;
+      } else {
+        charBytes = 3;
+      }
+
+      if (length + charBytes > maxBytes) {
+        return value.substring(0, i);
+      }
+      length += charBytes;
+      i += charLength - 1;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,259 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import android.webkit.GeolocationPermissions;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.UiThreadUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks pending geolocation permission prompts from the checkout WebView.
+ *
+ * Each prompt is stored under its own request id so that a second prompt does
+ * not overwrite the first. Requests are resolved individually, per origin or
+ * all at once, and are automatically denied if the app does not answer within
+ * the timeout. Every callback is invoked at most once, on the main thread like
+ * the WebView's own calls, whichever thread resolved the request.
+ */
+public class GeolocationRequestQueue {
+  public static final long DEFAULT_TIMEOUT_MS = 60_000;
+
+  private final Map<String, PendingRequest> pending = new LinkedHashMap<>();
+  private final AtomicLong nextRequestId = new AtomicLong();
+  private final ScheduledExecutorService scheduler;
+  private final long timeoutMs;
+  private final Executor callbackExecutor;
+
+  public GeolocationRequestQueue() {
+    this(BackgroundScheduler.get(), DEFAULT_TIMEOUT_MS);
+  }
+
+  public GeolocationRequestQueue(ScheduledExecutorService scheduler, long timeoutMs) {
+    this(scheduler, timeoutMs, GeolocationRequestQueue::runOnUiThread);
+  }
+
+  /**
+   * @param callbackExecutor - Invokes the WebView's callbacks; the main thread
+   *                         unless a test runs them directly
+   */
+  public GeolocationRequestQueue(ScheduledExecutorService scheduler, long timeoutMs, Executor callbackExecutor) {
+    this.scheduler = scheduler;
+    this.timeoutMs = timeoutMs;
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  /**
+   * Stores the callback and schedules the auto-deny timeout.
+   *
+   * @return the id the app should use to resolve this request
+   */
+  public String enqueue(@NonNull String origin, @NonNull GeolocationPermissions.Callback callback) {
+    return enqueue(origin, callback, null);
+  }
+
+  /**
+   * @param listener - Told once when the request is resolved, times out or is
+   *                 dropped, on the thread that settled it
+   */
+  public String enqueue(@NonNull String origin, @NonNull GeolocationPermissions.Callback callback,
+      @Nullable SettledListener listener) {
+    String requestId = String.valueOf(nextRequestId.incrementAndGet());
+    PendingRequest request = new PendingRequest(requestId, origin, callback, listener);
+
+    synchronized (this) {
+      pending.put(requestId, request);
+      updateQueueDepth();
+    }
+
+    if (timeoutMs > 0) {
+      Runnable autoDeny = () -> resolve(requestId, false);
+      request.timeout = scheduler.schedule(autoDeny, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    return requestId;
+  }
+
+  /**
+   * Resolves a single request. Returns false if it was already resolved or
+   * timed out.
+   */
+  public boolean resolve(@NonNull String requestId, boolean allow) {
+    PendingRequest request;
+    synchronized (this) {
+      request = pending.remove(requestId);
+      updateQueueDepth();
+    }
+
+    if (request == null) {
+      return false;
+    }
+
+    invoke(request, allow);
+    return true;
+  }
+
+  /**
+   * Resolves every pending request for the given origin, or every pending
+   * request when origin is null.
+   *
+   * @return the number of requests resolved
+   */
+  public int resolveAll(@Nullable String origin, boolean allow) {
+    List<PendingRequest> resolved = new ArrayList<>();
+
+    synchronized (this) {
+      Iterator<PendingRequest> iterator = pending.values().iterator();
+      while (iterator.hasNext()) {
+        PendingRequest request = iterator.next();
+        if (origin == null || origin.equals(request.origin)) {
+          resolved.add(request);
+          iterator.remove();
+        }
+      }
+      updateQueueDepth();
+    }
+
+    for (PendingRequest request : resolved) {
+      invoke(request, allow);
+    }
+
+    return resolved.size();
+  }
+
+  /**
+   * Drops every pending request without invoking its callback.
+   */
+  public void clear() {
+    List<PendingRequest> dropped;
+    synchronized (this) {
+      dropped = new ArrayList<>(pending.values());
+      pending.clear();
+      updateQueueDepth();
+    }
+
+    for (PendingRequest request : dropped) {
+      request.settle();
+    }
+  }
+
+  /**
+   * Drops the given requests without invoking their callbacks. Used when a
+   * session's WebView hides the prompt and its callbacks are no longer valid;
+   * requests from other sessions stay pending.
+   *
+   * @return the number of requests dropped
+   */
+  public int clear(Collection<String> requestIds) {
+    List<PendingRequest> dropped = new ArrayList<>();
+    synchronized (this) {
+      for (String requestId : requestIds) {
+        PendingRequest request = pending.remove(requestId);
+        if (request != null) {
+          dropped.add(request);
+        }
+      }
+      updateQueueDepth();
+    }
+
+    for (PendingRequest request : dropped) {
+      request.settle();
+    }
+    return dropped.size();
+  }
+
+  public synchronized int size() {
+    return pending.size();
+  }
+
+  public interface SettledListener {
+    void onSettled(String requestId);
+  }
+
+  // Private
+
+  private void invoke(PendingRequest request, boolean allow) {
+    request.settle();
+    callbackExecutor.execute(() -> request.invoke(allow));
+  }
+
+  private static void runOnUiThread(Runnable runnable) {
+    if (UiThreadUtil.isOnUiThread()) {
+      runnable.run();
+    } else {
+      UiThreadUtil.runOnUiThread(runnable);
+    }
+  }
+
+  private void updateQueueDepth() {
+    CheckoutMetrics.getInstance().setGauge(CheckoutMetrics.GEOLOCATION_QUEUE_DEPTH, pending.size());
+  }
+
+  private static class PendingRequest {
+    final String requestId;
+    final String origin;
+    final GeolocationPermissions.Callback callback;
+    @Nullable
+    final SettledListener listener;
+    volatile ScheduledFuture<?> timeout;
+
+    PendingRequest(String requestId, String origin, GeolocationPermissions.Callback callback,
+        @Nullable SettledListener listener) {
+      this.requestId = requestId;
+      this.origin = origin;
+      this.callback = callback;
+      this.listener = listener;
+    }
+
+    void invoke(boolean allow) {
+      boolean retainGeolocationForFutureRequests = false;
+      callback.invoke(origin, allow, retainGeolocationForFutureRequests);
+    }
+
+    // Only called by whoever removed this request from pending, so at most once
+    void settle() {
+      ScheduledFuture<?> future = timeout;
+      if (future != null) {
+        future.cancel(false);
+      }
+      if (listener != null) {
+        listener.onSettled(requestId);
+      }
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Serializes event payloads through a generator and buffer that are reused
+ * for every event on the same thread.
+ *
+ * `ObjectMapper.writeValueAsString` creates a new writer, generator and
+ * output buffers on every call. Here those live for as long as the thread,
+ * so the only per-event allocation on the write path is the payload String
+ * handed to the bridge. Buffers that grew past {@link #MAX_RETAINED_CHARS}
+ * for an unusually large payload are dropped instead of being kept alive.
+ *
+ * Events emitted to the app are wrapped in a session envelope,
+ * `{"sessionId":"...","sequence":N,"emittedAt":ms,"payload":...}`, written in
+ * the same pass as the payload. Journaled events also carry a "journalId"
+ * before the payload.
+ */
+final class JsonEventWriter {
+  interface Body {
+    void write(JsonGenerator generator) throws IOException;
+  }
+
+  static final int INITIAL_CAPACITY_CHARS = 2048;
+  static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+  private static final ThreadLocal<JsonEventWriter> writers = new ThreadLocal<>();
+
+  private final ObjectMapper mapper;
+  private final ReusableStringWriter buffer = new ReusableStringWriter();
+  private final JsonGenerator generator;
+  private boolean inUse;
+
+  private JsonEventWriter(ObjectMapper mapper) throws IOException {
+    this.mapper = mapper;
+    generator = mapper.getFactory().createGenerator(buffer);
+    // Each event is a separate root value; no separator between them.
+    generator.setRootValueSeparator(null);
+  }
+
+  /**
+   * Serializes a value with the mapper's configured serializers.
+   */
+  static String write(ObjectMapper mapper, Object value) throws IOException {
+    return write(mapper, null, 0, 0, null, null, value);
+  }
+
+  /**
+   * Writes a payload by hand, for small events that do not need a Map or
+   * bean to be built first.
+   */
+  static String write(ObjectMapper mapper, Body body) throws IOException {
+    return write(mapper, null, 0, 0, null, body, null);
+  }
+
+  /**
+   * Writes a payload by hand as the payload of a session envelope.
+   */
+  static String writeEnvelope(ObjectMapper mapper, String sessionId, long sequence, long emittedAtMs,
+      Body body) throws IOException {
+    return write(mapper, sessionId, sequence, emittedAtMs, null, body, null);
+  }
+
+  /**
+   * Writes a payload by hand as the payload of a session envelope that also
+   * carries the id of its journal entry.
+   */
+  static String writeEnvelope(ObjectMapper mapper, String sessionId, long sequence, long emittedAtMs,
+      @Nullable String journalId, Body body) throws IOException {
+    return write(mapper, sessionId, sequence, emittedAtMs, journalId, body, null);
+  }
+
+  /**
+   * Adds `"redelivered":true` to an envelope written by writeEnvelope, for
+   * events emitted again after their session's stream moved on.
+   */
+  static String markRedelivered(String envelope) {
+    if (envelope.isEmpty() || envelope.charAt(0) != '{') {
+      return envelope;
+    }
+    return "{\"redelivered\":true," + envelope.substring(1);
+  }
+
+  // Private
+
+  private static String write(ObjectMapper mapper, @Nullable String sessionId, long sequence, long emittedAtMs,
+      @Nullable String journalId, @Nullable Body body, @Nullable Object value) throws IOException {
+    JsonEventWriter writer = writers.get();
+    if (writer == null || writer.mapper != mapper) {
+      writer = new JsonEventWriter(mapper);
+      writers.set(writer);
+    }
+
+    if (writer.inUse) {
+      // Re-entrant call on this thread; use a throwaway writer.
+      return new JsonEventWriter(mapper).writeEvent(sessionId, sequence, emittedAtMs, journalId, body, value);
+    }
+
+    writer.inUse = true;
+    try {
+      return writer.writeEvent(sessionId, sequence, emittedAtMs, journalId, body, value);
+    } catch (IOException | RuntimeException e) {
+      // The generator may be left mid-object, start over on the next event.
+      writers.remove();
+      throw e;
+    } finally {
+      writer.inUse = false;
+    }
+  }
+
+  private String writeEvent(@Nullable String sessionId, long sequence, long emittedAtMs, @Nullable String journalId,
+      @Nullable Body body, @Nullable Object value) throws IOException {
+    buffer.reset();
+    if (sessionId != null) {
+      generator.writeStartObject();
+      generator.writeStringField("sessionId", sessionId);
+      generator.writeNumberField("sequence", sequence);
+      generator.writeNumberField("emittedAt", emittedAtMs);
+      if (journalId != null) {
+        generator.writeStringField("journalId", journalId);
+      }
+      generator.writeFieldName("payload");
+    }
+    if (body != null) {
+      body.write(generator);
+    } else {
+      mapper.writeValue(generator, value);
+    }
+    if (sessionId != null) {
+      generator.writeEndObject();
+    }
+    generator.flush();
+    return buffer.toString();
+  }
+
+  private static final class ReusableStringWriter extends Writer {
+    private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY_CHARS);
+
+    void reset() {
+      if (builder.capacity() > MAX_RETAINED_CHARS) {
+        builder = new StringBuilder(INITIAL_CAPACITY_CHARS);
+      } else {
+        builder.setLength(0);
+      }
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+      builder.append(chars, offset, length);
+    }
+
+    @Override
+    public void write(String value, int offset, int length) {
+      builder.append(value, offset, offset + length);
+    }
+
+    @Override
+    public void write(int c) {
+      builder.append((char) c);
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+      return builder.toString();
+    }
+  }
+}
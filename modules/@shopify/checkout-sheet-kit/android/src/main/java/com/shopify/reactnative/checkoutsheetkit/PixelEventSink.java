@@ -0,0 +1,539 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Forwards serialized pixel events to an analytics endpoint in gzipped
+ * batches, without going through JS.
+ *
+ * Events are collected in memory and POSTed as
+ * `{"sentAt":ms,"events":[...]}` once batchSize events are waiting, when the
+ * flush interval elapses or when a checkout session ends. Sending happens on
+ * the sink's own thread so network I/O never blocks the module's other
+ * background work.
+ *
+ * Network failures, 408, 429 and 5xx responses are retried with the backoff
+ * of a CheckoutRetryPolicy. Batches that arrive while a retry is pending, and
+ * batches that run out of attempts, are spilled to disk and sent after the
+ * next successful request or the next time a sink is created. Spilled
+ * batches beyond maxSpillBytes are discarded oldest-first. Other 4xx
+ * responses are not retried.
+ *
+ * A sink that replaces another one on reconfiguration shares its spill
+ * directory, so it waits for the closed sink's thread to finish before it
+ * touches the directory.
+ */
+public class PixelEventSink {
+  public static final int DEFAULT_BATCH_SIZE = 50;
+  public static final long DEFAULT_FLUSH_INTERVAL_MS = 10_000;
+  public static final int DEFAULT_MAX_ATTEMPTS = 4;
+  public static final long DEFAULT_INITIAL_DELAY_MS = 1_000;
+  public static final long DEFAULT_MAX_DELAY_MS = 60_000;
+  public static final long DEFAULT_MAX_SPILL_BYTES = 1024 * 1024;
+
+  static final String SPILL_SUFFIX = ".json.gz";
+  private static final int TIMEOUT_MS = 15_000;
+  // Long enough for the closed sink's last request to connect and complete
+  private static final long HANDOVER_TIMEOUT_MS = 2 * TIMEOUT_MS;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final URL endpoint;
+  private final Map<String, String> headers;
+  private final int batchSize;
+  private final long flushIntervalMs;
+  private final CheckoutRetryPolicy retryPolicy;
+  @Nullable
+  private final File spillDir;
+  private final long maxSpillBytes;
+  private final boolean forwardPixelEvents;
+  private final ScheduledExecutorService executor;
+  private final CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+
+  // Guarded by this
+  private final List<String> pending = new ArrayList<>();
+  private ScheduledFuture<?> flushTimer;
+  private boolean flushQueued;
+  private boolean closed;
+
+  // Only used on the executor thread
+  private byte[] failedBatch;
+  private int failedAttempts;
+  private ScheduledFuture<?> retryTimer;
+  private long spillSequence;
+
+  public PixelEventSink(URL endpoint, Map<String, String> headers, int batchSize, long flushIntervalMs,
+      CheckoutRetryPolicy retryPolicy, @Nullable File spillDir, long maxSpillBytes, boolean forwardPixelEvents,
+      ScheduledExecutorService executor) {
+    this(endpoint, headers, batchSize, flushIntervalMs, retryPolicy, spillDir, maxSpillBytes, forwardPixelEvents,
+        executor, null);
+  }
+
+  /**
+   * @param previous - The sink this one replaces; spilled batches are only
+   *                 read once it has been closed and its thread has finished
+   */
+  PixelEventSink(URL endpoint, Map<String, String> headers, int batchSize, long flushIntervalMs,
+      CheckoutRetryPolicy retryPolicy, @Nullable File spillDir, long maxSpillBytes, boolean forwardPixelEvents,
+      ScheduledExecutorService executor, @Nullable PixelEventSink previous) {
+    this.endpoint = endpoint;
+    this.headers = headers;
+    this.batchSize = Math.max(1, batchSize);
+    this.flushIntervalMs = Math.max(0, flushIntervalMs);
+    this.retryPolicy = retryPolicy;
+    this.spillDir = spillDir;
+    this.maxSpillBytes = maxSpillBytes;
+    this.forwardPixelEvents = forwardPixelEvents;
+    this.executor = executor;
+
+    // Deliver batches spilled by an earlier sink, e.g. before the app restarted
+    executor.execute(() -> {
+      if (previous != null) {
+        previous.awaitClosed(HANDOVER_TIMEOUT_MS);
+      }
+      sendSpilled();
+    });
+  }
+
+  /**
+   * Builds a sink from the "pixelSink" section of the Android configuration.
+   * Returns null when the sink is not configured, disabled or its URL is not
+   * a valid http(s) URL.
+   *
+   * @param spillDir - Directory for batches that could not be sent yet
+   */
+  @Nullable
+  public static PixelEventSink fromConfig(@Nullable ReadableMap config, @Nullable File spillDir) {
+    return fromConfig(config, spillDir, null);
+  }
+
+  /**
+   * @param previous - The sink being replaced, which the caller closes; the
+   *                 new sink waits for it before reading the spill directory
+   */
+  @Nullable
+  public static PixelEventSink fromConfig(@Nullable ReadableMap config, @Nullable File spillDir,
+      @Nullable PixelEventSink previous) {
+    if (config == null || (config.hasKey("enabled") && !config.getBoolean("enabled")) || !config.hasKey("url")) {
+      return null;
+    }
+
+    URL endpoint;
+    try {
+      endpoint = new URL(config.getString("url"));
+    } catch (MalformedURLException e) {
+      CheckoutLog.e("pixelSink.config", "Invalid pixelSink url", e);
+      return null;
+    }
+    if (!"https".equals(endpoint.getProtocol()) && !"http".equals(endpoint.getProtocol())) {
+      CheckoutLog.e("pixelSink.config", null, "Unsupported pixelSink url protocol: %s", endpoint.getProtocol());
+      return null;
+    }
+
+    Map<String, String> headers = new HashMap<>();
+    if (config.hasKey("headers") && config.getMap("headers") != null) {
+      for (Map.Entry<String, Object> header : config.getMap("headers").toHashMap().entrySet()) {
+        headers.put(header.getKey(), String.valueOf(header.getValue()));
+      }
+    }
+
+    CheckoutRetryPolicy retryPolicy = new CheckoutRetryPolicy(
+        config.hasKey("maxAttempts") ? config.getInt("maxAttempts") : DEFAULT_MAX_ATTEMPTS,
+        config.hasKey("initialDelayMs") ? (long) config.getDouble("initialDelayMs") : DEFAULT_INITIAL_DELAY_MS,
+        config.hasKey("maxDelayMs") ? (long) config.getDouble("maxDelayMs") : DEFAULT_MAX_DELAY_MS,
+        CheckoutRetryPolicy.DEFAULT_MULTIPLIER,
+        CheckoutRetryPolicy.DEFAULT_JITTER,
+        Collections.emptySet(),
+        Collections.emptySet(),
+        new Random());
+
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ShopifyCheckoutSheetKit-PixelSink");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    return new PixelEventSink(
+        endpoint,
+        headers,
+        config.hasKey("batchSize") ? config.getInt("batchSize") : DEFAULT_BATCH_SIZE,
+        config.hasKey("flushIntervalMs") ? (long) config.getDouble("flushIntervalMs") : DEFAULT_FLUSH_INTERVAL_MS,
+        retryPolicy,
+        spillDir,
+        config.hasKey("maxSpillBytes") ? (long) config.getDouble("maxSpillBytes") : DEFAULT_MAX_SPILL_BYTES,
+        config.hasKey("forwardPixelEvents") && config.getBoolean("forwardPixelEvents"),
+        executor,
+        previous);
+  }
+
+  /**
+   * Whether pixel events should still be emitted to JS as well.
+   */
+  public boolean forwardsPixelEvents() {
+    return forwardPixelEvents;
+  }
+
+  /**
+   * Queues a serialized event for the next batch.
+   */
+  public void offer(String event) {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+
+      pending.add(event);
+      if (pending.size() >= batchSize) {
+        queueFlush();
+      } else if (flushTimer == null && !flushQueued) {
+        flushTimer = executor.schedule(this::flushPending, flushIntervalMs, TimeUnit.MILLISECONDS);
+      }
+    }
+    metrics.increment(CheckoutMetrics.PIXEL_SINK_EVENTS_COUNT);
+  }
+
+  /**
+   * Sends waiting events now instead of at the end of the flush interval.
+   */
+  public synchronized void flush() {
+    if (!closed && !pending.isEmpty()) {
+      queueFlush();
+    }
+  }
+
+  /**
+   * Sends or spills every waiting event and stops the sink's thread. Used
+   * when the sink is reconfigured or turned off.
+   */
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+
+    executor.execute(() -> {
+      flushPending();
+      if (retryTimer != null) {
+        retryTimer.cancel(false);
+        retryTimer = null;
+      }
+      if (failedBatch != null) {
+        spill(failedBatch);
+        failedBatch = null;
+      }
+      executor.shutdown();
+    });
+  }
+
+  /**
+   * Waits for the thread of a closed sink to send or spill its last batches.
+   */
+  void awaitClosed(long timeoutMs) {
+    try {
+      if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+        CheckoutLog.w("pixelSink.handover", "Previous pixel sink did not finish within %dms", timeoutMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Private
+
+  private void queueFlush() {
+    if (flushTimer != null) {
+      flushTimer.cancel(false);
+      flushTimer = null;
+    }
+    if (!flushQueued) {
+      flushQueued = true;
+      executor.execute(this::flushPending);
+    }
+  }
+
+  private void flushPending() {
+    while (true) {
+      List<String> batch;
+      synchronized (this) {
+        flushQueued = false;
+        if (flushTimer != null) {
+          flushTimer.cancel(false);
+          flushTimer = null;
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+        List<String> head = pending.subList(0, Math.min(batchSize, pending.size()));
+        batch = new ArrayList<>(head);
+        head.clear();
+      }
+
+      byte[] body;
+      try {
+        body = encode(batch);
+      } catch (IOException e) {
+        metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+        CheckoutLog.e("pixelSink.encode", "Error encoding pixel batch", e);
+        continue;
+      }
+
+      if (failedBatch != null) {
+        // A retry is waiting for its backoff; keep later batches on disk
+        spill(body);
+      } else if (!send(body)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return false if the batch failed and is waiting for a retry
+   */
+  private boolean send(byte[] body) {
+    int status = post(body);
+    if (isSuccess(status)) {
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_SENT_COUNT);
+      failedAttempts = 0;
+      sendSpilled();
+      return true;
+    }
+
+    if (!isRetryable(status)) {
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+      CheckoutLog.w("pixelSink.rejected", "Pixel batch rejected with status %d", status);
+      return true;
+    }
+
+    failedBatch = body;
+    if (failedAttempts >= retryPolicy.getMaxAttempts()) {
+      spill(body);
+      failedBatch = null;
+      failedAttempts = 0;
+      return true;
+    }
+
+    long delayMs = retryPolicy.getDelayMs(failedAttempts++);
+    metrics.increment(CheckoutMetrics.PIXEL_SINK_RETRY_COUNT);
+    retryTimer = executor.schedule(this::retryFailedBatch, delayMs, TimeUnit.MILLISECONDS);
+    return false;
+  }
+
+  private void retryFailedBatch() {
+    retryTimer = null;
+    byte[] body = failedBatch;
+    if (body == null) {
+      return;
+    }
+
+    failedBatch = null;
+    if (send(body)) {
+      flushPending();
+    }
+  }
+
+  /**
+   * Sends spilled batches oldest-first, stopping at the first one that fails
+   * to be retried later.
+   */
+  private void sendSpilled() {
+    for (File file : spillFiles()) {
+      byte[] body;
+      try {
+        body = readFile(file);
+      } catch (IOException e) {
+        CheckoutLog.e("pixelSink.spill", "Error reading spilled pixel batch", e);
+        file.delete();
+        continue;
+      }
+
+      int status = post(body);
+      if (isSuccess(status)) {
+        metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_SENT_COUNT);
+      } else if (isRetryable(status)) {
+        break;
+      } else {
+        metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+      }
+      file.delete();
+    }
+    updateSpillGauge();
+  }
+
+  private void spill(byte[] body) {
+    if (spillDir == null || (!spillDir.isDirectory() && !spillDir.mkdirs())) {
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+      return;
+    }
+
+    // Names sort in the order the batches were spilled
+    String name = String.format(Locale.ROOT, "%013d-%06d%s", System.currentTimeMillis(), spillSequence++,
+        SPILL_SUFFIX);
+    try (OutputStream out = new FileOutputStream(new File(spillDir, name))) {
+      out.write(body);
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_SPILLED_COUNT);
+    } catch (IOException e) {
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+      CheckoutLog.e("pixelSink.spill", "Error spilling pixel batch", e);
+    }
+
+    List<File> files = spillFiles();
+    long total = 0;
+    for (File file : files) {
+      total += file.length();
+    }
+    for (int i = 0; i < files.size() && total > maxSpillBytes; i++) {
+      total -= files.get(i).length();
+      files.get(i).delete();
+      metrics.increment(CheckoutMetrics.PIXEL_SINK_BATCHES_DROPPED_COUNT);
+    }
+    metrics.setGauge(CheckoutMetrics.PIXEL_SINK_SPILL_BYTES, total);
+  }
+
+  private List<File> spillFiles() {
+    File[] files = spillDir != null ? spillDir.listFiles((dir, name) -> name.endsWith(SPILL_SUFFIX)) : null;
+    if (files == null) {
+      return Collections.emptyList();
+    }
+    Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+    return new ArrayList<>(Arrays.asList(files));
+  }
+
+  private void updateSpillGauge() {
+    long total = 0;
+    for (File file : spillFiles()) {
+      total += file.length();
+    }
+    metrics.setGauge(CheckoutMetrics.PIXEL_SINK_SPILL_BYTES, total);
+  }
+
+  private static byte[] encode(List<String> events) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), UTF_8)) {
+      writer.write("{\"sentAt\":");
+      writer.write(Long.toString(System.currentTimeMillis()));
+      writer.write(",\"events\":[");
+      for (int i = 0; i < events.size(); i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writer.write(events.get(i));
+      }
+      writer.write("]}");
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @return the response status, or -1 if the request failed
+   */
+  private int post(byte[] body) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setConnectTimeout(TIMEOUT_MS);
+      connection.setReadTimeout(TIMEOUT_MS);
+      connection.setFixedLengthStreamingMode(body.length);
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setRequestProperty("Content-Encoding", "gzip");
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        connection.setRequestProperty(header.getKey(), header.getValue());
+      }
+
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+
+      int status = connection.getResponseCode();
+      // Read the response to the end, without disconnecting, so that the
+      // connection can be reused for the next batch.
+      InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+      if (response != null) {
+        try (InputStream in = response) {
+          byte[] discard = new byte[512];
+          while (in.read(discard) != -1) {
+            // Drain
+          }
+        }
+      }
+      return status;
+    } catch (IOException e) {
+      CheckoutLog.w("pixelSink.send", "Error sending pixel batch", e);
+      return -1;
+    }
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+    try (InputStream in = new FileInputStream(file)) {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static boolean isSuccess(int status) {
+    return status >= 200 && status < 300;
+  }
+
+  private static boolean isRetryable(int status) {
+    return status == -1 || status == 408 || status == 429 || status >= 500;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Samples pixel events per checkout session before they are serialized.
+ *
+ * Each event name has a rate between 0 and 1. A session is placed at a fixed
+ * position in [0, 1) by hashing its session id, and an event is kept when
+ * that position is below the rate for its name. The session id is random, so
+ * query parameters on the checkout URL cannot move a session between
+ * buckets. The decision is
+ * therefore the same for every event of a session, and a session kept at a
+ * low rate is kept at every higher rate too, so the events of a sampled
+ * session can still be joined across event names.
+ *
+ * Kept events carry their `sampleRate` so that counts can be reweighted.
+ */
+public class PixelSamplingPolicy {
+  private final Map<String, Double> rates;
+  private final double defaultRate;
+
+  /**
+   * @param rates       - Sampling rate per pixel event name
+   * @param defaultRate - Rate for event names not in rates
+   */
+  public PixelSamplingPolicy(Map<String, Double> rates, double defaultRate) {
+    this.rates = rates;
+    this.defaultRate = clamp(defaultRate);
+  }
+
+  /**
+   * Builds a policy from the "pixelSampling" section of the Android
+   * configuration. Returns null when it is missing or explicitly disabled.
+   */
+  @Nullable
+  public static PixelSamplingPolicy fromConfig(@Nullable ReadableMap config) {
+    if (config == null) {
+      return null;
+    }
+
+    if (config.hasKey("enabled") && !config.getBoolean("enabled")) {
+      return null;
+    }
+
+    Map<String, Double> rates = Collections.emptyMap();
+    if (config.hasKey("rates") && config.getMap("rates") != null) {
+      rates = new HashMap<>();
+      for (Map.Entry<String, Object> rate : config.getMap("rates").toHashMap().entrySet()) {
+        if (rate.getValue() instanceof Number) {
+          rates.put(rate.getKey(), clamp(((Number) rate.getValue()).doubleValue()));
+        }
+      }
+    }
+
+    return new PixelSamplingPolicy(rates, config.hasKey("defaultRate") ? config.getDouble("defaultRate") : 1.0);
+  }
+
+  /**
+   * The sampling rate for pixel events with this name.
+   */
+  public double rateFor(@Nullable String eventName) {
+    Double rate = eventName != null ? rates.get(eventName) : null;
+    return rate != null ? rate : defaultRate;
+  }
+
+  /**
+   * Whether a session at this position keeps events sampled at this rate.
+   */
+  public static boolean keeps(double position, double rate) {
+    return position < rate;
+  }
+
+  /**
+   * Maps a session key to a position in [0, 1), using the 64-bit FNV-1a hash
+   * of its characters so the position is stable across processes and devices.
+   */
+  public static double position(String sessionKey) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < sessionKey.length(); i++) {
+      hash ^= sessionKey.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    // FNV-1a barely changes the high bits for keys that only differ at the
+    // end, e.g. checkout URLs; mix them in with the MurmurHash3 finalizer.
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    // Top 53 bits, the precision of a double
+    return (hash >>> 11) * 0x1.0p-53;
+  }
+
+  // Private
+
+  private static double clamp(double rate) {
+    if (Double.isNaN(rate)) {
+      return 1.0;
+    }
+    return Math.max(0.0, Math.min(1.0, rate));
+  }
+}
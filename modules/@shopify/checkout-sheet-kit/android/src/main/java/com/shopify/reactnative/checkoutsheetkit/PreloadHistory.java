@@ -0,0 +1,209 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Per-install record of how often `preload` is followed by `present`, and how
+ * long after.
+ *
+ * Only three numbers are kept: the preload requests seen, how many of them
+ * were presented within the conversion window, and a moving average of the
+ * time between the last preload and the present. Counts are halved once they
+ * reach MAX_REQUESTS so that recent behaviour outweighs old behaviour. Every
+ * change is written back to SharedPreferences with apply(), which does not
+ * block the caller.
+ *
+ * The module starts from an empty history and restores the persisted one on
+ * a background thread, so reading the preferences file never blocks the JS
+ * thread. Requests recorded before the restore completes are added to the
+ * persisted counts.
+ *
+ * Preload requests are recorded whether or not they were carried out, so the
+ * history stays accurate while the adaptive policy is skipping preloads.
+ * Repeated preloads before a present, e.g. for each cart change, count as a
+ * single request.
+ */
+public final class PreloadHistory {
+  public static final String PREFERENCES_NAME = "com.shopify.reactnative.checkoutsheetkit.preload";
+  public static final long DEFAULT_CONVERSION_WINDOW_MS = 30 * 60_000;
+
+  static final int MAX_REQUESTS = 200;
+  private static final double GAP_SMOOTHING = 0.25;
+  private static final long NONE = -1;
+  private static final String KEY_REQUESTS = "requests";
+  private static final String KEY_CONVERSIONS = "conversions";
+  private static final String KEY_AVERAGE_GAP_MS = "averageGapMs";
+
+  @Nullable
+  private SharedPreferences preferences;
+  private final long conversionWindowMs;
+
+  private long requests;
+  private long conversions;
+  private long averageGapMs;
+
+  // Time of the latest preload not yet followed by a present, or NONE
+  private long lastPreloadAt = NONE;
+
+  // Set by reset(), so a later restore does not bring back the old counts
+  private boolean cleared;
+
+  public PreloadHistory(long requests, long conversions, long averageGapMs, long conversionWindowMs,
+      @Nullable SharedPreferences preferences) {
+    this.requests = Math.max(0, requests);
+    this.conversions = Math.max(0, Math.min(conversions, this.requests));
+    this.averageGapMs = Math.max(0, averageGapMs);
+    this.conversionWindowMs = conversionWindowMs;
+    this.preferences = preferences;
+  }
+
+  /**
+   * Reads the persisted history. Without preferences, e.g. before the app
+   * context is available, the history is only kept in memory.
+   */
+  public static PreloadHistory load(@Nullable SharedPreferences preferences) {
+    if (preferences == null) {
+      return new PreloadHistory(0, 0, 0, DEFAULT_CONVERSION_WINDOW_MS, null);
+    }
+
+    return new PreloadHistory(
+        preferences.getLong(KEY_REQUESTS, 0),
+        preferences.getLong(KEY_CONVERSIONS, 0),
+        preferences.getLong(KEY_AVERAGE_GAP_MS, 0),
+        DEFAULT_CONVERSION_WINDOW_MS,
+        preferences);
+  }
+
+  /**
+   * Adds the history persisted in preferences to this one, and persists
+   * every later change there. Reads the preferences file, so call it off the
+   * JS and UI threads.
+   */
+  public void restore(@Nullable SharedPreferences preferences) {
+    if (preferences == null) {
+      return;
+    }
+
+    long storedRequests = preferences.getLong(KEY_REQUESTS, 0);
+    long storedConversions = preferences.getLong(KEY_CONVERSIONS, 0);
+    long storedAverageGapMs = preferences.getLong(KEY_AVERAGE_GAP_MS, 0);
+
+    synchronized (this) {
+      if (!cleared) {
+        storedRequests = Math.max(0, storedRequests);
+        storedConversions = Math.max(0, Math.min(storedConversions, storedRequests));
+        long totalConversions = storedConversions + conversions;
+        if (totalConversions > 0) {
+          averageGapMs = Math.round(
+              (Math.max(0, storedAverageGapMs) * (double) storedConversions
+                  + averageGapMs * (double) conversions) / totalConversions);
+        }
+        requests += storedRequests;
+        conversions = totalConversions;
+        while (requests > MAX_REQUESTS) {
+          requests /= 2;
+          conversions /= 2;
+        }
+      }
+      this.preferences = preferences;
+      save();
+    }
+  }
+
+  public synchronized void recordPreload(long nowMs) {
+    if (lastPreloadAt == NONE || nowMs - lastPreloadAt > conversionWindowMs) {
+      requests++;
+      if (requests > MAX_REQUESTS) {
+        requests /= 2;
+        conversions /= 2;
+      }
+      save();
+    }
+    lastPreloadAt = nowMs;
+  }
+
+  /**
+   * @return true if the present followed a preload within the conversion
+   * window
+   */
+  public synchronized boolean recordPresent(long nowMs) {
+    long preloadAt = lastPreloadAt;
+    lastPreloadAt = NONE;
+    if (preloadAt == NONE || nowMs - preloadAt > conversionWindowMs) {
+      return false;
+    }
+
+    long gapMs = Math.max(0, nowMs - preloadAt);
+    averageGapMs = conversions == 0
+        ? gapMs
+        : Math.round(averageGapMs + GAP_SMOOTHING * (gapMs - averageGapMs));
+    conversions = Math.min(conversions + 1, requests);
+    save();
+    return true;
+  }
+
+  public synchronized long getRequests() {
+    return requests;
+  }
+
+  public synchronized long getConversions() {
+    return conversions;
+  }
+
+  public synchronized double getConversionRate() {
+    return requests == 0 ? 0 : (double) conversions / requests;
+  }
+
+  public synchronized long getAverageGapMs() {
+    return averageGapMs;
+  }
+
+  public synchronized void reset() {
+    requests = 0;
+    conversions = 0;
+    averageGapMs = 0;
+    lastPreloadAt = NONE;
+    cleared = true;
+    save();
+  }
+
+  // Private
+
+  private void save() {
+    if (preferences == null) {
+      return;
+    }
+
+    preferences.edit()
+        .putLong(KEY_REQUESTS, requests)
+        .putLong(KEY_CONVERSIONS, conversions)
+        .putLong(KEY_AVERAGE_GAP_MS, averageGapMs)
+        .apply();
+  }
+}
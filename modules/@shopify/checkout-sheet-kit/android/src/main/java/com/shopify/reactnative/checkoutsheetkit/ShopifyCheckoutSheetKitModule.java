@@ -25,8 +25,12 @@ package com.shopify.reactnative.checkoutsheetkit;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Resources;
 import androidx.activity.ComponentActivity;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
@@ -37,24 +41,88 @@ import com.facebook.react.bridge.WritableMap;
 import com.shopify.checkoutsheetkit.NativeShopifyCheckoutSheetKitSpec;
 import com.shopify.checkoutsheetkit.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKitSpec {
 
-  public static Configuration checkoutConfig = new Configuration();
+  public static volatile Configuration checkoutConfig = new Configuration();
 
-  private final ReactApplicationContext reactContext;
+  private static final String PIXEL_SPILL_DIRECTORY = "shopify-checkout-sheet-kit-pixels";
 
+  private static final String JOURNAL_DIRECTORY = "shopify-checkout-sheet-kit";
+
+  // Only read and written on the UI thread
   private CheckoutSheetKitDialog checkoutSheet;
+  private long checkoutSheetPresentation;
+
+  // Incremented by every present and dismiss, so that a presentation still
+  // waiting for the UI thread can tell that it has been superseded
+  private final AtomicLong presentations = new AtomicLong();
+
+  private final CheckoutSessionRegistry sessions = new CheckoutSessionRegistry();
+
+  // Held while configuration is applied or a checkout presented, so that a
+  // combined presentCheckout is not interleaved with other setConfig or
+  // present calls
+  private final Object checkoutLock = new Object();
+
+  // Shared by every session so request ids stay unique across checkouts
+  private final GeolocationRequestQueue geolocationRequests = new GeolocationRequestQueue();
+
+  private final CheckoutEventEmitter legacyEmitter;
+
+  // Written by setConfig, read when a checkout is presented
+  private volatile CheckoutRetryPolicy retryPolicy;
+
+  private volatile CheckoutErrorAggregator errorAggregator;
+
+  private volatile CustomDataPolicy customDataPolicy;
+
+  private volatile PixelSamplingPolicy pixelSampling;
+
+  private volatile CheckoutFlowControl flowControl;
+
+  private volatile CheckoutFunnel.Options funnelOptions;
+
+  private volatile PixelEventSink pixelSink;
+
+  private volatile CompletedEventJournal completedEventJournal;
+
+  private volatile AdaptivePreloadPolicy adaptivePreload;
 
-  private CustomCheckoutEventProcessor checkoutEventProcessor;
+  private volatile boolean followSystemTheme;
+
+  // Written under the module lock
+  private volatile SystemThemeSwitcher themeSwitcher;
+
+  // Restored from preferences on the background scheduler; see PreloadHistory
+  private final PreloadHistory preloadHistory =
+      new PreloadHistory(0, 0, 0, PreloadHistory.DEFAULT_CONVERSION_WINDOW_MS, null);
+
+  private volatile String lastPreloadDecision;
+
+  private final AtomicReference<ScheduledFuture<?>> delayedPreload = new AtomicReference<>();
 
   public ShopifyCheckoutSheetKitModule(ReactApplicationContext reactContext) {
     super(reactContext);
 
-    this.reactContext = reactContext;
+    ApplicationInfo applicationInfo = reactContext.getApplicationInfo();
+    CheckoutLog.getInstance().setDebuggable(
+        applicationInfo != null && (applicationInfo.flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+
+    this.legacyEmitter = new CustomCheckoutEventProcessor.DeviceEventEmitter(reactContext);
+
+    BackgroundScheduler.get().execute(CustomCheckoutEventProcessor::prewarmSerializers);
+    BackgroundScheduler.get().execute(() -> preloadHistory.restore(
+        reactContext.getSharedPreferences(PreloadHistory.PREFERENCES_NAME, Context.MODE_PRIVATE)));
 
     ShopifyCheckoutSheetKit.configure(configuration -> {
       configuration.setPlatform(Platform.REACT_NATIVE);
@@ -79,33 +147,169 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
     // No-op but required for RN to register module
   }
 
+  /**
+   * Presents the checkout. Every event emitted for it carries the id of its
+   * session; use presentCheckout to receive that id up front.
+   */
   @ReactMethod
   public void present(String checkoutURL) {
-    Activity currentActivity = getCurrentActivity();
-    if (currentActivity instanceof ComponentActivity) {
-      checkoutEventProcessor = new CustomCheckoutEventProcessor(currentActivity, this.reactContext);
-      currentActivity.runOnUiThread(() -> {
-        checkoutSheet = ShopifyCheckoutSheetKit.present(checkoutURL, (ComponentActivity) currentActivity,
-            checkoutEventProcessor);
-      });
+    boolean traced = CheckoutTrace.beginSection(CheckoutTrace.PRESENT);
+    try {
+      synchronized (checkoutLock) {
+        presentInternal(checkoutURL, null);
+      }
+    } finally {
+      CheckoutTrace.endSection(traced);
+    }
+  }
+
+  /**
+   * Applies configuration overrides and then presents or preloads a checkout,
+   * in one bridge call instead of separate setConfig, getConfig, preload and
+   * present calls. The configuration is applied on the native modules thread
+   * and the sheet is presented on the UI thread; other setConfig and present
+   * calls wait until both have been scheduled.
+   *
+   * Resolves with the session id, the resulting configuration and the time
+   * each step took, once the sheet has been shown, or right away when only
+   * preloading or when there is no activity to present from.
+   */
+  @ReactMethod
+  public void presentCheckout(ReadableMap request, Promise promise) {
+    long start = System.nanoTime();
+    String checkoutURL = request.hasKey("url") ? request.getString("url") : null;
+    if (checkoutURL == null || checkoutURL.isEmpty()) {
+      promise.reject("invalid_request", "presentCheckout requires a checkout URL");
+      return;
+    }
+    boolean preloadOnly = request.hasKey("preloadOnly") && request.getBoolean("preloadOnly");
+
+    WritableMap timings = Arguments.createMap();
+    WritableMap result = Arguments.createMap();
+    synchronized (checkoutLock) {
+      if (request.hasKey("config") && !request.isNull("config")) {
+        long configureStart = System.nanoTime();
+        setConfig(request.getMap("config"));
+        timings.putDouble("configureMs", elapsedMs(configureStart));
+      }
+      WritableMap config = Arguments.createMap();
+      writeConfig(config);
+      result.putMap("config", config);
+
+      long stepStart = System.nanoTime();
+      if (preloadOnly) {
+        preload(checkoutURL);
+        timings.putDouble("preloadMs", elapsedMs(stepStart));
+        resolvePresentCheckout(promise, result, null, false, timings, start);
+        return;
+      }
+
+      boolean traced = CheckoutTrace.beginSection(CheckoutTrace.PRESENT);
+      try {
+        String sessionId = presentInternal(checkoutURL, (presentedSessionId, presented) -> {
+          timings.putDouble("presentMs", elapsedMs(stepStart));
+          resolvePresentCheckout(promise, result, presentedSessionId, presented, timings, start);
+        });
+        if (sessionId == null) {
+          resolvePresentCheckout(promise, result, null, false, timings, start);
+        }
+      } finally {
+        CheckoutTrace.endSection(traced);
+      }
     }
   }
 
   @ReactMethod
   public void dismiss() {
-    if (checkoutSheet != null) {
-      checkoutSheet.dismiss();
-      checkoutSheet = null;
+    // Cancels a presentation that has not reached the UI thread yet
+    presentations.incrementAndGet();
+
+    CustomCheckoutEventProcessor processor = sessions.getActive();
+    if (processor != null) {
+      processor.endSession();
+    }
+
+    Activity currentActivity = getCurrentActivity();
+    if (currentActivity != null) {
+      currentActivity.runOnUiThread(this::dismissCheckoutSheet);
     }
   }
 
+  /**
+   * Preloads the checkout. With adaptive preloading enabled, the preload may
+   * be delayed or skipped based on how often this install presents checkout
+   * after preloading it.
+   */
   @ReactMethod
   public void preload(String checkoutURL) {
-    Activity currentActivity = getCurrentActivity();
+    PreloadHistory history = preloadHistory;
+    history.recordPreload(System.currentTimeMillis());
 
-    if (currentActivity instanceof ComponentActivity) {
-      ShopifyCheckoutSheetKit.preload(checkoutURL, (ComponentActivity) currentActivity);
+    AdaptivePreloadPolicy policy = adaptivePreload;
+    if (policy == null) {
+      preloadNow(checkoutURL);
+      return;
     }
+
+    String decision = policy.decide(history);
+    lastPreloadDecision = decision;
+    cancelDelayedPreload();
+    switch (decision) {
+      case AdaptivePreloadPolicy.SKIP:
+        CheckoutMetrics.getInstance().increment(CheckoutMetrics.PRELOAD_SKIPPED_COUNT);
+        break;
+      case AdaptivePreloadPolicy.DELAY:
+        CheckoutMetrics.getInstance().increment(CheckoutMetrics.PRELOAD_DELAYED_COUNT);
+        Activity requestActivity = getCurrentActivity();
+        if (!(requestActivity instanceof ComponentActivity)) {
+          break;
+        }
+        ScheduledFuture<?> future = BackgroundScheduler.get().schedule(
+            () -> requestActivity.runOnUiThread(() -> preloadDelayed(checkoutURL, requestActivity)),
+            policy.getDelayMs(history), TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = delayedPreload.getAndSet(future);
+        if (previous != null) {
+          previous.cancel(false);
+        }
+        break;
+      default:
+        preloadNow(checkoutURL);
+    }
+  }
+
+  /**
+   * Reports the preload history of this install and the adaptive preloading
+   * decision it leads to. Until the persisted history has been restored, only
+   * what was recorded since launch is reported.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getPreloadStats() {
+    PreloadHistory history = preloadHistory;
+    AdaptivePreloadPolicy policy = adaptivePreload;
+
+    WritableMap stats = Arguments.createMap();
+    stats.putBoolean("adaptive", policy != null);
+    stats.putDouble("requests", history.getRequests());
+    stats.putDouble("conversions", history.getConversions());
+    stats.putDouble("conversionRate", history.getConversionRate());
+    stats.putDouble("averageGapMs", history.getAverageGapMs());
+    if (policy != null) {
+      stats.putString("decision", policy.decide(history));
+      stats.putDouble("delayMs", policy.getDelayMs(history));
+    }
+    String lastDecision = lastPreloadDecision;
+    if (lastDecision != null) {
+      stats.putString("lastDecision", lastDecision);
+    } else {
+      stats.putNull("lastDecision");
+    }
+    return stats;
+  }
+
+  @ReactMethod
+  public void resetPreloadStats() {
+    preloadHistory.reset();
+    lastPreloadDecision = null;
   }
 
   @ReactMethod
@@ -116,18 +320,26 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
   @ReactMethod(isBlockingSynchronousMethod = true)
   public WritableMap getConfig() {
     WritableMap resultConfig = Arguments.createMap();
-
-    resultConfig.putBoolean("preloading", checkoutConfig.getPreloading().getEnabled());
-    resultConfig.putString("colorScheme", colorSchemeToString(checkoutConfig.getColorScheme()));
-    resultConfig.putString("logLevel", logLevelToString(checkoutConfig.getLogLevel()));
-
+    writeConfig(resultConfig);
     return resultConfig;
   }
 
   @ReactMethod
   public void setConfig(ReadableMap config) {
+    synchronized (checkoutLock) {
+      applyConfig(config);
+    }
+  }
+
+  private void applyConfig(ReadableMap config) {
     Context context = getReactApplicationContext();
 
+    // Apply the tracing flag first so the rest of this call is traced too
+    if (config.hasKey("android")) {
+      applyTracingConfig(config.getMap("android"));
+      applyThemeConfig(config.getMap("android"));
+    }
+
     ShopifyCheckoutSheetKit.configure(configuration -> {
       if (config.hasKey("preloading")) {
         configuration.setPreloading(new Preloading(config.getBoolean("preloading")));
@@ -149,13 +361,25 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
           androidConfig = colorsConfig.getMap("android");
         }
 
-        if (this.isValidColorConfig(androidConfig)) {
-          ColorScheme colorSchemeWithOverrides = getColors(colorScheme, androidConfig);
-          if (colorSchemeWithOverrides != null) {
-            configuration.setColorScheme(colorSchemeWithOverrides);
+        boolean traced = CheckoutTrace.beginSection(CheckoutTrace.SET_CONFIG_COLORS);
+        try {
+          if (colorScheme instanceof ColorScheme.Automatic && followSystemTheme
+              && attachThemeSwitcher(configuration, colorScheme, androidConfig)) {
             checkoutConfig = configuration;
             return;
           }
+          detachThemeSwitcher();
+
+          if (this.isValidColorConfig(androidConfig)) {
+            ColorScheme colorSchemeWithOverrides = getColors(colorScheme, androidConfig);
+            if (colorSchemeWithOverrides != null) {
+              configuration.setColorScheme(colorSchemeWithOverrides);
+              checkoutConfig = configuration;
+              return;
+            }
+          }
+        } finally {
+          CheckoutTrace.endSection(traced);
         }
 
         configuration.setColorScheme(colorScheme);
@@ -163,6 +387,10 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
 
       checkoutConfig = configuration;
     });
+
+    if (config.hasKey("android")) {
+      applyAndroidConfig(config.getMap("android"));
+    }
   }
 
   @ReactMethod(isBlockingSynchronousMethod = true)
@@ -191,15 +419,490 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
     return false;
   }
 
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getMetrics(boolean reset) {
+    return CheckoutMetrics.getInstance().snapshot(reset);
+  }
+
+  /**
+   * Returns the recent native diagnostics held in memory, oldest first.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap dumpNativeLogs(boolean clear) {
+    return CheckoutLog.getInstance().snapshot(clear);
+  }
+
+  /**
+   * Reports the last sequence number and emit time of a session's event
+   * stream, so JS can tell whether it missed events. Defaults to the active
+   * session. Returns null for unknown sessions.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  @Nullable
+  public WritableMap getEventStreamState(@Nullable String sessionId) {
+    CustomCheckoutEventProcessor processor = findSession(sessionId);
+    if (processor == null) {
+      return null;
+    }
+
+    WritableMap state = Arguments.createMap();
+    state.putString("sessionId", processor.getSessionId());
+    state.putDouble("lastSequence", processor.getLastSequence());
+    state.putDouble("lastEmittedAt", processor.getLastEmittedAt());
+    state.putBoolean("ended", processor.isSessionEnded());
+    return state;
+  }
+
+  /**
+   * Returns the checkout funnel recorded so far for a session as JSON, or null
+   * when funnel aggregation is off or the session is unknown. Defaults to the
+   * active session.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  @Nullable
+  public String getFunnelSummary(@Nullable String sessionId) {
+    CustomCheckoutEventProcessor processor = findSession(sessionId);
+    if (processor == null) {
+      return null;
+    }
+
+    try {
+      return processor.getFunnelSummary();
+    } catch (IOException e) {
+      CheckoutMetrics.getInstance().increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("funnel.summary", "Error writing funnel summary", e);
+      return null;
+    }
+  }
+
+  /**
+   * Grants credits for pixel events JS has finished handling, when flow
+   * control is enabled.
+   */
+  @ReactMethod
+  public void ackEvents(double count) {
+    CheckoutFlowControl control = flowControl;
+    if (control != null) {
+      control.ack((int) count);
+    }
+  }
+
+  /**
+   * Removes a "completed" event from the journal once a JS listener has
+   * received it.
+   */
+  @ReactMethod
+  public void ackCompletedEvent(String journalId) {
+    CompletedEventJournal journal = completedEventJournal;
+    if (journal != null) {
+      journal.ack(journalId);
+    }
+  }
+
+  /**
+   * Emits the journaled "completed" events that JS has not acknowledged yet,
+   * oldest first, e.g. after the JS context reloaded or the app restarted
+   * before a listener handled them.
+   */
+  @ReactMethod
+  public void redeliverCompletedEvents() {
+    CompletedEventJournal journal = completedEventJournal;
+    if (journal == null) {
+      return;
+    }
+    // A journal configured just now may still be reading its file
+    journal.afterOpen(() -> {
+      for (String envelope : journal.redeliver()) {
+        emitEvent("completed", envelope);
+      }
+    });
+  }
+
   @ReactMethod
-  public void initiateGeolocationRequest(boolean allow) {
-    if (checkoutEventProcessor != null) {
-      checkoutEventProcessor.invokeGeolocationCallback(allow);
+  public void initiateGeolocationRequest(boolean allow, @Nullable String requestId, @Nullable String origin) {
+    if (requestId != null) {
+      geolocationRequests.resolve(requestId, allow);
+    } else {
+      geolocationRequests.resolveAll(origin, allow);
     }
   }
 
   // Private
 
+  @VisibleForTesting
+  void writeConfig(WritableMap resultConfig) {
+    resultConfig.putBoolean("preloading", checkoutConfig.getPreloading().getEnabled());
+    resultConfig.putString("colorScheme", colorSchemeToString(checkoutConfig.getColorScheme()));
+    resultConfig.putString("logLevel", logLevelToString(checkoutConfig.getLogLevel()));
+  }
+
+  /**
+   * Notified on the UI thread once a presentation was carried out, or skipped
+   * because it was dismissed or replaced first.
+   */
+  interface PresentListener {
+    void onPresentComplete(String sessionId, boolean presented);
+  }
+
+  @Nullable
+  private String presentInternal(String checkoutURL, @Nullable PresentListener listener) {
+    preloadHistory.recordPresent(System.currentTimeMillis());
+    // The checkout is loading now; a preload waiting for its delay is moot
+    cancelDelayedPreload();
+
+    Activity currentActivity = getCurrentActivity();
+    if (currentActivity instanceof ComponentActivity) {
+      ComponentActivity activity = (ComponentActivity) currentActivity;
+      CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(activity, this::emitEvent,
+          geolocationRequests);
+      long presentation = presentations.incrementAndGet();
+
+      CheckoutRetryPolicy policy = retryPolicy;
+      if (policy != null) {
+        processor.setRetryPolicy(policy, BackgroundScheduler.get(), () -> {
+          CheckoutMetrics.getInstance().increment(CheckoutMetrics.PRESENT_RETRY_COUNT);
+          presentCheckoutSheet(checkoutURL, activity, processor, presentation, null);
+        });
+      }
+      processor.setErrorAggregator(errorAggregator);
+      processor.setCustomDataPolicy(customDataPolicy);
+      processor.setPixelSampling(pixelSampling);
+      processor.setFlowControl(flowControl);
+      processor.setFunnelOptions(funnelOptions);
+      processor.setPixelSink(pixelSink);
+      processor.setCompletedEventJournal(completedEventJournal);
+
+      // Earlier sessions stay registered until they end, so their late events
+      // keep their own session id.
+      CustomCheckoutEventProcessor previous = sessions.getActive();
+      if (previous != null) {
+        previous.cancelPendingRetry();
+      }
+      sessions.register(processor);
+      processor.beginSessionTrace();
+      CheckoutMetrics.getInstance().increment(CheckoutMetrics.PRESENT_COUNT);
+      presentCheckoutSheet(checkoutURL, activity, processor, presentation, listener);
+      return processor.getSessionId();
+    }
+
+    return null;
+  }
+
+  private void preloadNow(String checkoutURL) {
+    preloadNow(checkoutURL, getCurrentActivity());
+  }
+
+  /**
+   * Runs a delayed preload on the UI thread, unless the app moved on to
+   * another activity, or is finishing the one it was requested from, while
+   * it was waiting.
+   */
+  private void preloadDelayed(String checkoutURL, Activity requestActivity) {
+    if (getCurrentActivity() != requestActivity || requestActivity.isFinishing()) {
+      return;
+    }
+    preloadNow(checkoutURL, requestActivity);
+  }
+
+  private void preloadNow(String checkoutURL, @Nullable Activity currentActivity) {
+    if (currentActivity instanceof ComponentActivity) {
+      CheckoutMetrics.getInstance().increment(CheckoutMetrics.PRELOAD_COUNT);
+      boolean traced = CheckoutTrace.beginSection(CheckoutTrace.PRELOAD);
+      try {
+        ShopifyCheckoutSheetKit.preload(checkoutURL, (ComponentActivity) currentActivity);
+      } finally {
+        CheckoutTrace.endSection(traced);
+      }
+    }
+  }
+
+  private void cancelDelayedPreload() {
+    ScheduledFuture<?> future = delayedPreload.getAndSet(null);
+    if (future != null) {
+      future.cancel(false);
+    }
+  }
+
+  private void presentCheckoutSheet(String checkoutURL, ComponentActivity activity,
+      CustomCheckoutEventProcessor processor, long presentation, @Nullable PresentListener listener) {
+    activity.runOnUiThread(() -> {
+      if (presentations.get() != presentation || processor.isSessionEnded()) {
+        // Dismissed or replaced by a later present before it could be shown
+        processor.endSession();
+        if (listener != null) {
+          listener.onPresentComplete(processor.getSessionId(), false);
+        }
+        return;
+      }
+
+      if (checkoutSheet != null && checkoutSheetPresentation != presentation) {
+        checkoutSheet.dismiss();
+      }
+      checkoutSheet = ShopifyCheckoutSheetKit.present(checkoutURL, activity, processor);
+      checkoutSheetPresentation = presentation;
+      if (listener != null) {
+        listener.onPresentComplete(processor.getSessionId(), true);
+      }
+    });
+  }
+
+  private static void resolvePresentCheckout(Promise promise, WritableMap result, @Nullable String sessionId,
+      boolean presented, WritableMap timings, long startNanos) {
+    if (sessionId != null) {
+      result.putString("sessionId", sessionId);
+    } else {
+      result.putNull("sessionId");
+    }
+    result.putBoolean("presented", presented);
+    timings.putDouble("totalMs", elapsedMs(startNanos));
+    result.putMap("timings", timings);
+    promise.resolve(result);
+  }
+
+  private static double elapsedMs(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1e6;
+  }
+
+  private void dismissCheckoutSheet() {
+    if (checkoutSheet != null) {
+      checkoutSheet.dismiss();
+      checkoutSheet = null;
+    }
+  }
+
+  /**
+   * Applies Android-only native options. Each section is only updated when it
+   * is present, so apps can change one option without resending the others.
+   */
+  private synchronized void applyAndroidConfig(ReadableMap androidConfig) {
+    if (androidConfig == null) {
+      return;
+    }
+
+    if (androidConfig.hasKey("nativeLogs")) {
+      CheckoutLog.getInstance().configure(androidConfig.getMap("nativeLogs"));
+    }
+
+    if (androidConfig.hasKey("errorRetry")) {
+      retryPolicy = CheckoutRetryPolicy.fromConfig(androidConfig.getMap("errorRetry"));
+    }
+
+    if (androidConfig.hasKey("errorAggregation")) {
+      if (errorAggregator != null) {
+        errorAggregator.flushAll();
+      }
+      errorAggregator = CheckoutErrorAggregator.fromConfig(androidConfig.getMap("errorAggregation"),
+          BackgroundScheduler.get(), this::emitErrorSummary);
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setErrorAggregator(errorAggregator);
+      }
+    }
+
+    if (androidConfig.hasKey("customData")) {
+      customDataPolicy = CustomDataPolicy.fromConfig(androidConfig.getMap("customData"));
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setCustomDataPolicy(customDataPolicy);
+      }
+    }
+
+    if (androidConfig.hasKey("pixelSampling")) {
+      pixelSampling = PixelSamplingPolicy.fromConfig(androidConfig.getMap("pixelSampling"));
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setPixelSampling(pixelSampling);
+      }
+    }
+
+    if (androidConfig.hasKey("funnel")) {
+      funnelOptions = CheckoutFunnel.Options.fromConfig(androidConfig.getMap("funnel"));
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setFunnelOptions(funnelOptions);
+      }
+    }
+
+    if (androidConfig.hasKey("adaptivePreload")) {
+      adaptivePreload = AdaptivePreloadPolicy.fromConfig(androidConfig.getMap("adaptivePreload"));
+    }
+
+    if (androidConfig.hasKey("pixelSink")) {
+      // The new sink replays the spill directory only once the old one,
+      // closed below, has finished writing to it
+      PixelEventSink previous = pixelSink;
+      pixelSink = PixelEventSink.fromConfig(androidConfig.getMap("pixelSink"),
+          new File(getReactApplicationContext().getCacheDir(), PIXEL_SPILL_DIRECTORY), previous);
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setPixelSink(pixelSink);
+      }
+      if (previous != null) {
+        previous.close();
+      }
+    }
+
+    if (androidConfig.hasKey("completedEventJournal")) {
+      CompletedEventJournal previous = completedEventJournal;
+      if (previous != null) {
+        previous.close();
+      }
+      completedEventJournal = CompletedEventJournal.fromConfig(androidConfig.getMap("completedEventJournal"),
+          new File(getReactApplicationContext().getFilesDir(), JOURNAL_DIRECTORY));
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setCompletedEventJournal(completedEventJournal);
+      }
+    }
+
+    if (androidConfig.hasKey("flowControl")) {
+      CheckoutFlowControl previous = flowControl;
+      flowControl = CheckoutFlowControl.fromConfig(androidConfig.getMap("flowControl"));
+      for (CustomCheckoutEventProcessor processor : sessions.getAll()) {
+        processor.setFlowControl(flowControl);
+      }
+      // Hand over events still waiting for credits under the old settings
+      if (previous != null) {
+        previous.release();
+      }
+    }
+  }
+
+  /**
+   * Emits through the typed event emitters generated from the spec, which go
+   * over JSI without looking up a JS module per event. Falls back to
+   * `DeviceEventManagerModule` only until the emitter callback has been
+   * installed; after that JS listens on the typed emitters alone, so an event
+   * without one is dropped rather than sent where nobody listens.
+   *
+   * Pixel events, the high-volume stream, stay JSON strings. Every other event
+   * is emitted as a structured map typed in the spec, so JS does not parse it.
+   */
+  private void emitEvent(String eventName, String data) {
+    if (mEventEmitterCallback == null) {
+      legacyEmitter.emit(eventName, data);
+      return;
+    }
+
+    if ("pixel".equals(eventName)) {
+      emitOnPixel(data);
+      return;
+    }
+
+    WritableMap event;
+    try {
+      event = WritableEventMaps.fromJson(data);
+    } catch (IOException e) {
+      CheckoutMetrics.getInstance().increment(CheckoutMetrics.SERIALIZATION_FAILURE_COUNT);
+      CheckoutLog.e("emit." + eventName, e, "Error converting \"%s\" event", eventName);
+      return;
+    }
+
+    switch (eventName) {
+      case "completed":
+        emitOnCompleted(event);
+        break;
+      case "error":
+        emitOnError(event);
+        break;
+      case "errorSummary":
+        emitOnErrorSummary(event);
+        break;
+      case "close":
+        emitOnClose(event);
+        break;
+      case "geolocationRequest":
+        emitOnGeolocationRequest(event);
+        break;
+      case "funnel":
+        emitOnFunnel(event);
+        break;
+      default:
+        CheckoutLog.w("emit." + eventName, "No typed event emitter for \"%s\" event, dropping it", eventName);
+    }
+  }
+
+  private void applyThemeConfig(@Nullable ReadableMap androidConfig) {
+    if (androidConfig == null || !androidConfig.hasKey("followSystemTheme")) {
+      return;
+    }
+
+    followSystemTheme = !androidConfig.isNull("followSystemTheme") && androidConfig.getBoolean("followSystemTheme");
+    if (!followSystemTheme) {
+      // The configured automatic scheme stays; mode changes are no longer counted
+      detachThemeSwitcher();
+    }
+  }
+
+  /**
+   * Attaches a theme switcher with an automatic scheme built from the color
+   * overrides. The current switcher is reused when the overrides did not
+   * change, so its colors are only built once. Returns false when the
+   * overrides are missing or invalid.
+   */
+  private synchronized boolean attachThemeSwitcher(Configuration configuration, ColorScheme colorScheme,
+      @Nullable ReadableMap colorsConfig) {
+    if (!isValidColorScheme(colorScheme, colorsConfig)) {
+      return false;
+    }
+
+    Map<String, Object> source = colorsConfig.toHashMap();
+    SystemThemeSwitcher switcher = themeSwitcher;
+    if (switcher == null || !switcher.isBuiltFrom(source)) {
+      detachThemeSwitcher();
+      switcher = new SystemThemeSwitcher(source, createColorsFromConfig(colorsConfig.getMap("light")),
+          createColorsFromConfig(colorsConfig.getMap("dark")));
+      applicationContext().registerComponentCallbacks(switcher);
+      themeSwitcher = switcher;
+    }
+
+    Resources resources = getReactApplicationContext().getResources();
+    switcher.attach(configuration, SystemThemeSwitcher.isNight(resources != null ? resources.getConfiguration() : null));
+    return true;
+  }
+
+  private synchronized void detachThemeSwitcher() {
+    SystemThemeSwitcher switcher = themeSwitcher;
+    if (switcher != null) {
+      switcher.detach();
+      applicationContext().unregisterComponentCallbacks(switcher);
+      themeSwitcher = null;
+    }
+  }
+
+  private Context applicationContext() {
+    Context context = getReactApplicationContext();
+    Context applicationContext = context.getApplicationContext();
+    return applicationContext != null ? applicationContext : context;
+  }
+
+  private void applyTracingConfig(@Nullable ReadableMap androidConfig) {
+    if (androidConfig != null && androidConfig.hasKey("tracing")) {
+      CheckoutTrace.setEnabled(!androidConfig.isNull("tracing") && androidConfig.getBoolean("tracing"));
+    }
+  }
+
+  /**
+   * Summaries are usually flushed after the failing session has ended, e.g.
+   * when a non-recoverable error closed it, so they go to the session that
+   * ended last when none is active.
+   */
+  private void emitErrorSummary(Map<String, Object> summary) {
+    CustomCheckoutEventProcessor processor = findSession(null);
+    if (processor != null) {
+      processor.emitErrorSummary(summary);
+    }
+  }
+
+  @Nullable
+  private CustomCheckoutEventProcessor findSession(@Nullable String sessionId) {
+    CustomCheckoutEventProcessor processor = sessionId == null ? sessions.getActive() : sessions.get(sessionId);
+    if (processor != null) {
+      return processor;
+    }
+
+    // The session may have just ended, e.g. with the "close" event
+    CustomCheckoutEventProcessor ended = sessions.getLastEnded();
+    if (ended != null && (sessionId == null || sessionId.equals(ended.getSessionId()))) {
+      return ended;
+    }
+    return null;
+  }
+
   private ColorScheme getColorScheme(String colorScheme) {
     switch (colorScheme) {
       case "web_default":
@@ -348,7 +1051,8 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
     return null;
   }
 
-  private Color parseColor(String colorStr) {
+  @VisibleForTesting
+  Color parseColor(String colorStr) {
     try {
       colorStr = colorStr.replace("#", "");
 
@@ -362,7 +1066,7 @@ public class ShopifyCheckoutSheetKitModule extends NativeShopifyCheckoutSheetKit
 
       return new Color.SRGB((int) color);
     } catch (NumberFormatException e) {
-      System.out.println("Warning: Invalid color string. Default color will be used.");
+      CheckoutLog.w("config.color", "Invalid color string \"%s\". Default color will be used.", colorStr);
       return null;
     }
   }
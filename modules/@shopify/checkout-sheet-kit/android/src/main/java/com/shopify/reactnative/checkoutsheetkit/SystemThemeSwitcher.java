@@ -0,0 +1,113 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import android.content.ComponentCallbacks;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.shopify.checkoutsheetkit.ColorScheme;
+import com.shopify.checkoutsheetkit.Colors;
+import com.shopify.checkoutsheetkit.Configuration;
+
+import java.util.Map;
+
+/**
+ * Keeps an "automatic" color scheme with light and dark overrides in step
+ * with the device's light and dark mode natively.
+ *
+ * The scheme, with both color sets, is built once, set when a config is
+ * applied and reused for as long as the overrides do not change. It stays
+ * automatic, so the SDK picks the colors for the current mode itself and a
+ * theme flip needs no `setConfig` from JS, no colors rebuilt and no
+ * reconfiguration, which would invalidate preloads. Mode changes are only
+ * counted. Register it with the application context to receive configuration
+ * changes.
+ */
+public class SystemThemeSwitcher implements ComponentCallbacks {
+  private final Map<String, Object> source;
+  private final ColorScheme.Automatic automatic = new ColorScheme.Automatic();
+
+  // Guarded by this
+  private boolean attached;
+  private boolean night;
+
+  /**
+   * @param source - The color overrides the scheme was built from, used to
+   *               tell whether a later config can reuse it
+   */
+  public SystemThemeSwitcher(Map<String, Object> source, Colors lightColors, Colors darkColors) {
+    this.source = source;
+    automatic.setLightColors(lightColors);
+    automatic.setDarkColors(darkColors);
+  }
+
+  public static boolean isNight(@Nullable android.content.res.Configuration configuration) {
+    return configuration != null
+        && (configuration.uiMode & android.content.res.Configuration.UI_MODE_NIGHT_MASK)
+            == android.content.res.Configuration.UI_MODE_NIGHT_YES;
+  }
+
+  public boolean isBuiltFrom(Map<String, Object> colorsConfig) {
+    return source.equals(colorsConfig);
+  }
+
+  /**
+   * Sets the automatic scheme on a configuration that is being applied, and
+   * counts mode changes from then on.
+   */
+  public synchronized void attach(Configuration configuration, boolean night) {
+    this.attached = true;
+    this.night = night;
+    configuration.setColorScheme(automatic);
+  }
+
+  /**
+   * Stops counting mode changes. The scheme already set stays.
+   */
+  public synchronized void detach() {
+    attached = false;
+  }
+
+  @Override
+  public void onConfigurationChanged(@NonNull android.content.res.Configuration newConfig) {
+    boolean isNight = isNight(newConfig);
+    synchronized (this) {
+      if (!attached || isNight == night) {
+        return;
+      }
+      night = isNight;
+    }
+
+    CheckoutMetrics.getInstance().increment(CheckoutMetrics.THEME_SWITCH_COUNT);
+  }
+
+  @Override
+  public void onLowMemory() {
+    // Nothing to release
+  }
+}
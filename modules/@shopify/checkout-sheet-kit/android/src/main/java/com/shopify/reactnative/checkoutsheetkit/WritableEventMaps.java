@@ -0,0 +1,116 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Turns a serialized event envelope into the structured map handed to the
+ * typed event emitters, so JS receives objects instead of parsing strings.
+ *
+ * The envelope is read token by token straight into bridge maps, without an
+ * intermediate tree. Numbers are written as doubles, which is what JS sees
+ * anyway; emit times in milliseconds stay exact.
+ */
+final class WritableEventMaps {
+  private static final JsonFactory factory = new JsonFactory();
+
+  private WritableEventMaps() {}
+
+  static WritableMap fromJson(String json) throws IOException {
+    try (JsonParser parser = factory.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Expected an event object");
+      }
+      return readMap(parser);
+    }
+  }
+
+  // Private
+
+  private static WritableMap readMap(JsonParser parser) throws IOException {
+    WritableMap map = Arguments.createMap();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      switch (parser.nextToken()) {
+        case START_OBJECT:
+          map.putMap(key, readMap(parser));
+          break;
+        case START_ARRAY:
+          map.putArray(key, readArray(parser));
+          break;
+        case VALUE_STRING:
+          map.putString(key, parser.getText());
+          break;
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          map.putDouble(key, parser.getDoubleValue());
+          break;
+        case VALUE_TRUE:
+        case VALUE_FALSE:
+          map.putBoolean(key, parser.getBooleanValue());
+          break;
+        default:
+          map.putNull(key);
+      }
+    }
+    return map;
+  }
+
+  private static WritableArray readArray(JsonParser parser) throws IOException {
+    WritableArray array = Arguments.createArray();
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      switch (token) {
+        case START_OBJECT:
+          array.pushMap(readMap(parser));
+          break;
+        case START_ARRAY:
+          array.pushArray(readArray(parser));
+          break;
+        case VALUE_STRING:
+          array.pushString(parser.getText());
+          break;
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          array.pushDouble(parser.getDoubleValue());
+          break;
+        case VALUE_TRUE:
+        case VALUE_FALSE:
+          array.pushBoolean(parser.getBooleanValue());
+          break;
+        default:
+          array.pushNull();
+      }
+    }
+    return array;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+public class AdaptivePreloadPolicyTest {
+  private static final long WINDOW_MS = 60_000;
+
+  private final AdaptivePreloadPolicy policy = new AdaptivePreloadPolicy(4, 0.5, 1_000, 10_000);
+
+  @Test
+  public void testRepeatedPreloadsBeforePresentCountOnce() {
+    PreloadHistory history = history(0, 0, 0);
+
+    history.recordPreload(1_000);
+    history.recordPreload(2_000);
+    history.recordPreload(3_000);
+
+    assertEquals(1, history.getRequests());
+  }
+
+  @Test
+  public void testPresentWithinWindowIsAConversion() {
+    PreloadHistory history = history(0, 0, 0);
+
+    history.recordPreload(1_000);
+    assertTrue(history.recordPresent(6_000));
+
+    assertEquals(1, history.getConversions());
+    assertEquals(5_000, history.getAverageGapMs());
+  }
+
+  @Test
+  public void testPresentWithoutRecentPreloadIsNotAConversion() {
+    PreloadHistory history = history(0, 0, 0);
+
+    assertFalse(history.recordPresent(1_000));
+    history.recordPreload(1_000);
+    assertFalse(history.recordPresent(1_000 + WINDOW_MS + 1));
+
+    assertEquals(1, history.getRequests());
+    assertEquals(0, history.getConversions());
+  }
+
+  @Test
+  public void testAverageGapMovesTowardsRecentGaps() {
+    PreloadHistory history = history(4, 4, 4_000);
+
+    history.recordPreload(0);
+    history.recordPresent(8_000);
+
+    assertEquals(5_000, history.getAverageGapMs());
+  }
+
+  @Test
+  public void testCountsAreHalvedWhenFull() {
+    PreloadHistory history = history(PreloadHistory.MAX_REQUESTS, 100, 0);
+
+    history.recordPreload(0);
+
+    assertEquals((PreloadHistory.MAX_REQUESTS + 1) / 2, history.getRequests());
+    assertEquals(50, history.getConversions());
+  }
+
+  @Test
+  public void testRestoreAddsPersistedHistoryToRequestsSeenSinceLaunch() {
+    PreloadHistory history = history(0, 0, 0);
+    history.recordPreload(1_000);
+    assertTrue(history.recordPresent(3_000));
+
+    history.restore(preferences(9, 3, 6_000));
+
+    assertEquals(10, history.getRequests());
+    assertEquals(4, history.getConversions());
+    assertEquals(5_000, history.getAverageGapMs());
+  }
+
+  @Test
+  public void testRestoreAfterResetKeepsHistoryCleared() {
+    PreloadHistory history = history(0, 0, 0);
+    history.reset();
+
+    history.restore(preferences(9, 3, 6_000));
+
+    assertEquals(0, history.getRequests());
+    assertEquals(0, history.getConversions());
+  }
+
+  @Test
+  public void testPreloadsWhileLearning() {
+    assertEquals(AdaptivePreloadPolicy.LEARNING, policy.decide(history(3, 0, 0)));
+  }
+
+  @Test
+  public void testSkipsWhenConversionRateIsLow() {
+    assertEquals(AdaptivePreloadPolicy.SKIP, policy.decide(history(10, 4, 0)));
+  }
+
+  @Test
+  public void testPreloadsImmediatelyWhenPresentFollowsQuickly() {
+    assertEquals(AdaptivePreloadPolicy.PRELOAD, policy.decide(history(10, 5, 800)));
+  }
+
+  @Test
+  public void testDelaysUntilShortlyBeforeUsualPresent() {
+    PreloadHistory history = history(10, 8, 6_000);
+
+    assertEquals(AdaptivePreloadPolicy.DELAY, policy.decide(history));
+    assertEquals(5_000, policy.getDelayMs(history));
+  }
+
+  @Test
+  public void testDelayIsCapped() {
+    assertEquals(10_000, policy.getDelayMs(history(10, 8, 120_000)));
+  }
+
+  private static PreloadHistory history(long requests, long conversions, long averageGapMs) {
+    return new PreloadHistory(requests, conversions, averageGapMs, WINDOW_MS, null);
+  }
+
+  private static SharedPreferences preferences(long requests, long conversions, long averageGapMs) {
+    SharedPreferences preferences = mock(SharedPreferences.class, RETURNS_DEEP_STUBS);
+    when(preferences.getLong("requests", 0)).thenReturn(requests);
+    when(preferences.getLong("conversions", 0)).thenReturn(conversions);
+    when(preferences.getLong("averageGapMs", 0)).thenReturn(averageGapMs);
+    return preferences;
+  }
+}
@@ -0,0 +1,254 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.HttpException;
+import com.shopify.checkoutsheetkit.lifecycleevents.Address;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartInfo;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartLine;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartLineImage;
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.lifecycleevents.DeliveryDetails;
+import com.shopify.checkoutsheetkit.lifecycleevents.DeliveryInfo;
+import com.shopify.checkoutsheetkit.lifecycleevents.Discount;
+import com.shopify.checkoutsheetkit.lifecycleevents.Money;
+import com.shopify.checkoutsheetkit.lifecycleevents.OrderDetails;
+import com.shopify.checkoutsheetkit.lifecycleevents.PaymentMethod;
+import com.shopify.checkoutsheetkit.lifecycleevents.Price;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEventData;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Realistic event and config fixtures shared by the unit tests and by the
+ * benchmarks in src/jmh. Shapes mirror what checkout emits for a two-line cart.
+ */
+final class BenchmarkFixtures {
+  private BenchmarkFixtures() {}
+
+  /**
+   * Emitter that hands every payload to a sink instead of the JS bridge, so
+   * benchmarks measure the module's work and nothing else.
+   */
+  static final class SinkEmitter implements CheckoutEventEmitter, DeviceEventManagerModule.RCTDeviceEventEmitter {
+    interface Sink {
+      void accept(String eventName, Object data);
+    }
+
+    private final Sink sink;
+
+    SinkEmitter(Sink sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    public void emit(String eventName, String data) {
+      sink.accept(eventName, data);
+    }
+
+    @Override
+    public void emit(String eventName, Object data) {
+      sink.accept(eventName, data);
+    }
+  }
+
+  /**
+   * Stub-only mocks do not record invocations, so they do not grow or
+   * allocate across millions of benchmark calls. The benchmarks only call
+   * them from their setup, except for httpException below.
+   */
+  static ReactApplicationContext reactContext(DeviceEventManagerModule.RCTDeviceEventEmitter emitter) {
+    ReactApplicationContext reactContext = mock(ReactApplicationContext.class, withSettings().stubOnly());
+    when(reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)).thenReturn(emitter);
+    return reactContext;
+  }
+
+  static Context context() {
+    return mock(Context.class, withSettings().stubOnly());
+  }
+
+  static CustomCheckoutEventProcessor processor(CheckoutEventEmitter emitter) {
+    return new CustomCheckoutEventProcessor(context(), emitter, new GeolocationRequestQueue());
+  }
+
+  static StandardPixelEvent standardPixelEvent() {
+    return new StandardPixelEvent(
+        "sh-88153c5a-8F2D-4CCA-3231-EF5C032A4C3B",
+        "checkout_completed",
+        "2024-05-14T18:35:04.000Z",
+        EventType.STANDARD,
+        null,
+        standardPixelEventData());
+  }
+
+  static CustomPixelEvent customPixelEvent() {
+    return new CustomPixelEvent(
+        "sh-3f0a1a2b-7C1D-4E5F-8A9B-0C1D2E3F4A5B",
+        "loyalty_points_applied",
+        "2024-05-14T18:34:58.000Z",
+        EventType.CUSTOM,
+        null,
+        "{\"points\":1200,\"tier\":\"gold\",\"cartToken\":\"c1-7a6f4ab1d2e34f5b8c9d0e1f2a3b4c5d\","
+            + "\"items\":[{\"sku\":\"TSHIRT-ORG-M-BLK\",\"qty\":2},{\"sku\":\"BEANIE-WOOL-GRY\",\"qty\":1}]}");
+  }
+
+  static CheckoutCompletedEvent checkoutCompletedEvent() {
+    Address address = new Address(
+        "150 Elgin Street", "8th Floor", "Ottawa", "CA", "Alex", "Doe", "Alex Doe",
+        "+16135550123", "K2P 1L4", null, "ON");
+
+    CartLine tshirt = new CartLine(
+        Collections.singletonList(new Discount(cad(7.0), "DISCOUNT_CODE", "SUMMER10", 10.0, "PERCENTAGE")),
+        new CartLineImage("Organic Cotton T-Shirt",
+            "https://cdn.shopify.com/s/files/1/0001/products/tshirt_large.jpg",
+            "https://cdn.shopify.com/s/files/1/0001/products/tshirt_medium.jpg",
+            "https://cdn.shopify.com/s/files/1/0001/products/tshirt_small.jpg"),
+        "gid://shopify/ProductVariant/42389284798514",
+        cad(35.0),
+        "gid://shopify/Product/7982765981746",
+        2,
+        "Organic Cotton T-Shirt");
+    CartLine beanie = new CartLine(
+        Collections.<Discount>emptyList(),
+        new CartLineImage("Wool Beanie",
+            "https://cdn.shopify.com/s/files/1/0001/products/beanie_large.jpg",
+            "https://cdn.shopify.com/s/files/1/0001/products/beanie_medium.jpg",
+            "https://cdn.shopify.com/s/files/1/0001/products/beanie_small.jpg"),
+        "gid://shopify/ProductVariant/42389284831282",
+        cad(24.0),
+        "gid://shopify/Product/7982766006322",
+        1,
+        "Wool Beanie");
+
+    Price price = new Price(
+        Collections.singletonList(new Discount(cad(9.4), "DISCOUNT_CODE", "SUMMER10", 10.0, "PERCENTAGE")),
+        cad(8.5),
+        cad(94.0),
+        cad(12.42),
+        cad(104.92));
+
+    Map<String, String> paymentDetails = new LinkedHashMap<>();
+    paymentDetails.put("brand", "visa");
+    paymentDetails.put("lastDigits", "4242");
+
+    OrderDetails orderDetails = new OrderDetails(
+        address,
+        new CartInfo(Arrays.asList(tshirt, beanie), price, "c1-7a6f4ab1d2e34f5b8c9d0e1f2a3b4c5d"),
+        Collections.singletonList(new DeliveryInfo(new DeliveryDetails(null, address, "Standard"), "SHIPPING")),
+        "buyer@example.com",
+        "gid://shopify/OrderIdentity/5512345678901",
+        Collections.singletonList(new PaymentMethod(paymentDetails, "creditCard")),
+        "+16135550123");
+
+    return new CheckoutCompletedEvent(orderDetails);
+  }
+
+  /**
+   * The SDK's exceptions are final Kotlin classes, so this is a mock; the
+   * error benchmarks include the dispatch of its four getters.
+   */
+  static HttpException httpException() {
+    HttpException exception = mock(HttpException.class, withSettings().stubOnly());
+    when(exception.getErrorDescription()).thenReturn("Service Unavailable");
+    when(exception.getErrorCode()).thenReturn("http_error");
+    when(exception.isRecoverable()).thenReturn(true);
+    when(exception.getStatusCode()).thenReturn(503);
+    return exception;
+  }
+
+  static JavaOnlyMap baseConfig() {
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putBoolean("preloading", true);
+    config.putString("logLevel", "error");
+    return config;
+  }
+
+  static JavaOnlyMap colorsConfig(String colorScheme) {
+    JavaOnlyMap android = "automatic".equals(colorScheme) ? new JavaOnlyMap() : androidColors("#FFFFFF", "#2D9B5F");
+    if ("automatic".equals(colorScheme)) {
+      android.putMap("light", androidColors("#FFFFFF", "#2D9B5F"));
+      android.putMap("dark", androidColors("#1A1A1A", "#7FD1A4"));
+    }
+
+    JavaOnlyMap colors = new JavaOnlyMap();
+    colors.putMap("android", android);
+
+    JavaOnlyMap config = baseConfig();
+    config.putString("colorScheme", colorScheme);
+    config.putMap("colors", colors);
+    return config;
+  }
+
+  // Private
+
+  private static Money cad(double amount) {
+    return new Money(amount, "CAD");
+  }
+
+  private static JavaOnlyMap androidColors(String background, String accent) {
+    JavaOnlyMap colors = new JavaOnlyMap();
+    colors.putString("backgroundColor", background);
+    colors.putString("progressIndicator", accent);
+    colors.putString("headerBackgroundColor", background);
+    colors.putString("headerTextColor", "#FF000000");
+    colors.putString("closeButtonColor", accent);
+    return colors;
+  }
+
+  /**
+   * The SDK's pixel data classes are Kotlin data classes with defaulted
+   * fields, so the fixture JSON is bound straight onto their fields.
+   */
+  private static StandardPixelEventData standardPixelEventData() {
+    ObjectMapper mapper = new ObjectMapper()
+        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    try (InputStream stream = BenchmarkFixtures.class.getResourceAsStream("/fixtures/standard_pixel_event_data.json")) {
+      return mapper.readValue(stream, StandardPixelEventData.class);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to load the standard pixel event fixture", e);
+    }
+  }
+}
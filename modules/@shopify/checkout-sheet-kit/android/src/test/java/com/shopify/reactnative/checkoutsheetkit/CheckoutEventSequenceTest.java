@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CheckoutEventSequenceTest {
+  private static final Pattern SEQUENCE = Pattern.compile("\"sequence\":(\\d+),\"emittedAt\":(\\d+),");
+
+  private final List<String> emitted = Collections.synchronizedList(new ArrayList<>());
+  private CustomCheckoutEventProcessor processor;
+
+  @Before
+  public void setup() {
+    processor = BenchmarkFixtures.processor(
+        new BenchmarkFixtures.SinkEmitter((eventName, data) -> emitted.add((String) data)));
+  }
+
+  @Test
+  public void testSequenceStartsAtOneAndIncreasesPerEvent() {
+    assertEquals(0, processor.getLastSequence());
+
+    processor.onWebPixelEvent(BenchmarkFixtures.standardPixelEvent());
+    processor.onCheckoutCompleted(BenchmarkFixtures.checkoutCompletedEvent());
+    processor.onCheckoutCanceled();
+
+    assertEquals(3, emitted.size());
+    for (int i = 0; i < emitted.size(); i++) {
+      assertEquals(i + 1, sequenceOf(emitted.get(i)));
+    }
+    assertEquals(3, processor.getLastSequence());
+  }
+
+  @Test
+  public void testEmitTimeIsRecorded() {
+    long before = System.currentTimeMillis();
+    processor.onWebPixelEvent(BenchmarkFixtures.standardPixelEvent());
+    long after = System.currentTimeMillis();
+
+    Matcher matcher = SEQUENCE.matcher(emitted.get(0));
+    assertTrue(matcher.find());
+    long emittedAt = Long.parseLong(matcher.group(2));
+    assertTrue(emittedAt >= before && emittedAt <= after);
+    assertEquals(emittedAt, processor.getLastEmittedAt());
+  }
+
+  @Test
+  public void testFailedEmitDoesNotUseUpASequenceNumber() {
+    boolean[] failNext = { true };
+    CustomCheckoutEventProcessor failing = BenchmarkFixtures.processor(
+        new BenchmarkFixtures.SinkEmitter((eventName, data) -> {
+          if (failNext[0]) {
+            failNext[0] = false;
+            throw new IllegalStateException("bridge unavailable");
+          }
+          emitted.add((String) data);
+        }));
+
+    try {
+      failing.onWebPixelEvent(BenchmarkFixtures.standardPixelEvent());
+      fail("Expected the emit to fail");
+    } catch (IllegalStateException expected) {
+      // The event never reached JS
+    }
+    failing.onWebPixelEvent(BenchmarkFixtures.standardPixelEvent());
+
+    assertEquals(1, sequenceOf(emitted.get(0)));
+    assertEquals(1, failing.getLastSequence());
+  }
+
+  @Test
+  public void testConcurrentEventsAreEmittedInSequenceOrder() throws Exception {
+    int threads = 4;
+    int eventsPerThread = 500;
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        for (int i = 0; i < eventsPerThread; i++) {
+          processor.onWebPixelEvent(BenchmarkFixtures.customPixelEvent());
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertEquals(threads * eventsPerThread, emitted.size());
+    for (int i = 0; i < emitted.size(); i++) {
+      assertEquals(i + 1, sequenceOf(emitted.get(i)));
+    }
+  }
+
+  @Test
+  public void testEventsAfterAJournaledEventWaitForItsWrite() throws Exception {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    File dir = Files.createTempDirectory("sequence-journal").toFile();
+    try {
+      processor.setCompletedEventJournal(
+          new CompletedEventJournal(new File(dir, CompletedEventJournal.FILE_NAME), 10, executor));
+      CountDownLatch blocked = new CountDownLatch(1);
+      executor.execute(() -> {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+
+      processor.onCheckoutCompleted(BenchmarkFixtures.checkoutCompletedEvent());
+      processor.onWebPixelEvent(BenchmarkFixtures.standardPixelEvent());
+      assertEquals(Collections.emptyList(), emitted);
+      assertEquals(2, processor.getLastSequence());
+
+      blocked.countDown();
+      executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+      assertEquals(2, emitted.size());
+      assertTrue(emitted.get(0).contains("\"journalId\""));
+      assertEquals(1, sequenceOf(emitted.get(0)));
+      assertEquals(2, sequenceOf(emitted.get(1)));
+    } finally {
+      executor.shutdownNow();
+      File[] files = dir.listFiles();
+      if (files != null) {
+        for (File f : files) {
+          f.delete();
+        }
+      }
+      dir.delete();
+    }
+  }
+
+  // Private
+
+  private static long sequenceOf(String data) {
+    Matcher matcher = SEQUENCE.matcher(data);
+    assertTrue(data, matcher.find());
+    return Long.parseLong(matcher.group(1));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.lifecycleevents.CartInfo;
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.lifecycleevents.OrderDetails;
+import com.shopify.checkoutsheetkit.lifecycleevents.Price;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Collections;
+
+/**
+ * Golden tests for the hand-written serializers: each fixture must produce
+ * exactly the JSON checked in under src/test/resources/golden, field order
+ * included. The files hold what JS has always received for these events;
+ * update them only for an intended change to the payloads.
+ */
+public class CheckoutEventSerializersTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testCompletedEventMatchesGolden() throws Exception {
+    assertMatchesGolden("completed_event.json", BenchmarkFixtures.checkoutCompletedEvent());
+  }
+
+  @Test
+  public void testCompletedEventWithNullsMatchesGolden() throws Exception {
+    OrderDetails orderDetails = new OrderDetails(
+        null,
+        new CartInfo(Collections.emptyList(), new Price(null, null, null, null, null), null),
+        null,
+        null,
+        "gid://shopify/OrderIdentity/1",
+        Collections.emptyList(),
+        null);
+
+    assertMatchesGolden("completed_event_with_nulls.json", new CheckoutCompletedEvent(orderDetails));
+  }
+
+  @Test
+  public void testStandardPixelEventWithoutDataMatchesGolden() throws Exception {
+    assertMatchesGolden("standard_pixel_event_without_data.json",
+        new StandardPixelEvent("id", "page_viewed", null, EventType.STANDARD, null, null));
+  }
+
+  @Test
+  public void testStandardPixelEventDataIsWrittenByTheMapper() throws Exception {
+    // The SDK's context and data classes are not written by hand
+    StandardPixelEvent event = BenchmarkFixtures.standardPixelEvent();
+
+    JsonNode written = mapper.readTree(write(event));
+
+    assertEquals(mapper.readTree(mapper.writeValueAsString(event.getData())), written.get("data"));
+  }
+
+  @Test
+  public void testCustomPixelEventMatchesGolden() throws Exception {
+    assertMatchesGolden("custom_pixel_event.json", BenchmarkFixtures.customPixelEvent());
+  }
+
+  @Test
+  public void testCustomPixelEventWithNullsMatchesGolden() throws Exception {
+    assertMatchesGolden("custom_pixel_event_with_nulls.json",
+        new CustomPixelEvent(null, "custom_event", null, null, null, null));
+  }
+
+  // Private
+
+  private void assertMatchesGolden(String name, CheckoutCompletedEvent event) throws Exception {
+    String actual = JsonEventWriter.write(mapper,
+        generator -> CheckoutEventSerializers.writeCompletedEvent(generator, event));
+    assertEquals(golden(name), actual);
+  }
+
+  private void assertMatchesGolden(String name, PixelEvent event) throws Exception {
+    assertEquals(golden(name), write(event));
+  }
+
+  private String write(PixelEvent event) throws Exception {
+    return JsonEventWriter.write(mapper,
+        generator -> CheckoutEventSerializers.writePixelEvent(generator, mapper, event, null));
+  }
+
+  /**
+   * Reads a golden file and writes it back compactly, keeping its field order.
+   */
+  private String golden(String name) throws Exception {
+    try (InputStream stream = getClass().getResourceAsStream("/golden/" + name)) {
+      assertNotNull("Missing golden file " + name, stream);
+      return mapper.writeValueAsString(mapper.readTree(stream));
+    }
+  }
+}
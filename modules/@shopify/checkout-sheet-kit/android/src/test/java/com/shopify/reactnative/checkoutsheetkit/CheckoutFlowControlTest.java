@@ -0,0 +1,170 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckoutFlowControlTest {
+  private final List<String> emitted = new ArrayList<>();
+  private CustomCheckoutEventProcessor processor;
+
+  @Before
+  public void setup() {
+    processor = BenchmarkFixtures.processor(
+        new BenchmarkFixtures.SinkEmitter((eventName, data) -> emitted.add(eventName + " " + data)));
+  }
+
+  @Test
+  public void testEventsPassThroughWhileCreditsRemain() {
+    processor.setFlowControl(new CheckoutFlowControl(2, 4));
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+
+    assertEquals(2, emitted.size());
+  }
+
+  @Test
+  public void testEventsWaitForCreditsAndLeaveInOrder() {
+    CheckoutFlowControl control = new CheckoutFlowControl(1, 4);
+    processor.setFlowControl(control);
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+    processor.onWebPixelEvent(pixel("third"));
+
+    assertEquals(1, emitted.size());
+    assertEquals(2, control.getBufferedCount());
+
+    control.ack(1);
+    assertEquals(2, emitted.size());
+    assertTrue(emitted.get(1).contains("\"name\":\"second\""));
+
+    control.ack(1);
+    assertEquals(3, emitted.size());
+    assertTrue(emitted.get(2).contains("\"name\":\"third\""));
+    assertEquals(0, control.getBufferedCount());
+  }
+
+  @Test
+  public void testOldestEventIsDroppedWhenBufferIsFull() {
+    CheckoutFlowControl control = new CheckoutFlowControl(1, 2);
+    processor.setFlowControl(control);
+    long droppedBefore = CheckoutMetrics.getInstance().getCounter(CheckoutMetrics.FLOW_CONTROL_DROPPED_COUNT);
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+    processor.onWebPixelEvent(pixel("third"));
+    processor.onWebPixelEvent(pixel("fourth"));
+    control.ack(1);
+
+    assertEquals(2, emitted.size());
+    assertTrue(emitted.get(1).contains("\"name\":\"third\""));
+    assertEquals(droppedBefore + 1,
+        CheckoutMetrics.getInstance().getCounter(CheckoutMetrics.FLOW_CONTROL_DROPPED_COUNT));
+  }
+
+  @Test
+  public void testDroppedEventsDoNotUseUpSequenceNumbers() {
+    CheckoutFlowControl control = new CheckoutFlowControl(1, 1);
+    processor.setFlowControl(control);
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+    processor.onWebPixelEvent(pixel("third"));
+    control.ack(1);
+
+    assertTrue(emitted.get(1).contains("\"sequence\":2,"));
+    assertTrue(emitted.get(1).contains("\"name\":\"third\""));
+  }
+
+  @Test
+  public void testCreditsNeverExceedWindow() {
+    CheckoutFlowControl control = new CheckoutFlowControl(2, 4);
+
+    control.ack(10);
+
+    assertEquals(2, control.getCredits());
+  }
+
+  @Test
+  public void testLifecycleEventsAreNotHeldBack() {
+    CheckoutFlowControl control = new CheckoutFlowControl(1, 4);
+    processor.setFlowControl(control);
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+    processor.onCheckoutCompleted(BenchmarkFixtures.checkoutCompletedEvent());
+
+    assertEquals(2, emitted.size());
+    assertTrue(emitted.get(1).startsWith("completed "));
+    assertEquals(1, control.getBufferedCount());
+  }
+
+  @Test
+  public void testReleaseEmitsBufferedEventsAndStopsLimiting() {
+    CheckoutFlowControl control = new CheckoutFlowControl(1, 4);
+    processor.setFlowControl(control);
+
+    processor.onWebPixelEvent(pixel("first"));
+    processor.onWebPixelEvent(pixel("second"));
+    control.release();
+    processor.onWebPixelEvent(pixel("third"));
+
+    assertEquals(3, emitted.size());
+    assertEquals(0, control.getBufferedCount());
+  }
+
+  @Test
+  public void testFromConfig() {
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putInt("window", 8);
+    config.putInt("bufferSize", 16);
+    assertEquals(8, CheckoutFlowControl.fromConfig(config).getCredits());
+
+    JavaOnlyMap disabled = new JavaOnlyMap();
+    disabled.putBoolean("enabled", false);
+    assertNull(CheckoutFlowControl.fromConfig(disabled));
+    assertNull(CheckoutFlowControl.fromConfig(null));
+  }
+
+  // Private
+
+  private static CustomPixelEvent pixel(String name) {
+    return new CustomPixelEvent("sh-" + name, name, "2024-05-14T18:34:58.000Z", EventType.CUSTOM, null, null);
+  }
+}
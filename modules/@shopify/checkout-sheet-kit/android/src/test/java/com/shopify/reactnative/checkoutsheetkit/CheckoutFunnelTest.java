@@ -0,0 +1,153 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.pixelevents.CustomPixelEvent;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckoutFunnelTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final List<String> emitted = new ArrayList<>();
+  private CustomCheckoutEventProcessor processor;
+
+  @Before
+  public void setup() {
+    processor = BenchmarkFixtures.processor(
+        new BenchmarkFixtures.SinkEmitter((eventName, data) -> emitted.add(eventName + " " + data)));
+  }
+
+  @Test
+  public void testSummaryOfPartialFunnel() throws Exception {
+    CheckoutFunnel funnel = new CheckoutFunnel(1_000);
+
+    assertTrue(funnel.record(standard("checkout_started"), 1_100));
+    assertTrue(funnel.record(standard("checkout_contact_info_submitted"), 1_400));
+    assertTrue(funnel.record(standard("checkout_contact_info_submitted"), 1_500));
+    assertFalse(funnel.record(standard("page_viewed"), 1_600));
+    assertTrue(funnel.record(standard("payment_info_submitted"), 2_000));
+    assertFalse(funnel.record(custom("checkout_completed"), 2_100));
+
+    String summary = JsonEventWriter.write(mapper, generator -> funnel.write(generator, false, 2_500));
+
+    assertEquals("{\"final\":false,\"durationMs\":1500,\"pixelEvents\":6,"
+        + "\"lastStep\":\"payment_info_submitted\",\"completed\":false,\"steps\":["
+        + "{\"name\":\"checkout_started\",\"count\":1,\"firstReachedAt\":1100,\"msSinceStart\":0,"
+        + "\"msSincePreviousStep\":null},"
+        + "{\"name\":\"checkout_contact_info_submitted\",\"count\":2,\"firstReachedAt\":1400,\"msSinceStart\":300,"
+        + "\"msSincePreviousStep\":300},"
+        + "{\"name\":\"checkout_address_info_submitted\",\"count\":0,\"firstReachedAt\":null,\"msSinceStart\":null,"
+        + "\"msSincePreviousStep\":null},"
+        + "{\"name\":\"checkout_shipping_info_submitted\",\"count\":0,\"firstReachedAt\":null,\"msSinceStart\":null,"
+        + "\"msSincePreviousStep\":null},"
+        + "{\"name\":\"payment_info_submitted\",\"count\":1,\"firstReachedAt\":2000,\"msSinceStart\":900,"
+        + "\"msSincePreviousStep\":600},"
+        + "{\"name\":\"checkout_completed\",\"count\":0,\"firstReachedAt\":null,\"msSinceStart\":null,"
+        + "\"msSincePreviousStep\":null}]}",
+        summary);
+  }
+
+  @Test
+  public void testSummaryIsEmittedOnceWhenSessionEnds() {
+    processor.setFunnelOptions(new CheckoutFunnel.Options(true));
+    processor.onWebPixelEvent(standard("checkout_started"));
+    processor.onWebPixelEvent(standard("checkout_completed"));
+
+    processor.onCheckoutCanceled();
+    processor.endSession();
+
+    assertEquals(4, emitted.size());
+    assertTrue(emitted.get(2).startsWith("funnel "));
+    assertTrue(emitted.get(2).contains("\"final\":true,"));
+    assertTrue(emitted.get(2).contains("\"completed\":true,"));
+    assertTrue(emitted.get(3).startsWith("close "));
+  }
+
+  @Test
+  public void testPixelEventsCanStayNative() {
+    processor.setFunnelOptions(new CheckoutFunnel.Options(false));
+
+    processor.onWebPixelEvent(standard("checkout_started"));
+    processor.onWebPixelEvent(standard("page_viewed"));
+
+    assertTrue(emitted.isEmpty());
+  }
+
+  @Test
+  public void testSummaryOnDemand() throws Exception {
+    assertNull(processor.getFunnelSummary());
+
+    processor.setFunnelOptions(new CheckoutFunnel.Options(true));
+    processor.onWebPixelEvent(standard("checkout_started"));
+
+    String summary = processor.getFunnelSummary();
+    assertTrue(summary.startsWith("{\"final\":false,"));
+    assertTrue(summary.contains("\"lastStep\":\"checkout_started\""));
+  }
+
+  @Test
+  public void testNoSummaryWhenFunnelIsOff() {
+    processor.onCheckoutCanceled();
+
+    assertEquals(1, emitted.size());
+    assertTrue(emitted.get(0).startsWith("close "));
+  }
+
+  @Test
+  public void testOptionsFromConfig() {
+    JavaOnlyMap config = new JavaOnlyMap();
+    assertTrue(CheckoutFunnel.Options.fromConfig(config).forwardPixelEvents);
+
+    config.putBoolean("forwardPixelEvents", false);
+    assertFalse(CheckoutFunnel.Options.fromConfig(config).forwardPixelEvents);
+
+    JavaOnlyMap disabled = new JavaOnlyMap();
+    disabled.putBoolean("enabled", false);
+    assertNull(CheckoutFunnel.Options.fromConfig(disabled));
+  }
+
+  // Private
+
+  private static StandardPixelEvent standard(String name) {
+    return new StandardPixelEvent("sh-" + name, name, "2024-05-14T18:34:58.000Z", EventType.STANDARD, null, null);
+  }
+
+  private static CustomPixelEvent custom(String name) {
+    return new CustomPixelEvent("sh-" + name, name, "2024-05-14T18:34:58.000Z", EventType.CUSTOM, null, null);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CheckoutLogTest {
+  private final CheckoutLog log = new CheckoutLog(3, 1_000, CheckoutLog.NONE);
+
+  @Test
+  public void testRecordsMessages() {
+    log.log(CheckoutLog.ERROR, "emit.pixel", "Error processing pixel event", new IOException("boom"), 10);
+
+    List<CheckoutLog.Entry> entries = log.getEntries();
+    assertEquals(1, entries.size());
+    assertEquals(10, entries.get(0).timestamp);
+    assertEquals("emit.pixel", entries.get(0).key);
+    assertEquals("java.io.IOException: boom", entries.get(0).error);
+    assertEquals(0, entries.get(0).suppressed);
+  }
+
+  @Test
+  public void testRepeatsWithinIntervalAreCountedNotRecorded() {
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 0);
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 200);
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 999);
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 1_000);
+
+    List<CheckoutLog.Entry> entries = log.getEntries();
+    assertEquals(2, entries.size());
+    assertEquals(0, entries.get(0).suppressed);
+    assertEquals(2, entries.get(1).suppressed);
+    assertNull(entries.get(1).error);
+  }
+
+  @Test
+  public void testKeysAreRateLimitedIndependently() {
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 0);
+    log.log(CheckoutLog.ERROR, "emit.close", "Error emitting close", null, 1);
+
+    assertEquals(2, log.getEntries().size());
+  }
+
+  @Test
+  public void testLeastRecentlyLoggedKeyIsEvicted() {
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 0);
+    for (int i = 1; i < CheckoutLog.MAX_KEYS; i++) {
+      log.log(CheckoutLog.INFO, "key." + i, "message " + i, null, 0);
+    }
+    // Suppressed, but makes config.color the most recently used key
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 1);
+    log.log(CheckoutLog.INFO, "key.overflow", "overflow", null, 2);
+
+    // config.color kept its state, so it is still rate limited
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color", null, 3);
+    assertEquals("overflow", lastEntry().message);
+
+    // key.1 was evicted, so it is recorded again right away
+    log.log(CheckoutLog.INFO, "key.1", "message 1 again", null, 4);
+    assertEquals("message 1 again", lastEntry().message);
+  }
+
+  @Test
+  public void testOldestEntriesAreOverwritten() {
+    for (int i = 0; i < 5; i++) {
+      log.log(CheckoutLog.INFO, "key." + i, "message " + i, null, i);
+    }
+
+    List<CheckoutLog.Entry> entries = log.getEntries();
+    assertEquals(3, entries.size());
+    assertEquals("message 2", entries.get(0).message);
+    assertEquals("message 4", entries.get(2).message);
+  }
+
+  @Test
+  public void testArgumentsAreOnlyFormattedWhenRecorded() {
+    AtomicInteger formatted = new AtomicInteger();
+    Object color = new Object() {
+      @Override
+      public String toString() {
+        formatted.incrementAndGet();
+        return "#GG0000";
+      }
+    };
+
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color string \"%s\"", new Object[] {color}, null, 0);
+    log.log(CheckoutLog.WARN, "config.color", "Invalid color string \"%s\"", new Object[] {color}, null, 500);
+
+    assertEquals(1, formatted.get());
+    assertEquals("Invalid color string \"#GG0000\"", lastEntry().message);
+  }
+
+  @Test
+  public void testMessagesWithoutArgumentsAreNotFormatted() {
+    log.log(CheckoutLog.WARN, "config.color", "100% opaque", null, 0);
+
+    assertEquals("100% opaque", lastEntry().message);
+  }
+
+  @Test
+  public void testLogcatLevelFollowsDebuggableUntilConfigured() {
+    log.setDebuggable(true);
+    assertEquals(CheckoutLog.WARN, log.getLogcatLevel());
+
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putString("logcatLevel", "error");
+    log.configure(config);
+    log.setDebuggable(false);
+    assertEquals(CheckoutLog.ERROR, log.getLogcatLevel());
+
+    log.configure(null);
+    assertEquals(CheckoutLog.NONE, log.getLogcatLevel());
+  }
+
+  // Private
+
+  private CheckoutLog.Entry lastEntry() {
+    List<CheckoutLog.Entry> entries = log.getEntries();
+    return entries.get(entries.size() - 1);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class CheckoutSessionRegistryTest {
+  private final List<String> emitted = new ArrayList<>();
+  private BenchmarkFixtures.SinkEmitter emitter;
+  private CheckoutSessionRegistry registry;
+
+  @Before
+  public void setup() {
+    emitter = new BenchmarkFixtures.SinkEmitter((eventName, data) -> emitted.add(eventName + " " + data));
+    registry = new CheckoutSessionRegistry();
+  }
+
+  @Test
+  public void testRegisteredProcessorBecomesActive() {
+    CustomCheckoutEventProcessor first = BenchmarkFixtures.processor(emitter);
+    CustomCheckoutEventProcessor second = BenchmarkFixtures.processor(emitter);
+
+    registry.register(first);
+    registry.register(second);
+
+    assertSame(second, registry.getActive());
+    assertSame(first, registry.get(first.getSessionId()));
+    assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void testProcessorIsRemovedWhenCheckoutCloses() {
+    CustomCheckoutEventProcessor processor = BenchmarkFixtures.processor(emitter);
+    registry.register(processor);
+
+    processor.onCheckoutCanceled();
+
+    assertTrue(processor.isSessionEnded());
+    assertNull(registry.get(processor.getSessionId()));
+    assertNull(registry.getActive());
+    assertSame(processor, registry.getLastEnded());
+    assertTrue(emitted.get(0).startsWith("close {\"sessionId\":\"" + processor.getSessionId() + "\","));
+    assertTrue(emitted.get(0).endsWith(",\"payload\":null}"));
+  }
+
+  @Test
+  public void testEndingAnEarlierSessionKeepsTheActiveOne() {
+    CustomCheckoutEventProcessor first = BenchmarkFixtures.processor(emitter);
+    CustomCheckoutEventProcessor second = BenchmarkFixtures.processor(emitter);
+    registry.register(first);
+    registry.register(second);
+
+    first.onCheckoutCanceled();
+
+    assertSame(second, registry.getActive());
+    assertEquals(1, registry.size());
+    assertTrue(emitted.get(0).contains("\"sessionId\":\"" + first.getSessionId() + "\""));
+  }
+
+  @Test
+  public void testOldestSessionsAreEndedWhenOverCapacity() {
+    List<CustomCheckoutEventProcessor> processors = new ArrayList<>();
+    for (int i = 0; i < CheckoutSessionRegistry.MAX_SESSIONS + 2; i++) {
+      CustomCheckoutEventProcessor processor = BenchmarkFixtures.processor(emitter);
+      processors.add(processor);
+      registry.register(processor);
+    }
+
+    assertEquals(CheckoutSessionRegistry.MAX_SESSIONS, registry.size());
+    assertTrue(processors.get(0).isSessionEnded());
+    assertTrue(processors.get(1).isSessionEnded());
+    assertFalse(processors.get(2).isSessionEnded());
+    assertNull(registry.get(processors.get(0).getSessionId()));
+  }
+
+  @Test
+  public void testEndSessionIsIdempotent() {
+    CustomCheckoutEventProcessor processor = BenchmarkFixtures.processor(emitter);
+    int[] notified = { 0 };
+    processor.setSessionListener(ended -> notified[0]++);
+
+    processor.endSession();
+    processor.endSession();
+
+    assertEquals(1, notified[0]);
+  }
+
+  @Test
+  public void testSessionIdsAreRandomUuids() {
+    String first = BenchmarkFixtures.processor(emitter).getSessionId();
+    String second = BenchmarkFixtures.processor(emitter).getSessionId();
+
+    // Parses, or throws for anything that is not a UUID
+    assertEquals(first, UUID.fromString(first).toString());
+    assertFalse(first.equals(second));
+  }
+}
@@ -0,0 +1,222 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reopens journals on a temporary file, as the module does after a restart.
+ */
+public class CompletedEventJournalTest {
+  private ScheduledExecutorService executor;
+  private File dir;
+  private File file;
+
+  @Before
+  public void setup() throws IOException {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    dir = Files.createTempDirectory("completed-journal").toFile();
+    file = new File(dir, CompletedEventJournal.FILE_NAME);
+  }
+
+  @After
+  public void teardown() {
+    executor.shutdownNow();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  @Test
+  public void testUnacknowledgedEntriesSurviveReopening() throws Exception {
+    CompletedEventJournal journal = journal(10);
+    journal.append("a", "{\"sequence\":1}");
+    journal.append("b", "{\"sequence\":2}");
+    journal.append("c", "{\"sequence\":3}");
+    assertTrue(journal.ack("b"));
+    awaitWrites();
+
+    assertEquals(Arrays.asList("{\"sequence\":1}", "{\"sequence\":3}"), journal(10).getPending());
+  }
+
+  @Test
+  public void testAckingEverythingTruncatesFile() throws Exception {
+    CompletedEventJournal journal = journal(10);
+    journal.append("a", "{}");
+    awaitWrites();
+    assertTrue(file.length() > 0);
+
+    assertTrue(journal.ack("a"));
+    assertFalse(journal.ack("a"));
+    awaitWrites();
+
+    assertEquals(0, file.length());
+    assertEquals(Collections.emptyList(), journal(10).getPending());
+  }
+
+  @Test
+  public void testOldestEntryIsDroppedPastMaxEntries() throws Exception {
+    CompletedEventJournal journal = journal(2);
+    journal.append("a", "1");
+    journal.append("b", "2");
+    journal.append("c", "3");
+    awaitWrites();
+
+    assertEquals(Arrays.asList("2", "3"), journal.getPending());
+    assertEquals(Arrays.asList("2", "3"), journal(2).getPending());
+  }
+
+  @Test
+  public void testIncompleteLastLineIsIgnored() throws Exception {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write("+a\t{\"sequence\":1}\n+b\t{\"seq".getBytes("UTF-8"));
+    }
+
+    CompletedEventJournal journal = journal(10);
+    assertEquals(Collections.singletonList("{\"sequence\":1}"), journal.getPending());
+
+    // Reopening rewrote the file, so new entries start on their own line
+    journal.append("c", "{\"sequence\":3}");
+    awaitWrites();
+    assertEquals(Arrays.asList("{\"sequence\":1}", "{\"sequence\":3}"), journal(10).getPending());
+  }
+
+  @Test
+  public void testAppendWritesOnTheExecutorBeforeCallingBack() throws Exception {
+    CompletedEventJournal journal = journal(10);
+    CountDownLatch blocked = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    long[] writtenLength = { -1 };
+    journal.append("a", "{}", () -> writtenLength[0] = file.length());
+    // The caller does not wait for the disk
+    assertEquals(Collections.singletonList("{}"), journal.getPending());
+    assertEquals(0, file.length());
+
+    blocked.countDown();
+    awaitWrites();
+    assertTrue(writtenLength[0] > 0);
+  }
+
+  @Test
+  public void testFileIsReadOnTheExecutor() throws Exception {
+    CompletedEventJournal previous = journal(10);
+    previous.append("a", "{\"sequence\":1}");
+    awaitWrites();
+
+    CountDownLatch blocked = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    CompletedEventJournal journal = new CompletedEventJournal(file, 10, executor);
+    journal.append("b", "{\"sequence\":2}");
+    // The caller does not wait for the file to be read
+    assertEquals(Collections.singletonList("{\"sequence\":2}"), journal.getPending());
+
+    List<List<String>> afterOpen = new ArrayList<>();
+    journal.afterOpen(() -> afterOpen.add(journal.getPending()));
+    blocked.countDown();
+    awaitWrites();
+
+    List<String> expected = Arrays.asList("{\"sequence\":1}", "{\"sequence\":2}");
+    assertEquals(Collections.singletonList(expected), afterOpen);
+    assertEquals(expected, journal(10).getPending());
+  }
+
+  @Test
+  public void testRedeliveredEnvelopesAreMarked() throws Exception {
+    CompletedEventJournal journal = journal(10);
+    journal.append("a", "{\"sessionId\":\"1\",\"sequence\":1,\"payload\":{}}");
+
+    List<String> redelivered = journal.redeliver();
+
+    assertEquals(
+        Collections.singletonList("{\"redelivered\":true,\"sessionId\":\"1\",\"sequence\":1,\"payload\":{}}"),
+        redelivered);
+    // The journal keeps the envelope as it was first emitted
+    assertEquals(Collections.singletonList("{\"sessionId\":\"1\",\"sequence\":1,\"payload\":{}}"),
+        journal.getPending());
+  }
+
+  @Test
+  public void testIdsAreUniqueAcrossJournals() throws Exception {
+    String first = journal(10).nextId();
+    Thread.sleep(2);
+    String second = journal(10).nextId();
+
+    assertNotEquals(first, second);
+  }
+
+  // Private
+
+  private void awaitWrites() throws Exception {
+    executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Opens a journal and waits until it has read the file back.
+   */
+  private CompletedEventJournal journal(int maxEntries) throws Exception {
+    CompletedEventJournal journal = new CompletedEventJournal(file, maxEntries, executor);
+    awaitWrites();
+    return journal;
+  }
+}
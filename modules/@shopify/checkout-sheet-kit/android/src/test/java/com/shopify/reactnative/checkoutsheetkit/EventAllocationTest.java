@@ -0,0 +1,124 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.shopify.checkoutsheetkit.lifecycleevents.CheckoutCompletedEvent;
+import com.shopify.checkoutsheetkit.pixelevents.PixelEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Guards the per-event allocation of the emit path. The payload String handed
+ * to the bridge is unavoidable; everything else (writers, generators, output
+ * buffers, intermediate maps) must stay within a small fixed overhead.
+ *
+ * Allocation is read from HotSpot's per-thread allocation counter, so the
+ * test is skipped on JVMs that do not expose it.
+ */
+public class EventAllocationTest {
+  private static final int WARMUP_EVENTS = 20_000;
+  private static final int MEASURED_EVENTS = 2_000;
+
+  // Fixed allowance per event on top of the payload String itself. Covers
+  // Jackson's per-call serializer provider and number formatting.
+  private static final long OVERHEAD_BUDGET_BYTES = 2_048;
+
+  private Object threadBean;
+  private Method allocatedBytes;
+  private int lastPayloadLength;
+  private CustomCheckoutEventProcessor processor;
+
+  @Before
+  public void setup() {
+    try {
+      Object bean = Class.forName("java.lang.management.ManagementFactory")
+          .getMethod("getThreadMXBean")
+          .invoke(null);
+      Method method = Class.forName("com.sun.management.ThreadMXBean")
+          .getMethod("getThreadAllocatedBytes", long.class);
+      threadBean = bean;
+      allocatedBytes = method;
+    } catch (Exception e) {
+      threadBean = null;
+    }
+    assumeTrue("Thread allocation counters are not available on this JVM", threadBean != null);
+
+    processor = BenchmarkFixtures.processor(new BenchmarkFixtures.SinkEmitter(
+        (eventName, data) -> lastPayloadLength = ((String) data).length()));
+  }
+
+  @Test
+  public void testStandardPixelEventStaysWithinAllocationBudget() throws Exception {
+    PixelEvent event = BenchmarkFixtures.standardPixelEvent();
+    assertWithinBudget("standard pixel", () -> processor.onWebPixelEvent(event));
+  }
+
+  @Test
+  public void testCustomPixelEventStaysWithinAllocationBudget() throws Exception {
+    PixelEvent event = BenchmarkFixtures.customPixelEvent();
+    assertWithinBudget("custom pixel", () -> processor.onWebPixelEvent(event));
+  }
+
+  @Test
+  public void testCheckoutCompletedEventStaysWithinAllocationBudget() throws Exception {
+    CheckoutCompletedEvent event = BenchmarkFixtures.checkoutCompletedEvent();
+    assertWithinBudget("checkout completed", () -> processor.onCheckoutCompleted(event));
+  }
+
+  // Private
+
+  private void assertWithinBudget(String name, Runnable emit) throws Exception {
+    for (int i = 0; i < WARMUP_EVENTS; i++) {
+      emit.run();
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long before = (Long) allocatedBytes.invoke(threadBean, threadId);
+    for (int i = 0; i < MEASURED_EVENTS; i++) {
+      emit.run();
+    }
+    long after = (Long) allocatedBytes.invoke(threadBean, threadId);
+
+    long perEvent = (after - before) / MEASURED_EVENTS;
+    long budget = payloadStringBytes(lastPayloadLength) + OVERHEAD_BUDGET_BYTES;
+    assertTrue(String.format(Locale.ROOT,
+        "%s event allocated %d bytes, budget is %d (payload of %d chars plus %d)",
+        name, perEvent, budget, lastPayloadLength, OVERHEAD_BUDGET_BYTES), perEvent <= budget);
+  }
+
+  /**
+   * Upper bound for a String of the given length: UTF-16 storage plus object
+   * headers. Compact strings on newer JVMs only need half of this.
+   */
+  private static long payloadStringBytes(int length) {
+    return 2L * length + 64;
+  }
+}
@@ -0,0 +1,282 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Runs the sink against a local HTTP server.
+ */
+public class PixelEventSinkTest {
+  private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile int status = 200;
+
+  private HttpServer server;
+  private ScheduledExecutorService executor;
+  private File spillDir;
+
+  @Before
+  public void setup() throws IOException {
+    // Failed sends log from the sink's executor, and android.util.Log is not
+    // available on the host JVM
+    JavaOnlyMap logs = new JavaOnlyMap();
+    logs.putString("logcatLevel", "none");
+    CheckoutLog.getInstance().configure(logs);
+
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/pixels", exchange -> {
+      requests.incrementAndGet();
+      String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+      String body = "gzip".equals(encoding) ? gunzip(exchange.getRequestBody()) : "";
+      int responseStatus = status;
+      if (responseStatus >= 200 && responseStatus < 300) {
+        received.add(body);
+      }
+      exchange.sendResponseHeaders(responseStatus, -1);
+      exchange.close();
+    });
+    server.start();
+
+    executor = Executors.newSingleThreadScheduledExecutor();
+    spillDir = Files.createTempDirectory("pixel-sink").toFile();
+  }
+
+  @After
+  public void teardown() {
+    CheckoutLog.getInstance().configure(null);
+    server.stop(0);
+    executor.shutdownNow();
+    File[] files = spillDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    spillDir.delete();
+  }
+
+  @Test
+  public void testFullBatchIsSentGzipped() throws Exception {
+    PixelEventSink sink = sink(2, 3);
+
+    sink.offer("{\"name\":\"first\"}");
+    sink.offer("{\"name\":\"second\"}");
+
+    String body = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    assertTrue(body.startsWith("{\"sentAt\":"));
+    assertTrue(body.endsWith(",\"events\":[{\"name\":\"first\"},{\"name\":\"second\"}]}"));
+  }
+
+  @Test
+  public void testFlushSendsPartialBatch() throws Exception {
+    PixelEventSink sink = sink(10, 3);
+
+    sink.offer("{\"name\":\"first\"}");
+    sink.flush();
+
+    String body = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    assertTrue(body.endsWith("\"events\":[{\"name\":\"first\"}]}"));
+  }
+
+  @Test
+  public void testServerErrorIsRetried() throws Exception {
+    status = 503;
+    PixelEventSink sink = sink(1, 3);
+
+    sink.offer("{\"name\":\"first\"}");
+    awaitRequests(1);
+    status = 200;
+
+    String body = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    assertTrue(body.contains("{\"name\":\"first\"}"));
+    assertTrue(requests.get() >= 2);
+  }
+
+  @Test
+  public void testClientErrorIsNotRetried() throws Exception {
+    status = 400;
+    PixelEventSink sink = sink(1, 3);
+
+    sink.offer("{\"name\":\"first\"}");
+    awaitRequests(1);
+    Thread.sleep(100);
+
+    assertEquals(1, requests.get());
+    assertEquals(0, spillDir.listFiles().length);
+  }
+
+  @Test
+  public void testBatchesSpillWhileEndpointIsDownAndAreSentLater() throws Exception {
+    status = 503;
+    PixelEventSink sink = sink(1, 0);
+
+    sink.offer("{\"name\":\"first\"}");
+    awaitRequests(1);
+    awaitSpilledFiles(1);
+
+    status = 200;
+    sink.offer("{\"name\":\"second\"}");
+
+    String first = received.poll(5, TimeUnit.SECONDS);
+    String second = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(first);
+    assertNotNull(second);
+    assertTrue(first.contains("{\"name\":\"second\"}"));
+    assertTrue(second.contains("{\"name\":\"first\"}"));
+    awaitSpilledFiles(0);
+  }
+
+  @Test
+  public void testSpilledBatchesAreSentByNextSink() throws Exception {
+    status = 503;
+    PixelEventSink sink = sink(1, 0);
+    sink.offer("{\"name\":\"first\"}");
+    awaitSpilledFiles(1);
+    sink.close();
+
+    status = 200;
+    executor = Executors.newSingleThreadScheduledExecutor();
+    sink(1, 0);
+
+    String body = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    assertTrue(body.contains("{\"name\":\"first\"}"));
+  }
+
+  @Test
+  public void testReplacementSinkReplaysOnlyAfterPreviousSinkFinished() throws Exception {
+    status = 503;
+    PixelEventSink previous = sink(1, 0);
+    previous.offer("{\"name\":\"first\"}");
+    awaitSpilledFiles(1);
+
+    // Keep the previous sink's thread busy, as if a request were in flight
+    CountDownLatch inFlight = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        inFlight.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    status = 200;
+    ScheduledExecutorService previousExecutor = executor;
+    executor = Executors.newSingleThreadScheduledExecutor();
+    sink(1, 0, previous);
+    previous.close();
+
+    Thread.sleep(100);
+    assertEquals(0, received.size());
+
+    inFlight.countDown();
+    String body = received.poll(5, TimeUnit.SECONDS);
+    assertNotNull(body);
+    assertTrue(body.contains("{\"name\":\"first\"}"));
+    assertTrue(previousExecutor.isTerminated());
+  }
+
+  @Test
+  public void testFromConfigRejectsInvalidUrl() {
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putString("url", "ftp://example.com/pixels");
+
+    assertNull(PixelEventSink.fromConfig(config, spillDir));
+  }
+
+  // Private
+
+  private PixelEventSink sink(int batchSize, int maxAttempts) throws IOException {
+    return sink(batchSize, maxAttempts, null);
+  }
+
+  private PixelEventSink sink(int batchSize, int maxAttempts, PixelEventSink previous) throws IOException {
+    URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/pixels");
+    CheckoutRetryPolicy retryPolicy = new CheckoutRetryPolicy(maxAttempts, 10, 20, 2.0, 0, Collections.emptySet(),
+        Collections.emptySet(), new Random(0));
+    return new PixelEventSink(url, Collections.emptyMap(), batchSize, 60_000, retryPolicy, spillDir,
+        PixelEventSink.DEFAULT_MAX_SPILL_BYTES, false, executor, previous);
+  }
+
+  private void awaitRequests(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (requests.get() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(requests.get() >= count);
+  }
+
+  private void awaitSpilledFiles(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (spillDir.listFiles().length != count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, spillDir.listFiles().length);
+  }
+
+  private static String gunzip(InputStream body) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(body)) {
+      byte[] buffer = new byte[512];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+    }
+    return new String(bytes.toByteArray(), "UTF-8");
+  }
+}
@@ -0,0 +1,130 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopify.checkoutsheetkit.pixelevents.EventType;
+import com.shopify.checkoutsheetkit.pixelevents.StandardPixelEvent;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import java.io.StringWriter;
+
+public class PixelSamplingPolicyTest {
+  private static final int SESSIONS = 20_000;
+
+  @Test
+  public void testPositionIsDeterministicPerSessionKey() {
+    String key = "3f2b8c1e-6d4a-4f7e-9b2c-0a1d5e6f7a8b";
+
+    assertEquals(PixelSamplingPolicy.position(key), PixelSamplingPolicy.position(key), 0.0);
+    assertTrue(PixelSamplingPolicy.position(key) != PixelSamplingPolicy.position(key + "4"));
+  }
+
+  @Test
+  public void testKeptFractionMatchesRate() {
+    int kept = 0;
+    for (int i = 0; i < SESSIONS; i++) {
+      double position = PixelSamplingPolicy.position(UUID.randomUUID().toString());
+      assertTrue(position >= 0.0 && position < 1.0);
+      if (PixelSamplingPolicy.keeps(position, 0.25)) {
+        kept++;
+      }
+    }
+
+    assertEquals(0.25, kept / (double) SESSIONS, 0.02);
+  }
+
+  @Test
+  public void testSessionsKeptAtLowRateAreKeptAtHigherRates() {
+    for (int i = 0; i < SESSIONS; i++) {
+      double position = PixelSamplingPolicy.position("session-" + i);
+      if (PixelSamplingPolicy.keeps(position, 0.1)) {
+        assertTrue(PixelSamplingPolicy.keeps(position, 0.5));
+      }
+    }
+  }
+
+  @Test
+  public void testRateBoundsKeepAllOrNothing() {
+    double position = PixelSamplingPolicy.position("session");
+
+    assertTrue(PixelSamplingPolicy.keeps(position, 1.0));
+    assertFalse(PixelSamplingPolicy.keeps(position, 0.0));
+  }
+
+  @Test
+  public void testFromConfigUsesRatePerEventName() {
+    JavaOnlyMap rates = JavaOnlyMap.of("page_viewed", 0.1, "checkout_completed", 2.0);
+    PixelSamplingPolicy policy = PixelSamplingPolicy.fromConfig(
+        JavaOnlyMap.of("rates", rates, "defaultRate", 0.5));
+
+    assertEquals(0.1, policy.rateFor("page_viewed"), 0.0);
+    assertEquals(1.0, policy.rateFor("checkout_completed"), 0.0);
+    assertEquals(0.5, policy.rateFor("product_added_to_cart"), 0.0);
+    assertEquals(0.5, policy.rateFor(null), 0.0);
+  }
+
+  @Test
+  public void testFromConfigCanBeDisabled() {
+    assertNull(PixelSamplingPolicy.fromConfig(null));
+    assertNull(PixelSamplingPolicy.fromConfig(JavaOnlyMap.of("enabled", false)));
+    assertEquals(1.0, PixelSamplingPolicy.fromConfig(new JavaOnlyMap()).rateFor("page_viewed"), 0.0);
+  }
+
+  @Test
+  public void testSampledEventsCarryTheirRate() throws Exception {
+    StandardPixelEvent event = new StandardPixelEvent("id", "page_viewed", "2024-01-01", EventType.STANDARD, null,
+        null);
+
+    assertEquals(
+        "{\"id\":\"id\",\"name\":\"page_viewed\",\"timestamp\":\"2024-01-01\",\"type\":\"STANDARD\","
+            + "\"sampleRate\":0.25,\"context\":null,\"data\":null}",
+        write(event, 0.25));
+    assertEquals(
+        "{\"id\":\"id\",\"name\":\"page_viewed\",\"timestamp\":\"2024-01-01\",\"type\":\"STANDARD\","
+            + "\"context\":null,\"data\":null}",
+        write(event, 1.0));
+  }
+
+  // Helpers
+
+  private static String write(StandardPixelEvent event, double sampleRate) throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+      CheckoutEventSerializers.writePixelEvent(generator, mapper, event, null, sampleRate);
+    }
+    return writer.toString();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+MIT License
+
+Copyright 2023 - Present, Shopify Inc.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+
+package com.shopify.reactnative.checkoutsheetkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+public class WritableEventMapsTest {
+  private MockedStatic<Arguments> arguments;
+
+  @Before
+  public void setup() {
+    // Arguments loads the native bridge; plain Java maps stand in for it
+    arguments = Mockito.mockStatic(Arguments.class);
+    arguments.when(Arguments::createMap).thenAnswer(invocation -> new JavaOnlyMap());
+    arguments.when(Arguments::createArray).thenAnswer(invocation -> new JavaOnlyArray());
+  }
+
+  @After
+  public void teardown() {
+    arguments.close();
+  }
+
+  @Test
+  public void testEnvelopeIsConvertedToNestedMaps() throws Exception {
+    ReadableMap event = WritableEventMaps.fromJson("{\"sessionId\":\"s-1\",\"sequence\":3,"
+        + "\"emittedAt\":1715711704000,\"journalId\":\"j-1\",\"payload\":{\"orderDetails\":"
+        + "{\"id\":\"1\",\"lines\":[{\"quantity\":2,\"price\":35.5}],\"phone\":null}}}");
+
+    assertEquals("s-1", event.getString("sessionId"));
+    assertEquals(3, event.getDouble("sequence"), 0);
+    assertEquals(1715711704000d, event.getDouble("emittedAt"), 0);
+    assertEquals("j-1", event.getString("journalId"));
+
+    ReadableMap orderDetails = event.getMap("payload").getMap("orderDetails");
+    assertEquals("1", orderDetails.getString("id"));
+    assertTrue(orderDetails.isNull("phone"));
+    ReadableArray lines = orderDetails.getArray("lines");
+    assertEquals(1, lines.size());
+    assertEquals(35.5, lines.getMap(0).getDouble("price"), 0);
+  }
+
+  @Test
+  public void testNullPayloadIsKept() throws Exception {
+    ReadableMap event = WritableEventMaps.fromJson("{\"sessionId\":\"s-1\",\"redelivered\":false,\"payload\":null}");
+
+    assertTrue(event.hasKey("payload"));
+    assertTrue(event.isNull("payload"));
+    assertFalse(event.getBoolean("redelivered"));
+  }
+}
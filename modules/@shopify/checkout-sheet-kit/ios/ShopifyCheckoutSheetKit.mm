@@ -33,12 +33,15 @@ SOFTWARE.
 // Method declarations (`RCT_EXTERN_METHOD`) are intentionally absent for most
 // methods: the codegen-generated `NativeShopifyCheckoutSheetKitSpecJSI` invokes
 // each method via its `@objc` selector directly (see ShopifyCheckoutSheetKit.swift).
-// `setConfig` is declared so ObjCTurboModule sees the Swift selector's
-// NSDictionary argument and does not apply codegen's C++ struct conversion before
-// invoking Swift.
+// `setConfig` and `presentCheckout` are declared so ObjCTurboModule sees the
+// Swift selectors' NSDictionary arguments and does not apply codegen's C++
+// struct conversion before invoking Swift.
 @interface RCT_EXTERN_MODULE (RCTShopifyCheckoutSheetKit, NativeShopifyCheckoutSheetKitSpecBase)
 
 RCT_EXTERN_METHOD(setConfig:(NSDictionary *)configuration)
+RCT_EXTERN_METHOD(presentCheckout:(NSDictionary *)request
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
 
 @end
 
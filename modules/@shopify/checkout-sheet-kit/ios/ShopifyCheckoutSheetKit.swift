@@ -153,6 +153,53 @@ class RCTShopifyCheckoutSheetKit: RCTEventEmitter, CheckoutDelegate {
         }
     }
 
+    /// Applies configuration overrides and then presents or preloads the
+    /// checkout in one call. Resolves once the sheet has been presented.
+    /// Events are not tagged with session ids on iOS, so `sessionId` is null.
+    @objc func presentCheckout(
+        _ request: [AnyHashable: Any],
+        resolve: @escaping RCTPromiseResolveBlock,
+        reject: @escaping RCTPromiseRejectBlock
+    ) {
+        let start = CACurrentMediaTime()
+        guard let checkoutURL = request["url"] as? String, let url = URL(string: checkoutURL) else {
+            reject("invalid_request", "presentCheckout requires a checkout URL", nil)
+            return
+        }
+
+        var timings: [String: Double] = [:]
+        if let configuration = request["config"] as? [AnyHashable: Any] {
+            let configureStart = CACurrentMediaTime()
+            setConfig(configuration)
+            timings["configureMs"] = (CACurrentMediaTime() - configureStart) * 1000
+        }
+        let config = getConfig()
+        let preloadOnly = request["preloadOnly"] as? Bool ?? false
+
+        DispatchQueue.main.async {
+            let stepStart = CACurrentMediaTime()
+            var presented = false
+            if preloadOnly {
+                ShopifyCheckoutSheetKit.preload(checkout: url)
+                timings["preloadMs"] = (CACurrentMediaTime() - stepStart) * 1000
+            } else if let viewController = self.getCurrentViewController() {
+                let view = CheckoutViewController(checkout: url, delegate: self)
+                viewController.present(view, animated: true)
+                self.checkoutSheet = view
+                presented = true
+                timings["presentMs"] = (CACurrentMediaTime() - stepStart) * 1000
+            }
+            timings["totalMs"] = (CACurrentMediaTime() - start) * 1000
+
+            resolve([
+                "sessionId": NSNull(),
+                "presented": presented,
+                "config": config,
+                "timings": timings
+            ])
+        }
+    }
+
     @objc func preload(_ checkoutURL: String) {
         DispatchQueue.main.async {
             if let url = URL(string: checkoutURL) {
@@ -292,10 +339,61 @@ class RCTShopifyCheckoutSheetKit: RCTEventEmitter, CheckoutDelegate {
         return NSNumber(value: available)
     }
 
-    @objc func initiateGeolocationRequest(_ allow: Bool) {
+    @objc func initiateGeolocationRequest(_ allow: Bool, requestId: String?, origin: String?) {
         // No-op on iOS — geolocation permission is handled natively
     }
 
+    @objc func getMetrics(_ reset: Bool) -> NSDictionary {
+        // Native metrics are only collected on Android
+        let now = Date().timeIntervalSince1970 * 1000
+        return [
+            "since": now,
+            "timestamp": now,
+            "counters": [:],
+            "gauges": [:],
+            "histograms": [:]
+        ]
+    }
+
+    @objc func dumpNativeLogs(_ clear: Bool) -> NSDictionary {
+        // Native diagnostics are only buffered on Android
+        return [
+            "entries": [],
+            "suppressed": [:]
+        ]
+    }
+
+    @objc func getEventStreamState(_ sessionId: String?) -> NSDictionary? {
+        // Events are not sequence-numbered on iOS
+        return nil
+    }
+
+    @objc func ackEvents(_ count: Double) {
+        // No-op on iOS — pixel flow control is Android only
+    }
+
+    @objc func ackCompletedEvent(_ journalId: String) {
+        // No-op on iOS — completed events are only journaled on Android
+    }
+
+    @objc func redeliverCompletedEvents() {
+        // No-op on iOS — completed events are only journaled on Android
+    }
+
+    @objc func getFunnelSummary(_ sessionId: String?) -> String? {
+        // Funnel aggregation is Android only
+        return nil
+    }
+
+    @objc func getPreloadStats() -> NSDictionary? {
+        // Preload history is only recorded on Android
+        return nil
+    }
+
+    @objc func resetPreloadStats() {
+        // No-op on iOS — preload history is Android only
+    }
+
     // MARK: - Private
 
     @available(iOS 16.0, *)
@@ -23,7 +23,7 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SO
 
 import React, {useCallback, useMemo, useRef, useEffect, useState} from 'react';
 import type {PropsWithChildren} from 'react';
-import {type EmitterSubscription} from 'react-native';
+import {type EventSubscription} from 'react-native';
 import {ShopifyCheckoutSheet} from './index';
 import type {Features} from './index.d';
 import type {
@@ -31,6 +31,8 @@ import type {
   RemoveEventListeners,
   CheckoutEvent,
   Configuration,
+  PresentCheckoutOptions,
+  PresentCheckoutResult,
 } from './index.d';
 
 type Maybe<T> = T | undefined;
@@ -43,6 +45,10 @@ interface Context {
   removeEventListeners: RemoveEventListeners;
   preload: (checkoutUrl: string) => void;
   present: (checkoutUrl: string) => void;
+  presentCheckout: (
+    checkoutUrl: string,
+    options?: PresentCheckoutOptions,
+  ) => Promise<Maybe<PresentCheckoutResult>>;
   dismiss: () => void;
   invalidate: () => void;
   version: Maybe<string>;
@@ -92,7 +98,7 @@ export function ShopifyCheckoutSheetProvider({
   }, [configuration]);
 
   const addEventListener: AddEventListener = useCallback(
-    (eventName, callback): EmitterSubscription | undefined => {
+    (eventName, callback): EventSubscription | undefined => {
       return instance.current?.addEventListener(eventName, callback);
     },
     [],
@@ -108,6 +114,17 @@ export function ShopifyCheckoutSheetProvider({
     }
   }, []);
 
+  const presentCheckout = useCallback(
+    async (checkoutUrl: string, options?: PresentCheckoutOptions) => {
+      if (checkoutUrl) {
+        return instance.current?.presentCheckout(checkoutUrl, options);
+      }
+
+      return undefined;
+    },
+    [],
+  );
+
   const preload = useCallback((checkoutUrl: string) => {
     if (checkoutUrl) {
       instance.current?.preload(checkoutUrl);
@@ -139,6 +156,7 @@ export function ShopifyCheckoutSheetProvider({
       getConfig,
       preload,
       present,
+      presentCheckout,
       invalidate,
       removeEventListeners,
       version: instance.current?.version,
@@ -152,6 +170,7 @@ export function ShopifyCheckoutSheetProvider({
     setConfig,
     preload,
     present,
+    presentCheckout,
     invalidate,
   ]);
 
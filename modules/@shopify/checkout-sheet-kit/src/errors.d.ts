@@ -56,6 +56,11 @@ type BridgeError = {
   code: CheckoutErrorCode;
   message: string;
   recoverable: boolean;
+  /**
+   * Android only. Number of native retries made before this failure was
+   * reported, when an `errorRetry` policy is configured.
+   */
+  retryAttempts?: number;
 };
 
 export type CheckoutNativeError =
@@ -66,11 +71,13 @@ class GenericErrorWithCode {
   message: string;
   recoverable: boolean;
   code: CheckoutErrorCode;
+  retryAttempts?: number;
 
   constructor(exception: CheckoutNativeError) {
     this.code = getCheckoutErrorCode(exception.code);
     this.message = exception.message;
     this.recoverable = exception.recoverable;
+    this.retryAttempts = exception.retryAttempts;
     this.name = this.constructor.name;
   }
 }
@@ -80,12 +87,14 @@ class GenericNetworkError {
   message: string;
   recoverable: boolean;
   statusCode: number;
+  retryAttempts?: number;
 
   constructor(exception: CheckoutNativeError) {
     this.code = getCheckoutErrorCode(exception.code);
     this.statusCode = exception.statusCode;
     this.message = exception.message;
     this.recoverable = exception.recoverable;
+    this.retryAttempts = exception.retryAttempts;
     this.name = this.constructor.name;
   }
 }
@@ -100,6 +109,7 @@ export class GenericError {
   message?: string;
   recoverable: boolean;
   statusCode?: number;
+  retryAttempts?: number;
   name: string;
 
   constructor(exception?: CheckoutNativeError) {
@@ -108,6 +118,7 @@ export class GenericError {
     this.name = this.constructor.name;
     this.recoverable = exception?.recoverable ?? false;
     this.statusCode = exception?.statusCode;
+    this.retryAttempts = exception?.retryAttempts;
   }
 }
 
@@ -115,11 +126,13 @@ export class InternalError {
   code: CheckoutErrorCode;
   message: string;
   recoverable: boolean;
+  retryAttempts?: number;
 
   constructor(exception: CheckoutNativeError) {
     this.code = getCheckoutErrorCode(exception.code);
     this.message = exception.message;
     this.recoverable = exception.recoverable;
+    this.retryAttempts = exception.retryAttempts;
   }
 }
 
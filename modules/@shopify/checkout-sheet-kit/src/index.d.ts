@@ -21,10 +21,10 @@ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
 */
 
-import type {EmitterSubscription} from 'react-native';
+import type {EventSubscription} from 'react-native';
 import type {PixelEvent} from './pixels';
 import type {CheckoutCompletedEvent} from './events';
-import type {CheckoutException} from './errors';
+import type {CheckoutException, CheckoutNativeErrorType} from './errors';
 
 export type Maybe<T> = T | undefined;
 
@@ -112,6 +112,439 @@ export interface AndroidAutomaticColors {
   dark: AndroidColors;
 }
 
+/**
+ * Native retry policy for recoverable checkout failures.
+ *
+ * Matching failures are retried with exponential backoff before they reach
+ * JavaScript. Only the final failure emits an `error` event, with the number
+ * of retries made in `retryAttempts`.
+ */
+export interface ErrorRetryPolicy {
+  /**
+   * Set to `false` to disable a previously configured policy.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Maximum number of retries per checkout.
+   * @default 3
+   */
+  maxAttempts?: number;
+  /**
+   * Delay before the first retry, in milliseconds.
+   * @default 250
+   */
+  initialDelayMs?: number;
+  /**
+   * Upper bound for the delay between retries, in milliseconds.
+   * @default 4000
+   */
+  maxDelayMs?: number;
+  /**
+   * Factor the delay grows by after every retry.
+   * @default 2
+   */
+  multiplier?: number;
+  /**
+   * Fraction of each delay (0-1) that is randomised.
+   * @default 0.5
+   */
+  jitter?: number;
+  /**
+   * Error types that may be retried.
+   * @default [CheckoutNativeErrorType.CheckoutHTTPError]
+   */
+  errorTypes?: CheckoutNativeErrorType[];
+  /**
+   * HTTP status codes that may be retried. Only applies to HTTP errors.
+   * @default [408, 429, 500, 502, 503, 504]
+   */
+  statusCodes?: number[];
+}
+
+export interface FunnelOptions {
+  /**
+   * Set to `false` to disable previously configured funnel aggregation.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Keep delivering individual `pixel` events. Set to `false` when the app
+   * only needs the funnel, to skip serializing and bridging every pixel event.
+   * @default true
+   */
+  forwardPixelEvents?: boolean;
+}
+
+export interface FlowControlOptions {
+  /**
+   * Set to `false` to disable previously configured flow control.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Number of pixel events that may be in flight to JS before the native
+   * module waits for them to be acknowledged.
+   * @default 64
+   */
+  window?: number;
+  /**
+   * Number of pixel events held natively while waiting for credits. When
+   * full, the oldest waiting event is dropped.
+   * @default 256
+   */
+  bufferSize?: number;
+  /**
+   * Acknowledge pixel events automatically once the JS thread is idle again
+   * after delivering them. Set to `false` to call `ackEvents` yourself.
+   * @default true
+   */
+  autoAck?: boolean;
+}
+
+export interface NativeLogsOptions {
+  /**
+   * Number of recent messages kept in memory for `dumpNativeLogs`.
+   * @default 100
+   */
+  bufferSize?: number;
+  /**
+   * Messages from the same call site are recorded at most once per interval,
+   * in milliseconds. Repeats in between are only counted.
+   * @default 10000
+   */
+  minIntervalMs?: number;
+  /**
+   * Lowest level also written to logcat. Use `'none'` to keep diagnostics in
+   * memory only.
+   * @default 'warn' in debuggable builds, 'none' otherwise
+   */
+  logcatLevel?: 'debug' | 'info' | 'warn' | 'error' | 'none';
+}
+
+export interface CompletedEventJournalOptions {
+  /**
+   * Set to `false` to stop journaling `completed` events.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Number of unacknowledged `completed` events kept. Beyond that the oldest
+   * one is dropped.
+   * @default 20
+   */
+  maxEntries?: number;
+}
+
+export interface AdaptivePreloadOptions {
+  /**
+   * Set to `false` to preload every time `preload` is called again.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Number of `preload` calls recorded before preloads are delayed or
+   * skipped. Until then every preload is carried out.
+   * @default 10
+   */
+  minSamples?: number;
+  /**
+   * Share of preloads that must be followed by `present` for preloading to
+   * continue.
+   * @default 0.2
+   */
+  minConversionRate?: number;
+  /**
+   * How long before the usual time of `present` a delayed preload starts, in
+   * milliseconds.
+   * @default 5000
+   */
+  leadTimeMs?: number;
+  /**
+   * Longest delay before a preload, in milliseconds.
+   * @default 60000
+   */
+  maxDelayMs?: number;
+}
+
+export interface PresentCheckoutOptions {
+  /**
+   * Configuration to apply before presenting, as with `setConfig`.
+   */
+  config?: Configuration;
+  /**
+   * Preload the checkout instead of presenting it.
+   * @default false
+   */
+  preloadOnly?: boolean;
+}
+
+export interface PresentCheckoutTimings {
+  /**
+   * Time spent applying `config`, in milliseconds. Only set when a config
+   * was passed.
+   */
+  configureMs?: number;
+  /**
+   * Time spent preloading, in milliseconds. Only set with `preloadOnly`.
+   */
+  preloadMs?: number;
+  /**
+   * Time from the start of presenting until the sheet was shown, in
+   * milliseconds.
+   */
+  presentMs?: number;
+  /**
+   * Time for the whole call, in milliseconds.
+   */
+  totalMs: number;
+}
+
+export interface PresentCheckoutResult {
+  /**
+   * The id of the new checkout session, passed to event listeners with every
+   * event from this checkout. Undefined when only preloading, when there was
+   * nothing to present from, and on iOS, which does not tag events yet.
+   */
+  sessionId?: string;
+  /**
+   * Whether the sheet was shown. False when only preloading, or when it was
+   * dismissed or replaced by another `present` before it could be shown.
+   */
+  presented: boolean;
+  /**
+   * The configuration after `config` was applied.
+   */
+  config: Configuration;
+  timings: PresentCheckoutTimings;
+}
+
+export type PreloadDecision = 'preload' | 'delay' | 'skip' | 'learning';
+
+export interface PreloadStats {
+  /**
+   * Whether `android.adaptivePreload` is enabled.
+   */
+  adaptive: boolean;
+  /**
+   * `preload` calls recorded for this install. Repeated calls before a
+   * `present` count once.
+   */
+  requests: number;
+  /**
+   * Recorded preloads followed by `present` within 30 minutes.
+   */
+  conversions: number;
+  conversionRate: number;
+  /**
+   * Moving average of the time between the last `preload` and `present`, in
+   * milliseconds.
+   */
+  averageGapMs: number;
+  /**
+   * What the next `preload` call would do. Only set in adaptive mode.
+   */
+  decision?: PreloadDecision;
+  /**
+   * How long the next `preload` would be delayed. Only set in adaptive mode.
+   */
+  delayMs?: number;
+  /**
+   * What the last `preload` call did in adaptive mode.
+   */
+  lastDecision: PreloadDecision | null;
+}
+
+export interface PixelSinkOptions {
+  /**
+   * Set to `false` to disable a previously configured sink.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * The http(s) endpoint batches are POSTed to, as gzipped JSON of the form
+   * `{"sentAt": number, "events": [...]}`.
+   */
+  url: string;
+  /**
+   * Extra request headers, e.g. for authentication.
+   */
+  headers?: Record<string, string>;
+  /**
+   * Number of pixel events sent per request.
+   * @default 50
+   */
+  batchSize?: number;
+  /**
+   * Longest time a pixel event waits for its batch to fill up, in
+   * milliseconds. Batches are also sent when a checkout session ends.
+   * @default 10000
+   */
+  flushIntervalMs?: number;
+  /**
+   * Retries per batch for network errors, 408, 429 and 5xx responses before
+   * the batch is kept on disk until the endpoint recovers.
+   * @default 4
+   */
+  maxAttempts?: number;
+  /**
+   * Delay before the first retry, in milliseconds. Doubles on each attempt.
+   * @default 1000
+   */
+  initialDelayMs?: number;
+  /**
+   * Upper bound for the delay between retries, in milliseconds.
+   * @default 60000
+   */
+  maxDelayMs?: number;
+  /**
+   * Disk space for batches waiting to be sent, in bytes. The oldest batches
+   * are discarded first.
+   * @default 1048576
+   */
+  maxSpillBytes?: number;
+  /**
+   * Keep delivering `pixel` events to JavaScript as well.
+   * @default false
+   */
+  forwardPixelEvents?: boolean;
+}
+
+export interface CustomDataOptions {
+  /**
+   * Set to `false` to disable previously configured limits.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Largest `customData` payload delivered as is, in UTF-8 bytes.
+   * @default 16384
+   */
+  maxBytes?: number;
+  /**
+   * What to do with payloads over `maxBytes`. Truncated payloads are no longer
+   * valid JSON and are delivered as a string.
+   * @default 'drop'
+   */
+  oversize?: 'truncate' | 'drop';
+  /**
+   * Top-level fields removed from object payloads before the size check.
+   */
+  stripFields?: string[];
+}
+
+/**
+ * Native sampling of pixel events per checkout session.
+ */
+export interface PixelSamplingOptions {
+  /**
+   * Set to `false` to deliver every pixel event again.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Fraction of checkout sessions whose events are delivered, between 0 and
+   * 1, per pixel event name, e.g. `{page_viewed: 0.1}`.
+   */
+  rates?: Record<string, number>;
+  /**
+   * Rate for event names not listed in `rates`.
+   * @default 1
+   */
+  defaultRate?: number;
+}
+
+/**
+ * Native deduplication of repeated checkout failures.
+ */
+export interface ErrorAggregationOptions {
+  /**
+   * Set to `false` to disable a previously configured aggregator.
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * How long repeats of the same failure are collapsed, in milliseconds.
+   * @default 30000
+   */
+  windowMs?: number;
+}
+
+/**
+ * Options that only apply to the Android native module. Ignored on iOS.
+ */
+export interface AndroidConfiguration {
+  /**
+   * Retry recoverable failures natively instead of round-tripping to JavaScript.
+   * Pass `null` or `{enabled: false}` to turn retries off again.
+   */
+  errorRetry?: ErrorRetryPolicy | null;
+  /**
+   * Collapse repeated failures. The first failure of each kind is still
+   * delivered to `error` listeners immediately; repeats within the window are
+   * reported once through an `errorSummary` event.
+   */
+  errorAggregation?: ErrorAggregationOptions | null;
+  /**
+   * Emit `android.os.Trace` sections around the module's hot paths for
+   * Perfetto/systrace. Off by default.
+   */
+  tracing?: boolean | null;
+  /**
+   * Limit the size of custom pixel event `customData` before it is sent to
+   * JavaScript. Pass `null` or `{enabled: false}` to turn the limits off again.
+   */
+  customData?: CustomDataOptions | null;
+  /**
+   * Only deliver pixel events from a sample of checkout sessions, at a rate
+   * per event name. The same sessions are sampled for every event, and
+   * delivered events carry their `sampleRate`. Pass `null` or
+   * `{enabled: false}` to deliver every event again.
+   */
+  pixelSampling?: PixelSamplingOptions | null;
+  /**
+   * Hold pixel events back natively while JS is busy, instead of queueing
+   * them on the bridge. Pass `null` or `{enabled: false}` to turn it off again.
+   */
+  flowControl?: FlowControlOptions | null;
+  /**
+   * Aggregate standard pixel events into a checkout funnel natively and
+   * deliver it as a single `funnel` event when the checkout session ends.
+   */
+  funnel?: FunnelOptions | null;
+  /**
+   * Send pixel events to an analytics endpoint natively, in batches, instead
+   * of delivering them to JavaScript. Pass `null` or `{enabled: false}` to
+   * turn it off again.
+   */
+  pixelSink?: PixelSinkOptions | null;
+  /**
+   * Delay or skip `preload` based on how often this install presents
+   * checkout after preloading it. Pass `null` or `{enabled: false}` to
+   * preload every time again.
+   */
+  adaptivePreload?: AdaptivePreloadOptions | null;
+  /**
+   * Size, rate limit and logcat level of the native diagnostics buffer. Pass
+   * `null` to restore the defaults.
+   */
+  nativeLogs?: NativeLogsOptions | null;
+  /**
+   * Write `completed` events to a journal on disk before emitting them, and
+   * deliver them again to `completed` listeners until a listener has
+   * received them, e.g. after a JS reload or an app restart. Pass `null` or
+   * `{enabled: false}` to turn it off again.
+   */
+  completedEventJournal?: CompletedEventJournalOptions | null;
+  /**
+   * With `colorScheme: 'automatic'` and light and dark overrides in
+   * `colors.android`, build the color scheme once and let the SDK follow the
+   * device between light and dark mode without reconfiguring, so the app does
+   * not need to call `setConfig` again. Off by default.
+   */
+  followSystemTheme?: boolean | null;
+}
+
 interface CommonConfiguration {
   /**
    * Enable/disable preloading for checkout. This option must be enabled for `.preload()` to work as expected.
@@ -138,6 +571,10 @@ interface CommonConfiguration {
    * @default LogLevel.error
    */
   logLevel?: LogLevel;
+  /**
+   * Android-only native options.
+   */
+  android?: AndroidConfiguration;
 }
 
 export type Configuration = CommonConfiguration & {
@@ -175,26 +612,286 @@ export type CheckoutEvent =
   | 'close'
   | 'completed'
   | 'error'
+  | 'errorSummary'
+  | 'funnel'
   | 'geolocationRequest'
   | 'pixel';
 
 export interface GeolocationRequestEvent {
   origin: string;
+  /**
+   * Identifies this prompt. Pass it to `initiateGeolocationRequest` to resolve
+   * a single request when several are pending.
+   */
+  requestId?: string;
+}
+
+/**
+ * Selects which pending geolocation requests `initiateGeolocationRequest`
+ * resolves. When neither field is set, all pending requests are resolved.
+ */
+export interface GeolocationRequestTarget {
+  /**
+   * Resolve only the request with this id.
+   */
+  requestId?: string;
+  /**
+   * Resolve every pending request for this origin.
+   */
+  origin?: string;
+}
+
+/**
+ * Summary of failures collapsed by `android.errorAggregation`. Android only.
+ */
+export interface ErrorSummaryEvent {
+  __typename: CheckoutNativeErrorType;
+  code?: string;
+  message?: string;
+  statusCode?: number;
+  /**
+   * Total failures in the window, including the one delivered immediately.
+   */
+  count: number;
+  /**
+   * Failures that were not delivered to `error` listeners.
+   */
+  suppressed: number;
+  /**
+   * Epoch milliseconds of the first failure in the window.
+   */
+  firstSeenAt: number;
+  /**
+   * Epoch milliseconds of the last failure in the window.
+   */
+  lastSeenAt: number;
+  windowMs: number;
+}
+
+export type FunnelStepName =
+  | 'checkout_started'
+  | 'checkout_contact_info_submitted'
+  | 'checkout_address_info_submitted'
+  | 'checkout_shipping_info_submitted'
+  | 'payment_info_submitted'
+  | 'checkout_completed';
+
+export interface FunnelStep {
+  name: FunnelStepName;
+  /**
+   * Number of times the step's pixel event was received.
+   */
+  count: number;
+  /**
+   * Epoch milliseconds at which the step was first reached, or null.
+   */
+  firstReachedAt: number | null;
+  /**
+   * Milliseconds from `checkout_started` to this step, or null when either
+   * was not reached.
+   */
+  msSinceStart: number | null;
+  /**
+   * Milliseconds since the closest earlier step that was reached, or null.
+   */
+  msSincePreviousStep: number | null;
+}
+
+/**
+ * Checkout funnel aggregated natively from standard pixel events by
+ * `android.funnel`. Android only.
+ */
+export interface FunnelSummaryEvent {
+  /**
+   * Whether the session has ended. Summaries requested with
+   * `getFunnelSummary` while the checkout is open are not final.
+   */
+  final: boolean;
+  /**
+   * Milliseconds since funnel aggregation started for the session.
+   */
+  durationMs: number;
+  /**
+   * All pixel events received in the session, funnel steps or not.
+   */
+  pixelEvents: number;
+  /**
+   * Furthest step reached, or null.
+   */
+  lastStep: FunnelStepName | null;
+  completed: boolean;
+  /**
+   * Every funnel step, in checkout order.
+   */
+  steps: FunnelStep[];
+}
+
+/**
+ * Passed to event listeners as the last argument when the native module tags
+ * the event with the checkout session it belongs to. Android only.
+ */
+export interface CheckoutEventMetadata {
+  /**
+   * The session id returned from the `present` call that opened the checkout.
+   */
+  sessionId: string;
+  /**
+   * Position of the event in its session's event stream, starting at 1. A jump
+   * of more than one between consecutive events means events were missed.
+   */
+  sequence?: number;
+  /**
+   * Epoch milliseconds at which the native module emitted the event. Compare
+   * with `Date.now()` to measure bridge latency.
+   */
+  emittedAt?: number;
+  /**
+   * Id of the journal entry of a `completed` event, when
+   * `android.completedEventJournal` is enabled. The same event may be
+   * delivered again with the same id after an app restart.
+   */
+  journalId?: string;
+  /**
+   * True when a journaled `completed` event is delivered again. Its `sessionId`
+   * and `sequence` are those of its first delivery, so leave it out of gap and
+   * duplicate checks on the current stream.
+   */
+  redelivered?: boolean;
 }
 
-export type CloseEventCallback = () => void;
+/**
+ * State of a checkout session's event stream, as seen by the native module.
+ * Android only.
+ */
+export interface EventStreamState {
+  sessionId: string;
+  /**
+   * Sequence number of the last emitted event, 0 when nothing was emitted yet.
+   */
+  lastSequence: number;
+  /**
+   * Epoch milliseconds of the last emitted event, 0 when nothing was emitted
+   * yet.
+   */
+  lastEmittedAt: number;
+  /**
+   * Whether the session has ended, e.g. because the checkout was closed.
+   */
+  ended: boolean;
+}
+
+export type CloseEventCallback = (metadata?: CheckoutEventMetadata) => void;
 export type GeolocationRequestEventCallback = (
   event: GeolocationRequestEvent,
+  metadata?: CheckoutEventMetadata,
+) => void;
+export type PixelEventCallback = (
+  event: PixelEvent,
+  metadata?: CheckoutEventMetadata,
+) => void;
+export type CheckoutExceptionCallback = (
+  error: CheckoutException,
+  metadata?: CheckoutEventMetadata,
+) => void;
+export interface NativeMetricsBucket {
+  /**
+   * Inclusive upper bound of the bucket. `null` for the overflow bucket.
+   */
+  le: number | null;
+  count: number;
+}
+
+export interface NativeMetricsHistogram {
+  count: number;
+  sum: number;
+  max: number;
+  buckets: NativeMetricsBucket[];
+}
+
+/**
+ * Point-in-time snapshot of the native module's counters, gauges and
+ * histograms. Latency histograms are in microseconds and size histograms in
+ * bytes. Always empty on iOS.
+ */
+export interface NativeMetrics {
+  /**
+   * Epoch milliseconds of the last reset, or of module start.
+   */
+  since: number;
+  timestamp: number;
+  counters: Record<string, number>;
+  gauges: Record<string, number>;
+  histograms: Record<string, NativeMetricsHistogram>;
+}
+
+export interface NativeLogEntry {
+  /**
+   * Epoch milliseconds.
+   */
+  timestamp: number;
+  level: 'debug' | 'info' | 'warn' | 'error';
+  /**
+   * Names the call site, e.g. `config.color` or `emit.pixel`.
+   */
+  key: string;
+  message: string;
+  /**
+   * The exception that was caught, if any.
+   */
+  error?: string;
+  /**
+   * Messages with the same key that were not recorded since the previous
+   * entry for it.
+   */
+  suppressed: number;
+}
+
+/**
+ * Recent diagnostics from the native module. Always empty on iOS.
+ */
+export interface NativeLogs {
+  /**
+   * Oldest first.
+   */
+  entries: NativeLogEntry[];
+  /**
+   * Messages not recorded since the last entry for each key.
+   */
+  suppressed: Record<string, number>;
+}
+
+export interface DumpNativeLogsOptions {
+  /**
+   * Empty the buffer after reading it.
+   */
+  clear?: boolean;
+}
+
+export interface GetMetricsOptions {
+  /**
+   * Zero counters and histograms after taking the snapshot.
+   */
+  reset?: boolean;
+}
+
+export type ErrorSummaryEventCallback = (
+  event: ErrorSummaryEvent,
+  metadata?: CheckoutEventMetadata,
+) => void;
+export type FunnelSummaryEventCallback = (
+  event: FunnelSummaryEvent,
+  metadata?: CheckoutEventMetadata,
 ) => void;
-export type PixelEventCallback = (event: PixelEvent) => void;
-export type CheckoutExceptionCallback = (error: CheckoutException) => void;
 export type CheckoutCompletedEventCallback = (
   event: CheckoutCompletedEvent,
+  metadata?: CheckoutEventMetadata,
 ) => void;
 
 export type CheckoutEventCallback =
   | CloseEventCallback
   | CheckoutExceptionCallback
+  | ErrorSummaryEventCallback
+  | FunnelSummaryEventCallback
   | CheckoutCompletedEventCallback
   | GeolocationRequestEventCallback
   | PixelEventCallback;
@@ -270,30 +967,44 @@ export interface AcceleratedCheckoutConfiguration {
   };
 }
 
+/**
+ * Returns an `EventSubscription`. Before typed event emitters this was an
+ * `EmitterSubscription`; only `remove()` is available now.
+ */
 function addEventListener(
   event: 'close',
-  callback: () => void,
-): Maybe<EmitterSubscription>;
+  callback: CloseEventCallback,
+): Maybe<EventSubscription>;
 
 function addEventListener(
   event: 'completed',
   callback: CheckoutCompletedEventCallback,
-): Maybe<EmitterSubscription>;
+): Maybe<EventSubscription>;
 
 function addEventListener(
   event: 'error',
   callback: CheckoutExceptionCallback,
-): Maybe<EmitterSubscription>;
+): Maybe<EventSubscription>;
+
+function addEventListener(
+  event: 'errorSummary',
+  callback: ErrorSummaryEventCallback,
+): Maybe<EventSubscription>;
+
+function addEventListener(
+  event: 'funnel',
+  callback: FunnelSummaryEventCallback,
+): Maybe<EventSubscription>;
 
 function addEventListener(
   event: 'pixel',
   callback: PixelEventCallback,
-): Maybe<EmitterSubscription>;
+): Maybe<EventSubscription>;
 
 function addEventListener(
   event: 'geolocationRequest',
   callback: GeolocationRequestEventCallback,
-): Maybe<EmitterSubscription>;
+): Maybe<EventSubscription>;
 
 function removeEventListeners(event: CheckoutEvent): void;
 
@@ -315,9 +1026,18 @@ export interface ShopifyCheckoutSheetKit {
    */
   invalidate(): void;
   /**
-   * Present the checkout.
+   * Present the checkout. Use `presentCheckout` to receive the id of the new
+   * checkout session.
    */
   present(checkoutURL: string): void;
+  /**
+   * Apply configuration overrides and present (or preload) the checkout in a
+   * single native call. Resolves once the sheet has been presented.
+   */
+  presentCheckout(
+    checkoutURL: string,
+    options?: PresentCheckoutOptions,
+  ): Promise<PresentCheckoutResult>;
   /**
    * Configure the checkout. See README.md for more details.
    */
@@ -350,4 +1070,44 @@ export interface ShopifyCheckoutSheetKit {
    * Check if accelerated checkout is available for the given cart or product
    */
   isAcceleratedCheckoutAvailable(): boolean;
+
+  /**
+   * Return a snapshot of the native metrics registry (Android only).
+   */
+  getMetrics(options?: GetMetricsOptions): NativeMetrics;
+
+  /**
+   * Return recent diagnostics from the native module's in-memory log buffer.
+   */
+  dumpNativeLogs(options?: DumpNativeLogsOptions): NativeLogs;
+
+  /**
+   * Return the state of a session's event stream (Android only), to detect
+   * events that were missed, e.g. across a reload. Defaults to the active
+   * session.
+   */
+  getEventStreamState(sessionId?: string): EventStreamState | undefined;
+
+  /**
+   * Grant the native module credits for `count` more pixel events when
+   * `android.flowControl` is enabled with `autoAck: false` (Android only).
+   */
+  ackEvents(count: number): void;
+
+  /**
+   * Return the checkout funnel recorded so far for a session (Android only),
+   * when `android.funnel` is enabled. Defaults to the active session.
+   */
+  getFunnelSummary(sessionId?: string): FunnelSummaryEvent | undefined;
+
+  /**
+   * Return the preload history of this install and the decision adaptive
+   * preloading makes from it (Android only).
+   */
+  getPreloadStats(): PreloadStats | undefined;
+
+  /**
+   * Forget the preload history of this install (Android only).
+   */
+  resetPreloadStats(): void;
 }
@@ -22,11 +22,7 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SO
 */
 
 import {NativeEventEmitter, PermissionsAndroid, Platform} from 'react-native';
-import type {
-  EmitterSubscription,
-  EventSubscription,
-  PermissionStatus,
-} from 'react-native';
+import type {EventSubscription, PermissionStatus} from 'react-native';
 import RNShopifyCheckoutSheetKit from './specs/NativeShopifyCheckoutSheetKit';
 import {ShopifyCheckoutSheetProvider, useShopifyCheckoutSheet} from './context';
 import {ApplePayContactField, ColorScheme, LogLevel} from './index.d';
@@ -34,10 +30,25 @@ import type {
   AcceleratedCheckoutConfiguration,
   CheckoutEvent,
   CheckoutEventCallback,
+  CheckoutCompletedEventCallback,
+  CheckoutEventMetadata,
+  CloseEventCallback,
   Configuration,
+  DumpNativeLogsOptions,
+  ErrorSummaryEvent,
+  EventStreamState,
   Features,
+  FlowControlOptions,
+  FunnelSummaryEvent,
   GeolocationRequestEvent,
+  GeolocationRequestTarget,
+  GetMetricsOptions,
   Maybe,
+  NativeLogs,
+  NativeMetrics,
+  PreloadStats,
+  PresentCheckoutOptions,
+  PresentCheckoutResult,
   ShopifyCheckoutSheetKit,
 } from './index.d';
 import {AcceleratedCheckoutWallet} from './index.d';
@@ -73,13 +84,41 @@ const colorSchemeValues: ReadonlySet<string> = new Set(
 );
 const logLevelValues: ReadonlySet<string> = new Set(Object.values(LogLevel));
 
+type NativeEventEmitterName =
+  | 'onClose'
+  | 'onCompleted'
+  | 'onError'
+  | 'onErrorSummary'
+  | 'onFunnel'
+  | 'onGeolocationRequest'
+  | 'onPixel';
+
+// Typed event emitters generated from the TurboModule spec, per event
+const nativeEventEmitters: Record<CheckoutEvent, NativeEventEmitterName> = {
+  close: 'onClose',
+  completed: 'onCompleted',
+  error: 'onError',
+  errorSummary: 'onErrorSummary',
+  funnel: 'onFunnel',
+  geolocationRequest: 'onGeolocationRequest',
+  pixel: 'onPixel',
+};
+
 class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
   private static eventEmitter: NativeEventEmitter = new NativeEventEmitter(
     RNShopifyCheckoutSheetKit,
   );
 
+  private static nativeSubscriptions = new Map<
+    CheckoutEvent,
+    Set<EventSubscription>
+  >();
+
   private features: Features;
   private geolocationCallback: Maybe<EventSubscription>;
+  private flowControlSubscription: Maybe<EventSubscription>;
+  private pendingAcks = 0;
+  private ackTimer: Maybe<ReturnType<typeof setTimeout>>;
 
   private _acceleratedCheckoutsReady = false;
 
@@ -162,24 +201,56 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
    * @param configuration New configuration settings to apply
    */
   public setConfig(configuration: Configuration): void {
-    if (configuration.acceleratedCheckouts) {
-      this._acceleratedCheckoutsReady = this.configureAcceleratedCheckouts(
-        configuration.acceleratedCheckouts,
-      );
-    }
+    this.configureJsSide(configuration);
     RNShopifyCheckoutSheetKit.setConfig(configuration);
+    this.redeliverJournaledEvents(configuration);
+  }
+
+  /**
+   * Applies configuration overrides and then presents (or preloads) a
+   * checkout in a single native call, instead of separate `setConfig`,
+   * `getConfig`, `preload` and `present` calls.
+   * @param checkoutUrl The URL of the checkout to display
+   * @param options Configuration overrides and whether to only preload
+   * @returns The new session id, the resulting configuration and step timings
+   */
+  public async presentCheckout(
+    checkoutUrl: string,
+    options: PresentCheckoutOptions = {},
+  ): Promise<PresentCheckoutResult> {
+    const {config, preloadOnly = false} = options;
+    if (config) {
+      this.configureJsSide(config);
+    }
+
+    const result = (await RNShopifyCheckoutSheetKit.presentCheckout({
+      url: checkoutUrl,
+      config: config ?? null,
+      preloadOnly,
+    })) as NativePresentCheckoutResult;
+
+    if (config) {
+      this.redeliverJournaledEvents(config);
+    }
+
+    return {
+      sessionId: result.sessionId ?? undefined,
+      presented: result.presented,
+      config: this.coerceConfigurationResult(result.config),
+      timings: result.timings,
+    };
   }
 
   /**
    * Adds an event listener for checkout events
    * @param event The type of event to listen for
    * @param callback Function to be called when the event occurs
-   * @returns An EmitterSubscription that can be used to remove the listener
+   * @returns An EventSubscription that can be used to remove the listener
    */
   public addEventListener(
     event: CheckoutEvent,
     callback: CheckoutEventCallback,
-  ): EmitterSubscription | undefined {
+  ): EventSubscription | undefined {
     let eventCallback;
 
     switch (event) {
@@ -191,7 +262,12 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
         );
         break;
       case 'completed':
-        eventCallback = this.interceptEventEmission('completed', callback);
+        eventCallback = this.interceptEventEmission(
+          'completed',
+          this.acknowledgeCompletedEvents(
+            callback as CheckoutCompletedEventCallback,
+          ),
+        );
         break;
       case 'error':
         eventCallback = this.interceptEventEmission(
@@ -200,18 +276,33 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
           this.parseCheckoutError,
         );
         break;
+      case 'errorSummary':
+        eventCallback = this.interceptEventEmission('errorSummary', callback);
+        break;
+      case 'funnel':
+        eventCallback = this.interceptEventEmission('funnel', callback);
+        break;
       case 'geolocationRequest':
         eventCallback = this.interceptEventEmission(
           'geolocationRequest',
           callback,
         );
         break;
+      case 'close':
+        eventCallback = this.interceptCloseEmission(
+          callback as CloseEventCallback,
+        );
+        break;
       default:
         eventCallback = callback;
     }
 
-    // Default handler for all non-pixel events
-    return ShopifyCheckoutSheet.eventEmitter.addListener(event, eventCallback);
+    const subscription = this.subscribe(event, eventCallback);
+    if (event === 'completed' && Platform.OS === 'android') {
+      // Deliver journaled events that no listener has received yet
+      RNShopifyCheckoutSheetKit.redeliverCompletedEvents();
+    }
+    return subscription;
   }
 
   /**
@@ -219,6 +310,10 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
    * @param event The type of event to remove listeners for
    */
   public removeEventListeners(event: CheckoutEvent) {
+    const subscriptions = ShopifyCheckoutSheet.nativeSubscriptions.get(event);
+    subscriptions?.forEach(subscription => subscription.remove());
+    subscriptions?.clear();
+
     ShopifyCheckoutSheet.eventEmitter.removeAllListeners(event);
   }
 
@@ -227,6 +322,7 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
    */
   public teardown() {
     this.geolocationCallback?.remove();
+    this.configureFlowControl();
   }
 
   /**
@@ -278,15 +374,144 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
   /**
    * Initiates a geolocation request for Android devices
    * Only needed if features.handleGeolocationRequests is false
+   * @param allow Whether geolocation permissions were granted
+   * @param target Optional request id or origin to resolve. Resolves all pending requests when omitted
    */
-  public async initiateGeolocationRequest(allow: boolean) {
+  public async initiateGeolocationRequest(
+    allow: boolean,
+    target: GeolocationRequestTarget = {},
+  ) {
     if (Platform.OS === 'android') {
-      RNShopifyCheckoutSheetKit.initiateGeolocationRequest?.(allow);
+      RNShopifyCheckoutSheetKit.initiateGeolocationRequest?.(
+        allow,
+        target.requestId ?? null,
+        target.origin ?? null,
+      );
+    }
+  }
+
+  /**
+   * Returns a snapshot of the native metrics registry. Only populated on
+   * Android; iOS returns empty collections.
+   * @param options.reset Zero counters and histograms after reading them
+   */
+  public getMetrics(options: GetMetricsOptions = {}): NativeMetrics {
+    return RNShopifyCheckoutSheetKit.getMetrics(
+      options.reset ?? false,
+    ) as NativeMetrics;
+  }
+
+  /**
+   * Returns recent diagnostics from the native module's in-memory log buffer.
+   * Only populated on Android; iOS returns empty collections.
+   * @param options.clear Empty the buffer after reading it
+   */
+  public dumpNativeLogs(options: DumpNativeLogsOptions = {}): NativeLogs {
+    return RNShopifyCheckoutSheetKit.dumpNativeLogs(
+      options.clear ?? false,
+    ) as NativeLogs;
+  }
+
+  /**
+   * Returns the last sequence number emitted for a checkout session, so that
+   * listeners can tell whether they missed events. Only available on Android.
+   * @param sessionId Session to inspect; defaults to the active session
+   */
+  public getEventStreamState(sessionId?: string): EventStreamState | undefined {
+    const state = RNShopifyCheckoutSheetKit.getEventStreamState(
+      sessionId ?? null,
+    );
+    return (state ?? undefined) as EventStreamState | undefined;
+  }
+
+  /**
+   * Grants the native module credits for pixel events that have been handled.
+   * Only needed when `android.flowControl` is configured with `autoAck: false`.
+   * @param count Number of pixel events handled since the last call
+   */
+  public ackEvents(count: number): void {
+    if (count > 0) {
+      RNShopifyCheckoutSheetKit.ackEvents(count);
     }
   }
 
+  /**
+   * Returns the checkout funnel recorded so far for a session. Only available
+   * on Android with `android.funnel` enabled.
+   * @param sessionId Session to inspect; defaults to the active session
+   */
+  public getFunnelSummary(sessionId?: string): FunnelSummaryEvent | undefined {
+    const summary = RNShopifyCheckoutSheetKit.getFunnelSummary(
+      sessionId ?? null,
+    );
+    if (!summary) {
+      return undefined;
+    }
+
+    try {
+      return JSON.parse(summary) as FunnelSummaryEvent;
+    } catch {
+      return undefined;
+    }
+  }
+
+  /**
+   * Returns the preload history of this install and the decision adaptive
+   * preloading makes from it. Only available on Android.
+   */
+  public getPreloadStats(): PreloadStats | undefined {
+    const stats = RNShopifyCheckoutSheetKit.getPreloadStats();
+    return (stats ?? undefined) as PreloadStats | undefined;
+  }
+
+  /**
+   * Forgets the preload history of this install. Only available on Android.
+   */
+  public resetPreloadStats(): void {
+    RNShopifyCheckoutSheetKit.resetPreloadStats();
+  }
+
   // --- private
 
+  /**
+   * Subscribes through the typed event emitter generated from the TurboModule
+   * spec when the native module provides one (Android), falling back to
+   * NativeEventEmitter otherwise
+   * @param event The type of event to listen for
+   * @param listener Function to be called with the raw event data
+   * @returns An EventSubscription that can be used to remove the listener
+   */
+  private subscribe(
+    event: CheckoutEvent,
+    listener: (eventData: any) => void,
+  ): EventSubscription {
+    const nativeEmitter =
+      Platform.OS === 'android'
+        ? RNShopifyCheckoutSheetKit[nativeEventEmitters[event]]
+        : undefined;
+
+    if (typeof nativeEmitter !== 'function') {
+      return ShopifyCheckoutSheet.eventEmitter.addListener(event, listener);
+    }
+
+    const nativeSubscription = nativeEmitter(listener);
+    let subscriptions = ShopifyCheckoutSheet.nativeSubscriptions.get(event);
+    if (!subscriptions) {
+      subscriptions = new Set();
+      ShopifyCheckoutSheet.nativeSubscriptions.set(event, subscriptions);
+    }
+
+    const subscription: EventSubscription = {
+      remove: () => {
+        nativeSubscription.remove();
+        subscriptions?.delete(subscription);
+      },
+    };
+    subscriptions.add(subscription);
+
+    return subscription;
+  }
+
   /**
    * Accelerated Checkouts is only supported from iOS 16.0 onwards
    */
@@ -365,16 +590,82 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
     return this.features[feature] ?? true;
   }
 
+  /**
+   * Applies the parts of a configuration handled in JS. Runs before the
+   * native configuration so pixel acks are in place when events start.
+   */
+  private configureJsSide(configuration: Configuration) {
+    if (configuration.acceleratedCheckouts) {
+      this._acceleratedCheckoutsReady = this.configureAcceleratedCheckouts(
+        configuration.acceleratedCheckouts,
+      );
+    }
+
+    if (
+      Platform.OS === 'android' &&
+      configuration.android &&
+      'flowControl' in configuration.android
+    ) {
+      this.configureFlowControl(configuration.android.flowControl);
+    }
+  }
+
+  /**
+   * Asks Android to emit the completed events still in the journal once the
+   * configuration enables it. Runs after the native configuration so the
+   * journal exists.
+   */
+  private redeliverJournaledEvents(configuration: Configuration) {
+    if (
+      Platform.OS === 'android' &&
+      configuration.android &&
+      'completedEventJournal' in configuration.android
+    ) {
+      // Hand events journaled before the app restarted to current listeners
+      RNShopifyCheckoutSheetKit.redeliverCompletedEvents();
+    }
+  }
+
+  /**
+   * Acknowledges pixel events on a timer that only fires once the JS thread
+   * is free again, so a busy JS thread stops the native side from sending
+   * more. Acks are batched into one native call per turn.
+   */
+  private configureFlowControl(options?: FlowControlOptions | null) {
+    this.flowControlSubscription?.remove();
+    this.flowControlSubscription = undefined;
+
+    if (!options || options.enabled === false || options.autoAck === false) {
+      return;
+    }
+
+    this.flowControlSubscription = this.subscribe('pixel', () => {
+      this.pendingAcks++;
+      if (this.ackTimer === undefined) {
+        this.ackTimer = setTimeout(() => {
+          const count = this.pendingAcks;
+          this.pendingAcks = 0;
+          this.ackTimer = undefined;
+          this.ackEvents(count);
+        }, 0);
+      }
+    });
+  }
+
   /**
    * Sets up geolocation request handling for Android devices
    */
   private subscribeToGeolocationRequestPrompts() {
     this.geolocationCallback = this.addEventListener(
       'geolocationRequest',
-      async () => {
+      async (event: GeolocationRequestEvent) => {
         const coarseOrFineGrainAccessGranted = await this.requestGeolocation();
 
-        this.initiateGeolocationRequest(coarseOrFineGrainAccessGranted);
+        // The permission result applies to the whole origin, so resolve every
+        // request the origin has pending rather than only this one.
+        this.initiateGeolocationRequest(coarseOrFineGrainAccessGranted, {
+          origin: event?.origin,
+        });
       },
     );
   }
@@ -496,16 +787,23 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
    */
   private interceptEventEmission(
     event: CheckoutEvent,
-    callback: CheckoutEventCallback,
+    callback: (data: any, metadata?: CheckoutEventMetadata) => void,
     transformData?: (data: any) => any,
-  ): (eventData: string | typeof callback) => void {
-    return (eventData: string | typeof callback): void => {
+  ): (eventData: string | object) => void {
+    return (eventData: string | object): void => {
+      const deliver = (data: unknown) => {
+        if (isSessionEnvelope(data)) {
+          const payload = transformData?.(data.payload) ?? data.payload;
+          callback(payload, envelopeMetadata(data));
+        } else {
+          callback(transformData?.(data) ?? data);
+        }
+      };
+
       try {
         if (typeof eventData === 'string') {
           try {
-            let parsed = JSON.parse(eventData);
-            parsed = transformData?.(parsed) ?? parsed;
-            callback(parsed);
+            deliver(JSON.parse(eventData));
           } catch (error) {
             const parseError = new LifecycleEventParseError(
               `Failed to parse "${event}" event data: Invalid JSON`,
@@ -517,7 +815,8 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
             console.error(parseError, eventData);
           }
         } else if (eventData && typeof eventData === 'object') {
-          callback(transformData?.(eventData) ?? eventData);
+          // Structured events from the typed emitters need no parsing
+          deliver(eventData);
         }
       } catch (error) {
         const parseError = new LifecycleEventParseError(
@@ -531,6 +830,112 @@ class ShopifyCheckoutSheet implements ShopifyCheckoutSheetKit {
       }
     };
   }
+
+  /**
+   * Acknowledges journaled "completed" events once the callback has handled
+   * them, and skips events the callback has already received when they are
+   * delivered again
+   * @param callback The listener's callback
+   * @returns Callback that acknowledges after calling the listener's callback
+   */
+  private acknowledgeCompletedEvents(
+    callback: CheckoutCompletedEventCallback,
+  ): CheckoutCompletedEventCallback {
+    const received = new Set<string>();
+    return (event, metadata) => {
+      const journalId = metadata?.journalId;
+      if (journalId !== undefined) {
+        if (received.has(journalId)) {
+          return;
+        }
+        received.add(journalId);
+      }
+
+      callback(event, metadata);
+
+      if (journalId !== undefined) {
+        RNShopifyCheckoutSheetKit.ackCompletedEvent(journalId);
+      }
+    };
+  }
+
+  /**
+   * Handles "close" emissions, which carry no payload but may carry the
+   * session the closed checkout belonged to
+   * @param callback The callback to execute when the checkout closes
+   * @returns Function that handles the event emission
+   */
+  private interceptCloseEmission(
+    callback: CloseEventCallback,
+  ): (eventData?: string | object | null) => void {
+    return (eventData?: string | object | null): void => {
+      if (isSessionEnvelope(eventData)) {
+        callback(envelopeMetadata(eventData));
+        return;
+      }
+
+      if (typeof eventData === 'string') {
+        try {
+          const parsed = JSON.parse(eventData);
+          if (isSessionEnvelope(parsed)) {
+            callback(envelopeMetadata(parsed));
+            return;
+          }
+        } catch {
+          // Untagged close; fall through
+        }
+      }
+
+      callback();
+    };
+  }
+}
+
+interface NativePresentCheckoutResult {
+  sessionId: string | null;
+  presented: boolean;
+  config: ReturnType<typeof RNShopifyCheckoutSheetKit.getConfig>;
+  timings: PresentCheckoutResult['timings'];
+}
+
+interface SessionEnvelope {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+  journalId?: string;
+  redelivered?: boolean;
+  payload: unknown;
+}
+
+/**
+ * Android wraps every event as `{sessionId, sequence, emittedAt, payload}` so
+ * that listeners can tell which checkout session it came from and whether
+ * they missed any of its events.
+ */
+function isSessionEnvelope(data: unknown): data is SessionEnvelope {
+  return (
+    data !== null &&
+    typeof data === 'object' &&
+    typeof (data as SessionEnvelope).sessionId === 'string' &&
+    'payload' in data
+  );
+}
+
+function envelopeMetadata(envelope: SessionEnvelope): CheckoutEventMetadata {
+  const metadata: CheckoutEventMetadata = {sessionId: envelope.sessionId};
+  if (typeof envelope.sequence === 'number') {
+    metadata.sequence = envelope.sequence;
+  }
+  if (typeof envelope.emittedAt === 'number') {
+    metadata.emittedAt = envelope.emittedAt;
+  }
+  if (typeof envelope.journalId === 'string') {
+    metadata.journalId = envelope.journalId;
+  }
+  if (envelope.redelivered === true) {
+    metadata.redelivered = true;
+  }
+  return metadata;
 }
 
 function isCustomPixelEvent(event: PixelEvent): event is CustomEvent {
@@ -580,12 +985,25 @@ export type {
   CheckoutCompletedEvent,
   CheckoutEvent,
   CheckoutEventCallback,
+  CheckoutEventMetadata,
   CheckoutException,
   Configuration,
   CustomEvent,
+  ErrorSummaryEvent,
+  EventStreamState,
   Features,
+  FunnelStep,
+  FunnelSummaryEvent,
   GeolocationRequestEvent,
+  GeolocationRequestTarget,
+  GetMetricsOptions,
+  NativeLogEntry,
+  NativeLogs,
+  NativeMetrics,
   PixelEvent,
+  PreloadStats,
+  PresentCheckoutOptions,
+  PresentCheckoutResult,
   RenderStateChangeEvent,
   StandardEvent,
 };
@@ -41,6 +41,11 @@ export interface StandardEvent {
   timestamp?: string;
   /* Event type */
   type?: 'STANDARD';
+  /**
+   * Present when `android.pixelSampling` sampled this event at a rate below
+   * 1. Android only.
+   */
+  sampleRate?: number;
 }
 
 export interface StandardEventData {
@@ -60,6 +65,15 @@ export interface CustomEvent {
    * the custom event publisher.
    */
   customData?: any;
+  /**
+   * Present when `android.customData` limits truncated or dropped
+   * `customData`. Android only.
+   */
+  customDataLimit?: {
+    action: 'truncated' | 'dropped';
+    /* Size of the original payload, in UTF-8 bytes */
+    originalBytes: number;
+  };
   /* The ID of the event */
   id?: string;
   /* The name of the event */
@@ -68,6 +82,11 @@ export interface CustomEvent {
   timestamp?: string;
   /* Event type */
   type?: 'CUSTOM';
+  /**
+   * Present when `android.pixelSampling` sampled this event at a rate below
+   * 1. Android only.
+   */
+  sampleRate?: number;
 }
 
 interface Context {
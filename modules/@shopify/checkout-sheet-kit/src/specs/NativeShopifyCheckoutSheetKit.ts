@@ -23,6 +23,10 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SO
 
 import type {TurboModule} from 'react-native';
 import {TurboModuleRegistry} from 'react-native';
+import type {
+  EventEmitter,
+  UnsafeObject,
+} from 'react-native/Libraries/Types/CodegenTypes';
 
 type IosColorsSpec = {
   tintColor?: string;
@@ -53,12 +57,100 @@ type ColorsSpec = {
   android?: AndroidColorsSpec;
 };
 
+type ErrorRetrySpec = {
+  enabled?: boolean;
+  maxAttempts?: number;
+  initialDelayMs?: number;
+  maxDelayMs?: number;
+  multiplier?: number;
+  jitter?: number;
+  errorTypes?: string[];
+  statusCodes?: number[];
+};
+
+type ErrorAggregationSpec = {
+  enabled?: boolean;
+  windowMs?: number;
+};
+
+type CustomDataSpec = {
+  enabled?: boolean;
+  maxBytes?: number;
+  oversize?: string;
+  stripFields?: string[];
+};
+
+type PixelSamplingSpec = {
+  enabled?: boolean;
+  rates?: {[eventName: string]: number};
+  defaultRate?: number;
+};
+
+type FunnelSpec = {
+  enabled?: boolean;
+  forwardPixelEvents?: boolean;
+};
+
+type FlowControlSpec = {
+  enabled?: boolean;
+  window?: number;
+  bufferSize?: number;
+};
+
+type PixelSinkSpec = {
+  enabled?: boolean;
+  url: string;
+  headers?: {[key: string]: string};
+  batchSize?: number;
+  flushIntervalMs?: number;
+  maxAttempts?: number;
+  initialDelayMs?: number;
+  maxDelayMs?: number;
+  maxSpillBytes?: number;
+  forwardPixelEvents?: boolean;
+};
+
+type AdaptivePreloadSpec = {
+  enabled?: boolean;
+  minSamples?: number;
+  minConversionRate?: number;
+  leadTimeMs?: number;
+  maxDelayMs?: number;
+};
+
+type NativeLogsSpec = {
+  bufferSize?: number;
+  minIntervalMs?: number;
+  logcatLevel?: string;
+};
+
+type CompletedEventJournalSpec = {
+  enabled?: boolean;
+  maxEntries?: number;
+};
+
+type AndroidConfigurationSpec = {
+  errorRetry?: ErrorRetrySpec | null;
+  errorAggregation?: ErrorAggregationSpec | null;
+  tracing?: boolean | null;
+  customData?: CustomDataSpec | null;
+  pixelSampling?: PixelSamplingSpec | null;
+  flowControl?: FlowControlSpec | null;
+  funnel?: FunnelSpec | null;
+  pixelSink?: PixelSinkSpec | null;
+  adaptivePreload?: AdaptivePreloadSpec | null;
+  nativeLogs?: NativeLogsSpec | null;
+  completedEventJournal?: CompletedEventJournalSpec | null;
+  followSystemTheme?: boolean | null;
+};
+
 type ConfigurationSpec = {
   preloading?: boolean;
   title?: string;
   colorScheme?: string;
   logLevel?: string;
   colors?: ColorsSpec;
+  android?: AndroidConfigurationSpec;
 };
 
 type ConfigurationResultSpec = {
@@ -71,8 +163,68 @@ type ConfigurationResultSpec = {
   closeButtonColor?: string;
 };
 
+// Structured event payloads, emitted on Android as
+// {sessionId, sequence, emittedAt, payload} session envelopes.
+
+type CloseEventSpec = {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+};
+
+type CompletedEventSpec = {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+  journalId?: string;
+  redelivered?: boolean;
+  payload: UnsafeObject;
+};
+
+type CheckoutErrorSpec = {
+  __typename: string;
+  message: string;
+  recoverable: boolean;
+  code?: string;
+  statusCode?: number;
+  retryAttempts?: number;
+};
+
+type ErrorEventSpec = {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+  payload: CheckoutErrorSpec;
+};
+
+type GeolocationRequestSpec = {
+  origin: string;
+  requestId: string;
+};
+
+type GeolocationRequestEventSpec = {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+  payload: GeolocationRequestSpec;
+};
+
+type SummaryEventSpec = {
+  sessionId: string;
+  sequence?: number;
+  emittedAt?: number;
+  payload: UnsafeObject;
+};
+
+type PresentCheckoutSpec = {
+  url: string;
+  config?: ConfigurationSpec | null;
+  preloadOnly?: boolean;
+};
+
 export interface Spec extends TurboModule {
   present(checkoutUrl: string): void;
+  presentCheckout(request: PresentCheckoutSpec): Promise<Object>;
   preload(checkoutUrl: string): void;
   dismiss(): void;
   invalidateCache(): void;
@@ -90,10 +242,34 @@ export interface Spec extends TurboModule {
   ): boolean;
   isAcceleratedCheckoutAvailable(): boolean;
   isApplePayAvailable(): boolean;
-  initiateGeolocationRequest(allow: boolean): void;
+  initiateGeolocationRequest(
+    allow: boolean,
+    requestId: string | null,
+    origin: string | null,
+  ): void;
+  getMetrics(reset: boolean): Object;
+  dumpNativeLogs(clear: boolean): Object;
+  getEventStreamState(sessionId: string | null): Object | null;
+  ackEvents(count: number): void;
+  ackCompletedEvent(journalId: string): void;
+  redeliverCompletedEvents(): void;
+  getFunnelSummary(sessionId: string | null): string | null;
+  getPreloadStats(): Object | null;
+  resetPreloadStats(): void;
   addListener(eventName: string): void;
   removeListeners(count: number): void;
   getConstants(): {version: string};
+
+  // Typed event emitters, used on Android. Pixel events are the JSON strings
+  // produced by the native serializers, to keep the high-volume path to a
+  // single pass; every other event arrives as a structured object.
+  readonly onClose: EventEmitter<CloseEventSpec>;
+  readonly onCompleted: EventEmitter<CompletedEventSpec>;
+  readonly onError: EventEmitter<ErrorEventSpec>;
+  readonly onErrorSummary: EventEmitter<SummaryEventSpec>;
+  readonly onFunnel: EventEmitter<SummaryEventSpec>;
+  readonly onGeolocationRequest: EventEmitter<GeolocationRequestEventSpec>;
+  readonly onPixel: EventEmitter<string>;
 }
 
 export default TurboModuleRegistry.getEnforcing<Spec>(
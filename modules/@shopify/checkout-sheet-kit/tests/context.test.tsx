@@ -231,6 +231,27 @@ describe('useShopifyCheckoutSheet', () => {
     ).not.toHaveBeenCalled();
   });
 
+  it('provides presentCheckout function and calls it with checkoutUrl', async () => {
+    let hookValue: any;
+    const onHookValue = (value: any) => {
+      hookValue = value;
+    };
+
+    render(
+      <Wrapper>
+        <HookTestComponent onHookValue={onHookValue} />
+      </Wrapper>,
+    );
+
+    await act(async () => {
+      await hookValue.presentCheckout(checkoutUrl, {preloadOnly: true});
+    });
+
+    expect(
+      NativeModules.ShopifyCheckoutSheetKit.presentCheckout,
+    ).toHaveBeenCalledWith({url: checkoutUrl, config: null, preloadOnly: true});
+  });
+
   it('provides preload function and calls it with checkoutUrl', () => {
     let hookValue: any;
     const onHookValue = (value: any) => {
@@ -149,6 +149,70 @@ describe('ShopifyCheckoutSheetKit', () => {
     });
   });
 
+  describe('presentCheckout', () => {
+    it('passes the URL, config and options in a single native call', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      await instance.presentCheckout(checkoutUrl, {config, preloadOnly: true});
+      expect(NativeModule.presentCheckout).toHaveBeenCalledTimes(1);
+      expect(NativeModule.presentCheckout).toHaveBeenCalledWith({
+        url: checkoutUrl,
+        config,
+        preloadOnly: true,
+      });
+      expect(NativeModule.setConfig).not.toHaveBeenCalled();
+      expect(NativeModule.present).not.toHaveBeenCalled();
+    });
+
+    it('defaults to presenting without config overrides', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      await instance.presentCheckout(checkoutUrl);
+      expect(NativeModule.presentCheckout).toHaveBeenCalledWith({
+        url: checkoutUrl,
+        config: null,
+        preloadOnly: false,
+      });
+    });
+
+    it('resolves with the session id, parsed config and timings', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      await expect(instance.presentCheckout(checkoutUrl)).resolves.toStrictEqual(
+        {
+          sessionId: '1',
+          presented: true,
+          config: {
+            preloading: true,
+            colorScheme: ColorScheme.automatic,
+            logLevel: LogLevel.error,
+          },
+          timings: {presentMs: 1, totalMs: 2},
+        },
+      );
+    });
+
+    it('resolves without a session id when nothing was presented', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      NativeModule.presentCheckout.mockResolvedValueOnce({
+        sessionId: null,
+        presented: false,
+        config: {preloading: true},
+        timings: {totalMs: 1},
+      });
+      const result = await instance.presentCheckout(checkoutUrl);
+      expect(result.sessionId).toBeUndefined();
+      expect(result.presented).toBe(false);
+    });
+
+    it('rejects when the native call rejects', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      NativeModule.presentCheckout.mockRejectedValueOnce(
+        new Error('presentCheckout requires a checkout URL'),
+      );
+      await expect(instance.presentCheckout('')).rejects.toThrow(
+        'presentCheckout requires a checkout URL',
+      );
+    });
+  });
+
   describe('dismiss', () => {
     it('calls `dismiss`', () => {
       const instance = new ShopifyCheckoutSheet();
@@ -173,6 +237,64 @@ describe('ShopifyCheckoutSheetKit', () => {
     });
   });
 
+  describe('getMetrics', () => {
+    it('returns the snapshot from the Native Module without resetting', () => {
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getMetrics()).toStrictEqual({
+        since: 0,
+        timestamp: 0,
+        counters: {},
+        gauges: {},
+        histograms: {},
+      });
+      expect(NativeModule.getMetrics).toHaveBeenCalledWith(false);
+    });
+
+    it('forwards the reset option', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.getMetrics({reset: true});
+      expect(NativeModule.getMetrics).toHaveBeenCalledWith(true);
+    });
+  });
+
+  describe('dumpNativeLogs', () => {
+    it('returns the buffer from the Native Module without clearing it', () => {
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.dumpNativeLogs()).toStrictEqual({
+        entries: [],
+        suppressed: {},
+      });
+      expect(NativeModule.dumpNativeLogs).toHaveBeenCalledWith(false);
+    });
+
+    it('forwards the clear option', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.dumpNativeLogs({clear: true});
+      expect(NativeModule.dumpNativeLogs).toHaveBeenCalledWith(true);
+    });
+  });
+
+  describe('getEventStreamState', () => {
+    it('returns undefined when the Native Module has no state', () => {
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getEventStreamState()).toBeUndefined();
+      expect(NativeModule.getEventStreamState).toHaveBeenCalledWith(null);
+    });
+
+    it('returns the state of the requested session', () => {
+      const state = {
+        sessionId: '7',
+        lastSequence: 12,
+        lastEmittedAt: 1700000000000,
+        ended: false,
+      };
+      NativeModule.getEventStreamState.mockReturnValueOnce(state);
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getEventStreamState('7')).toStrictEqual(state);
+      expect(NativeModule.getEventStreamState).toHaveBeenCalledWith('7');
+    });
+  });
+
   describe('addEventListener', () => {
     it('creates a new event listener for a specific event', () => {
       const instance = new ShopifyCheckoutSheet();
@@ -181,10 +303,81 @@ describe('ShopifyCheckoutSheetKit', () => {
       instance.addEventListener(eventName, callback);
       expect(eventEmitter.addListener).toHaveBeenCalledWith(
         eventName,
-        callback,
+        expect.any(Function),
       );
     });
 
+    describe('Session metadata', () => {
+      it('unwraps session-tagged events and passes the session id', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('completed', callback);
+        eventEmitter.emit(
+          'completed',
+          JSON.stringify({sessionId: '2', payload: {orderDetails: {id: '1'}}}),
+        );
+        expect(callback).toHaveBeenCalledWith(
+          {orderDetails: {id: '1'}},
+          {sessionId: '2'},
+        );
+      });
+
+      it('applies event transforms to the unwrapped payload', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('pixel', callback);
+        eventEmitter.emit(
+          'pixel',
+          JSON.stringify({
+            sessionId: '3',
+            payload: {type: 'CUSTOM', customData: JSON.stringify({valid: true})},
+          }),
+        );
+        expect(callback).toHaveBeenCalledWith(
+          {type: 'CUSTOM', customData: {valid: true}},
+          {sessionId: '3'},
+        );
+      });
+
+      it('passes the session id to close listeners', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('close', callback);
+        eventEmitter.emit(
+          'close',
+          JSON.stringify({sessionId: '4', payload: null}),
+        );
+        expect(callback).toHaveBeenCalledWith({sessionId: '4'});
+      });
+
+      it('passes the sequence number and emit time', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('completed', callback);
+        eventEmitter.emit(
+          'completed',
+          JSON.stringify({
+            sessionId: '5',
+            sequence: 3,
+            emittedAt: 1700000000000,
+            payload: {orderDetails: {id: '1'}},
+          }),
+        );
+        expect(callback).toHaveBeenCalledWith(
+          {orderDetails: {id: '1'}},
+          {sessionId: '5', sequence: 3, emittedAt: 1700000000000},
+        );
+      });
+
+      it('calls close listeners without metadata for untagged events', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('close', callback);
+        eventEmitter.emit('close', null);
+        expect(callback).toHaveBeenCalledWith();
+      });
+    });
+
     describe('Pixel Events', () => {
       it('parses web pixel event JSON string data', () => {
         const instance = new ShopifyCheckoutSheet();
@@ -454,6 +647,24 @@ describe('ShopifyCheckoutSheetKit', () => {
         },
       );
 
+      it('exposes the number of native retries on the parsed error', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('error', callback);
+
+        eventEmitter.emit('error', {
+          ...networkError,
+          statusCode: 503,
+          recoverable: true,
+          retryAttempts: 3,
+        });
+
+        const calledWith = callback.mock.calls[0][0];
+        expect(calledWith).toBeInstanceOf(CheckoutHTTPError);
+        expect(calledWith.retryAttempts).toBe(3);
+        expect(calledWith.statusCode).toBe(503);
+      });
+
       it('returns an unknown generic error if the error cannot be parsed', () => {
         const instance = new ShopifyCheckoutSheet();
         const eventName = 'error';
@@ -477,6 +688,113 @@ describe('ShopifyCheckoutSheetKit', () => {
         expect(callback).toHaveBeenCalledWith(new GenericError(error as any));
       });
     });
+
+    describe('Error Summary Event', () => {
+      it('parses error summary string data as JSON', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('errorSummary', callback);
+
+        const summary = {
+          __typename: CheckoutNativeErrorType.CheckoutHTTPError,
+          code: CheckoutErrorCode.httpError,
+          statusCode: 503,
+          count: 12,
+          suppressed: 11,
+          firstSeenAt: 1000,
+          lastSeenAt: 4000,
+          windowMs: 30000,
+        };
+        eventEmitter.emit('errorSummary', JSON.stringify(summary));
+
+        expect(callback).toHaveBeenCalledWith(summary);
+      });
+    });
+
+    describe('Funnel Event', () => {
+      it('unwraps the funnel summary with its session', () => {
+        const instance = new ShopifyCheckoutSheet();
+        const callback = jest.fn();
+        instance.addEventListener('funnel', callback);
+
+        const summary = {
+          final: true,
+          durationMs: 1500,
+          pixelEvents: 3,
+          lastStep: 'checkout_started',
+          completed: false,
+          steps: [
+            {
+              name: 'checkout_started',
+              count: 1,
+              firstReachedAt: 1100,
+              msSinceStart: 0,
+              msSincePreviousStep: null,
+            },
+          ],
+        };
+        eventEmitter.emit(
+          'funnel',
+          JSON.stringify({sessionId: '6', sequence: 4, payload: summary}),
+        );
+
+        expect(callback).toHaveBeenCalledWith(summary, {
+          sessionId: '6',
+          sequence: 4,
+        });
+      });
+    });
+  });
+
+  describe('getFunnelSummary', () => {
+    it('returns undefined when funnel aggregation is off', () => {
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getFunnelSummary()).toBeUndefined();
+      expect(NativeModule.getFunnelSummary).toHaveBeenCalledWith(null);
+    });
+
+    it('parses the summary of the requested session', () => {
+      NativeModule.getFunnelSummary.mockReturnValueOnce(
+        JSON.stringify({final: false, lastStep: null, steps: []}),
+      );
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getFunnelSummary('6')).toStrictEqual({
+        final: false,
+        lastStep: null,
+        steps: [],
+      });
+      expect(NativeModule.getFunnelSummary).toHaveBeenCalledWith('6');
+    });
+  });
+
+  describe('getPreloadStats', () => {
+    it('returns undefined when the Native Module has no stats', () => {
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getPreloadStats()).toBeUndefined();
+      expect(NativeModule.getPreloadStats).toHaveBeenCalled();
+    });
+
+    it('returns the stats from the Native Module', () => {
+      const stats = {
+        adaptive: true,
+        requests: 20,
+        conversions: 5,
+        conversionRate: 0.25,
+        averageGapMs: 45000,
+        decision: 'delay',
+        delayMs: 40000,
+        lastDecision: 'delay',
+      };
+      NativeModule.getPreloadStats.mockReturnValueOnce(stats);
+      const instance = new ShopifyCheckoutSheet();
+      expect(instance.getPreloadStats()).toStrictEqual(stats);
+    });
+
+    it('resets the preload history', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.resetPreloadStats();
+      expect(NativeModule.resetPreloadStats).toHaveBeenCalled();
+    });
   });
 
   describe('removeEventListeners', () => {
@@ -489,6 +807,272 @@ describe('ShopifyCheckoutSheetKit', () => {
     });
   });
 
+  describe('Flow control', () => {
+    const originalPlatform = Platform.OS;
+
+    beforeEach(() => {
+      Platform.OS = 'android';
+      jest.useFakeTimers();
+    });
+
+    afterEach(() => {
+      Platform.OS = originalPlatform;
+      jest.useRealTimers();
+    });
+
+    function pixelSubscription() {
+      const index = eventEmitter.addListener.mock.calls.findIndex(
+        ([eventName]: [string]) => eventName === 'pixel',
+      );
+      return {
+        listener: eventEmitter.addListener.mock.calls[index][1],
+        subscription: eventEmitter.addListener.mock.results[index].value,
+      };
+    }
+
+    it('acknowledges pixel events in one batch once JS is idle', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.setConfig({android: {flowControl: {window: 8}}});
+
+      const {listener} = pixelSubscription();
+      listener(JSON.stringify({type: 'STANDARD'}));
+      listener(JSON.stringify({type: 'STANDARD'}));
+      expect(NativeModule.ackEvents).not.toHaveBeenCalled();
+
+      jest.runAllTimers();
+      expect(NativeModule.ackEvents).toHaveBeenCalledTimes(1);
+      expect(NativeModule.ackEvents).toHaveBeenCalledWith(2);
+    });
+
+    it('does not acknowledge automatically when autoAck is false', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.setConfig({android: {flowControl: {autoAck: false}}});
+
+      expect(eventEmitter.addListener).not.toHaveBeenCalledWith(
+        'pixel',
+        expect.any(Function),
+      );
+    });
+
+    it('stops acknowledging when flow control is turned off', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.setConfig({android: {flowControl: {}}});
+      const {subscription} = pixelSubscription();
+
+      instance.setConfig({android: {flowControl: null}});
+
+      expect(subscription.remove).toHaveBeenCalled();
+    });
+
+    it('forwards manual acknowledgements', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.ackEvents(0);
+      instance.ackEvents(3);
+
+      expect(NativeModule.ackEvents).toHaveBeenCalledTimes(1);
+      expect(NativeModule.ackEvents).toHaveBeenCalledWith(3);
+    });
+  });
+
+  describe('Typed native event emitters', () => {
+    const originalPlatform = Platform.OS;
+    let nativeListeners: ((data: object) => void)[];
+    let removeNative: jest.Mock;
+
+    beforeEach(() => {
+      Platform.OS = 'android';
+      nativeListeners = [];
+      removeNative = jest.fn();
+      NativeModule.onCompleted = jest.fn(
+        (listener: (data: object) => void) => {
+          nativeListeners.push(listener);
+          return {remove: removeNative};
+        },
+      );
+    });
+
+    afterEach(() => {
+      Platform.OS = originalPlatform;
+      delete NativeModule.onCompleted;
+    });
+
+    it('subscribes through the typed emitter on Android', () => {
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn();
+      instance.addEventListener('completed', callback);
+
+      expect(NativeModule.onCompleted).toHaveBeenCalledTimes(1);
+      expect(eventEmitter.addListener).not.toHaveBeenCalledWith(
+        'completed',
+        expect.any(Function),
+      );
+
+      nativeListeners[0]!({sessionId: '1', payload: {orderDetails: {id: '1'}}});
+      expect(callback).toHaveBeenCalledWith(
+        {orderDetails: {id: '1'}},
+        {sessionId: '1'},
+      );
+    });
+
+    it('delivers structured events without parsing them', () => {
+      const parse = jest.spyOn(JSON, 'parse');
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn();
+      instance.addEventListener('completed', callback);
+
+      nativeListeners[0]!({
+        sessionId: '1',
+        sequence: 2,
+        emittedAt: 1715711704000,
+        payload: {orderDetails: {id: '1'}},
+      });
+
+      expect(parse).not.toHaveBeenCalled();
+      expect(callback).toHaveBeenCalledWith(
+        {orderDetails: {id: '1'}},
+        {sessionId: '1', sequence: 2, emittedAt: 1715711704000},
+      );
+      parse.mockRestore();
+    });
+
+    it('converts structured error events into exceptions', () => {
+      NativeModule.onError = jest.fn((listener: (data: object) => void) => {
+        nativeListeners.push(listener);
+        return {remove: removeNative};
+      });
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn();
+      instance.addEventListener('error', callback);
+
+      nativeListeners[0]!({
+        sessionId: '1',
+        payload: {
+          __typename: CheckoutNativeErrorType.CheckoutExpiredError,
+          message: 'Cart expired',
+          recoverable: false,
+          code: 'cart_expired',
+        },
+      });
+
+      expect(callback).toHaveBeenCalledWith(
+        expect.any(CheckoutExpiredError),
+        {sessionId: '1'},
+      );
+      delete NativeModule.onError;
+    });
+
+    it('passes the session of structured close events', () => {
+      NativeModule.onClose = jest.fn((listener: (data: object) => void) => {
+        nativeListeners.push(listener);
+        return {remove: removeNative};
+      });
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn();
+      instance.addEventListener('close', callback);
+
+      nativeListeners[0]!({sessionId: '1', sequence: 3, payload: null});
+
+      expect(callback).toHaveBeenCalledWith({sessionId: '1', sequence: 3});
+      delete NativeModule.onClose;
+    });
+
+    it('removes typed subscriptions with removeEventListeners', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.addEventListener('completed', jest.fn());
+      instance.addEventListener('completed', jest.fn());
+      instance.removeEventListeners('completed');
+
+      expect(removeNative).toHaveBeenCalledTimes(2);
+    });
+
+    it('acknowledges journaled completed events after the callback', () => {
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn(() => {
+        expect(NativeModule.ackCompletedEvent).not.toHaveBeenCalled();
+      });
+      instance.addEventListener('completed', callback);
+
+      const event = {
+        sessionId: '1',
+        journalId: 'j-1',
+        payload: {orderDetails: {id: '1'}},
+      };
+      nativeListeners[0]!(event);
+      nativeListeners[0]!(event);
+
+      expect(callback).toHaveBeenCalledTimes(1);
+      expect(callback).toHaveBeenCalledWith(
+        {orderDetails: {id: '1'}},
+        {sessionId: '1', journalId: 'j-1'},
+      );
+      expect(NativeModule.ackCompletedEvent).toHaveBeenCalledWith('j-1');
+    });
+
+    it('marks redelivered completed events in their metadata', () => {
+      const instance = new ShopifyCheckoutSheet();
+      const callback = jest.fn();
+      instance.addEventListener('completed', callback);
+
+      nativeListeners[0]!({
+        redelivered: true,
+        sessionId: '1',
+        sequence: 4,
+        journalId: 'j-1',
+        payload: {orderDetails: {id: '1'}},
+      });
+
+      expect(callback).toHaveBeenCalledWith(
+        {orderDetails: {id: '1'}},
+        {sessionId: '1', sequence: 4, journalId: 'j-1', redelivered: true},
+      );
+      expect(NativeModule.ackCompletedEvent).toHaveBeenCalledWith('j-1');
+    });
+
+    it('does not acknowledge completed events without a journal id', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.addEventListener('completed', jest.fn());
+
+      nativeListeners[0]!({sessionId: '1', payload: {}});
+
+      expect(NativeModule.ackCompletedEvent).not.toHaveBeenCalled();
+    });
+
+    it('requests redelivery of journaled events for new completed listeners', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.addEventListener('pixel', jest.fn());
+      expect(NativeModule.redeliverCompletedEvents).not.toHaveBeenCalled();
+
+      instance.addEventListener('completed', jest.fn());
+      expect(NativeModule.redeliverCompletedEvents).toHaveBeenCalledTimes(1);
+    });
+
+    it('requests redelivery when the journal is configured', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.setConfig({android: {completedEventJournal: {}}});
+
+      expect(NativeModule.redeliverCompletedEvents).toHaveBeenCalledTimes(1);
+    });
+
+    it('requests redelivery when presentCheckout configures the journal', async () => {
+      const instance = new ShopifyCheckoutSheet();
+      await instance.presentCheckout(checkoutUrl, {
+        config: {android: {completedEventJournal: {}}},
+      });
+
+      expect(NativeModule.redeliverCompletedEvents).toHaveBeenCalledTimes(1);
+    });
+
+    it('falls back to NativeEventEmitter without a typed emitter', () => {
+      const instance = new ShopifyCheckoutSheet();
+      instance.addEventListener('pixel', jest.fn());
+
+      expect(eventEmitter.addListener).toHaveBeenCalledWith(
+        'pixel',
+        expect.any(Function),
+      );
+    });
+  });
+
   describe('Geolocation', () => {
     const defaultConfig = {};
 
@@ -554,7 +1138,7 @@ describe('ShopifyCheckoutSheetKit', () => {
         ]);
         expect(
           NativeModule.initiateGeolocationRequest,
-        ).toHaveBeenCalledWith(true);
+        ).toHaveBeenCalledWith(true, null, 'https://shopify.com');
       });
 
       it('handles geolocation permission denial correctly', async () => {
@@ -579,7 +1163,31 @@ describe('ShopifyCheckoutSheetKit', () => {
         ]);
         expect(
           NativeModule.initiateGeolocationRequest,
-        ).toHaveBeenCalledWith(false);
+        ).toHaveBeenCalledWith(false, null, 'https://shopify.com');
+      });
+
+      it('resolves a specific geolocation request by id', async () => {
+        const sheet = new ShopifyCheckoutSheet(defaultConfig, {
+          handleGeolocationRequests: false,
+        });
+
+        await sheet.initiateGeolocationRequest(true, {requestId: '2'});
+
+        expect(
+          NativeModule.initiateGeolocationRequest,
+        ).toHaveBeenCalledWith(true, '2', null);
+      });
+
+      it('resolves all pending geolocation requests when no target is given', async () => {
+        const sheet = new ShopifyCheckoutSheet(defaultConfig, {
+          handleGeolocationRequests: false,
+        });
+
+        await sheet.initiateGeolocationRequest(false);
+
+        expect(
+          NativeModule.initiateGeolocationRequest,
+        ).toHaveBeenCalledWith(false, null, null);
       });
 
       it('cleans up geolocation callback on teardown', () => {
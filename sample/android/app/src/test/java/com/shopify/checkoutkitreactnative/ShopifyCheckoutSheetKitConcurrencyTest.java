@@ -0,0 +1,276 @@
+package com.shopify.checkoutkitreactnative;
+
+import androidx.activity.ComponentActivity;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.shopify.checkoutsheetkit.CheckoutSheetKitDialog;
+import com.shopify.checkoutsheetkit.HttpException;
+import com.shopify.checkoutsheetkit.ShopifyCheckoutSheetKit;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutRetryPolicy;
+import com.shopify.reactnative.checkoutsheetkit.CustomCheckoutEventProcessor;
+import com.shopify.reactnative.checkoutsheetkit.GeolocationRequestQueue;
+import com.shopify.reactnative.checkoutsheetkit.ShopifyCheckoutSheetKitModule;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Randomized interleavings of the module's calls from the JS, native modules,
+ * UI and WebView threads. Each test repeats a small scenario many times with
+ * a seeded Random per iteration, so a failing iteration can be replayed.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ShopifyCheckoutSheetKitConcurrencyTest {
+  private static final int ITERATIONS = 500;
+
+  @Mock
+  private ReactApplicationContext mockReactContext;
+  @Mock
+  private ComponentActivity mockComponentActivity;
+  @Mock
+  private DeviceEventManagerModule.RCTDeviceEventEmitter mockEventEmitter;
+  @Mock
+  private Context mockContext;
+
+  @Before
+  public void setup() {
+    lenient().when(mockReactContext.getCurrentActivity()).thenReturn(mockComponentActivity);
+    lenient().when(mockReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class))
+        .thenReturn(mockEventEmitter);
+  }
+
+  @Test
+  public void testGeolocationCallbacksAreInvokedAtMostOnce() throws Exception {
+    ScheduledExecutorService timeouts = Executors.newScheduledThreadPool(2);
+    try {
+      for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+        Random random = new Random(iteration);
+        GeolocationRequestQueue queue = new GeolocationRequestQueue(timeouts, random.nextInt(3), Runnable::run);
+
+        int requests = 6;
+        AtomicInteger[] invocations = new AtomicInteger[requests];
+        List<String> requestIds = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+          AtomicInteger count = new AtomicInteger();
+          invocations[i] = count;
+          requestIds.add(queue.enqueue("https://shop" + (i % 2) + ".com",
+              (origin, allow, retain) -> count.incrementAndGet()));
+        }
+        List<String> shuffled = new ArrayList<>(requestIds);
+        Collections.shuffle(shuffled, random);
+
+        runConcurrently(
+            () -> {
+              for (String requestId : shuffled) {
+                queue.resolve(requestId, true);
+              }
+            },
+            () -> queue.resolveAll("https://shop0.com", false),
+            () -> queue.resolveAll(null, random.nextBoolean()),
+            queue::clear);
+
+        assertThat(queue.size()).isZero();
+        for (AtomicInteger count : invocations) {
+          assertThat(count.get()).as("iteration %d", iteration).isLessThanOrEqualTo(1);
+        }
+      }
+    } finally {
+      timeouts.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentPresentAndDismissNeverLeaksDialog() throws Exception {
+    // This test's thread plays the UI thread: runOnUiThread queues work that
+    // it runs while the other threads call present and dismiss.
+    ConcurrentLinkedQueue<Runnable> uiThread = new ConcurrentLinkedQueue<>();
+    doAnswer(invocation -> {
+      uiThread.add(invocation.getArgument(0));
+      return null;
+    }).when(mockComponentActivity).runOnUiThread(any());
+
+    ShopifyCheckoutSheetKitModule module = new ShopifyCheckoutSheetKitModule(mockReactContext);
+    List<CheckoutSheetKitDialog> dialogs = new ArrayList<>();
+
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      mockedShopifyCheckoutSheetKit.when(() -> ShopifyCheckoutSheetKit.present(any(), any(), any()))
+          .thenAnswer(invocation -> {
+            for (CheckoutSheetKitDialog open : dialogs) {
+              assertThat(isDismissed(open)).as("a dialog was presented over another one").isTrue();
+            }
+            CheckoutSheetKitDialog dialog = mock(CheckoutSheetKitDialog.class);
+            dialogs.add(dialog);
+            return dialog;
+          });
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+        Random random = new Random(iteration);
+        boolean[] jsThreadOps = randomOps(random);
+        boolean[] nativeThreadOps = randomOps(random);
+
+        runConcurrently(uiThread,
+            () -> presentOrDismiss(module, jsThreadOps),
+            () -> presentOrDismiss(module, nativeThreadOps));
+
+        module.dismiss();
+        drain(uiThread);
+
+        for (CheckoutSheetKitDialog dialog : dialogs) {
+          assertThat(isDismissed(dialog)).as("iteration %d leaked a dialog", iteration).isTrue();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRetryNeverRunsAfterSessionEnded() throws Exception {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    HttpException failure = mock(HttpException.class);
+    when(failure.getStatusCode()).thenReturn(503);
+    when(failure.isRecoverable()).thenReturn(true);
+
+    try {
+      for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+        CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+        AtomicBoolean ended = new AtomicBoolean(false);
+        AtomicInteger lateRetries = new AtomicInteger();
+        processor.setRetryPolicy(
+            new CheckoutRetryPolicy(1_000, 0, 0, 1.0, 0.0, Collections.singleton("CheckoutHTTPError"),
+                Collections.singleton(503), new Random(iteration)),
+            scheduler,
+            () -> {
+              if (ended.get()) {
+                lateRetries.incrementAndGet();
+              }
+            });
+
+        runConcurrently(
+            () -> {
+              for (int i = 0; i < 5; i++) {
+                processor.onCheckoutFailed(failure);
+              }
+            },
+            () -> {
+              processor.endSession();
+              ended.set(true);
+            });
+
+        // Let retries that were already due run
+        scheduler.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        assertThat(lateRetries.get()).as("iteration %d", iteration).isZero();
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  // Helpers
+
+  private static boolean[] randomOps(Random random) {
+    boolean[] presents = new boolean[1 + random.nextInt(4)];
+    for (int i = 0; i < presents.length; i++) {
+      presents[i] = random.nextInt(3) > 0;
+    }
+    return presents;
+  }
+
+  private static void presentOrDismiss(ShopifyCheckoutSheetKitModule module, boolean[] presents) {
+    for (boolean present : presents) {
+      if (present) {
+        module.present("https://shopify.com");
+      } else {
+        module.dismiss();
+      }
+    }
+  }
+
+  private static boolean isDismissed(CheckoutSheetKitDialog dialog) {
+    return mockingDetails(dialog).getInvocations().stream()
+        .anyMatch(invocation -> invocation.getMethod().getName().equals("dismiss"));
+  }
+
+  private static void drain(ConcurrentLinkedQueue<Runnable> uiThread) {
+    Runnable task;
+    while ((task = uiThread.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private static void runConcurrently(Runnable... tasks) throws Exception {
+    runConcurrently(null, tasks);
+  }
+
+  /**
+   * Starts every task at the same time on its own thread and waits for all of
+   * them, running queued UI work on the calling thread meanwhile. Rethrows the
+   * first failure.
+   */
+  private static void runConcurrently(ConcurrentLinkedQueue<Runnable> uiThread, Runnable... tasks)
+      throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(tasks.length);
+    List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    for (Runnable task : tasks) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+          task.run();
+        } catch (Throwable t) {
+          failures.add(t);
+        } finally {
+          done.countDown();
+        }
+      });
+      thread.start();
+    }
+
+    start.countDown();
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!done.await(0, TimeUnit.MILLISECONDS)) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Timed out waiting for concurrent tasks");
+      }
+      if (uiThread != null) {
+        drain(uiThread);
+      }
+      Thread.yield();
+    }
+    if (uiThread != null) {
+      drain(uiThread);
+    }
+
+    if (!failures.isEmpty()) {
+      Throwable failure = failures.get(0);
+      if (failure instanceof Exception) {
+        throw (Exception) failure;
+      }
+      throw (Error) failure;
+    }
+  }
+}
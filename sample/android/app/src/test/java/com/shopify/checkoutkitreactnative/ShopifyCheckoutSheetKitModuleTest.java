@@ -3,6 +3,7 @@ package com.shopify.checkoutkitreactnative;
 import androidx.activity.ComponentActivity;
 
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
 import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -27,7 +28,15 @@ import com.shopify.checkoutsheetkit.lifecycleevents.OrderDetails;
 import com.shopify.checkoutsheetkit.lifecycleevents.CartInfo;
 import com.shopify.checkoutsheetkit.lifecycleevents.Price;
 import com.shopify.reactnative.checkoutsheetkit.ShopifyCheckoutSheetKitModule;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutErrorAggregator;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutLog;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutMetrics;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutRetryPolicy;
+import com.shopify.reactnative.checkoutsheetkit.CheckoutTrace;
 import com.shopify.reactnative.checkoutsheetkit.CustomCheckoutEventProcessor;
+import com.shopify.reactnative.checkoutsheetkit.CustomDataPolicy;
+import com.shopify.reactnative.checkoutsheetkit.GeolocationRequestQueue;
+import com.shopify.reactnative.checkoutsheetkit.PixelEventSink;
 
 import org.junit.After;
 import org.junit.Before;
@@ -43,10 +52,19 @@ import org.mockito.junit.MockitoJUnitRunner;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
+import android.content.ComponentCallbacks;
 import android.content.Context;
+import android.os.Trace;
+import android.webkit.GeolocationPermissions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ShopifyCheckoutSheetKitModuleTest {
@@ -58,6 +76,8 @@ public class ShopifyCheckoutSheetKitModuleTest {
   private DeviceEventManagerModule.RCTDeviceEventEmitter mockEventEmitter;
   @Mock
   private Context mockContext;
+  @Mock
+  private ScheduledExecutorService mockScheduler;
 
   @Captor
   ArgumentCaptor<Runnable> runnableCaptor;
@@ -91,6 +111,12 @@ public class ShopifyCheckoutSheetKitModuleTest {
     mockedArguments = Mockito.mockStatic(Arguments.class);
     mockedArguments.when(Arguments::createMap).thenAnswer(invocation -> new JavaOnlyMap());
 
+    // Warnings such as invalid colors would otherwise reach android.util.Log,
+    // which is not available in unit tests
+    JavaOnlyMap nativeLogs = new JavaOnlyMap();
+    nativeLogs.putString("logcatLevel", "none");
+    CheckoutLog.getInstance().configure(nativeLogs);
+
     when(mockReactContext.getCurrentActivity()).thenReturn(mockComponentActivity);
     when(mockReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class))
         .thenReturn(mockEventEmitter);
@@ -109,6 +135,9 @@ public class ShopifyCheckoutSheetKitModuleTest {
       mockedArguments.close();
     }
 
+    CheckoutTrace.setEnabled(false);
+    CheckoutLog.getInstance().configure(null);
+
     // Reset configuration to initial state after each test
     ShopifyCheckoutSheetKit.configure(configuration -> {
       configuration.setPreloading(initialPreloading);
@@ -138,6 +167,20 @@ public class ShopifyCheckoutSheetKitModuleTest {
     }
   }
 
+  @Test
+  public void testPresentStartsNewSessionForEachCheckout() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      shopifyCheckoutSheetKitModule.present("https://shopify.com/first");
+      String first = activeSessionId();
+      shopifyCheckoutSheetKitModule.present("https://shopify.com/second");
+      String second = activeSessionId();
+
+      assertThat(first).isNotNull();
+      assertThat(second).isNotNull().isNotEqualTo(first);
+    }
+  }
+
   @Test
   public void testCanPreloadCheckout() {
     try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
@@ -151,6 +194,72 @@ public class ShopifyCheckoutSheetKitModuleTest {
     }
   }
 
+  @Test
+  public void testPresentCheckoutAppliesConfigAndResolvesOncePresented() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      String checkoutUrl = "https://shopify.com";
+      JavaOnlyMap config = new JavaOnlyMap();
+      config.putBoolean("preloading", false);
+      JavaOnlyMap request = new JavaOnlyMap();
+      request.putString("url", checkoutUrl);
+      request.putMap("config", config);
+      PromiseMock promise = new PromiseMock();
+
+      shopifyCheckoutSheetKitModule.presentCheckout(request, promise);
+
+      assertThat(ShopifyCheckoutSheetKitModule.checkoutConfig.getPreloading().getEnabled()).isFalse();
+      assertThat(promise.resolvedValue).isNull();
+
+      verify(mockComponentActivity).runOnUiThread(runnableCaptor.capture());
+      runnableCaptor.getValue().run();
+
+      mockedShopifyCheckoutSheetKit.verify(() -> {
+        ShopifyCheckoutSheetKit.present(eq(checkoutUrl), any(), any());
+      });
+      JavaOnlyMap result = (JavaOnlyMap) promise.resolvedValue;
+      assertThat(result.getString("sessionId")).isNotNull();
+      assertThat(result.getBoolean("presented")).isTrue();
+      assertThat(result.getMap("config").getBoolean("preloading")).isFalse();
+      assertThat(result.getMap("timings").hasKey("configureMs")).isTrue();
+      assertThat(result.getMap("timings").hasKey("presentMs")).isTrue();
+      assertThat(result.getMap("timings").hasKey("totalMs")).isTrue();
+    }
+  }
+
+  @Test
+  public void testPresentCheckoutCanOnlyPreload() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      String checkoutUrl = "https://shopify.com";
+      JavaOnlyMap request = new JavaOnlyMap();
+      request.putString("url", checkoutUrl);
+      request.putBoolean("preloadOnly", true);
+      PromiseMock promise = new PromiseMock();
+
+      shopifyCheckoutSheetKitModule.presentCheckout(request, promise);
+
+      mockedShopifyCheckoutSheetKit.verify(() -> {
+        ShopifyCheckoutSheetKit.preload(eq(checkoutUrl), any());
+      });
+      verify(mockComponentActivity, never()).runOnUiThread(any());
+      JavaOnlyMap result = (JavaOnlyMap) promise.resolvedValue;
+      assertThat(result.isNull("sessionId")).isTrue();
+      assertThat(result.getBoolean("presented")).isFalse();
+      assertThat(result.getMap("timings").hasKey("preloadMs")).isTrue();
+    }
+  }
+
+  @Test
+  public void testPresentCheckoutRejectsWithoutUrl() {
+    PromiseMock promise = new PromiseMock();
+
+    shopifyCheckoutSheetKitModule.presentCheckout(new JavaOnlyMap(), promise);
+
+    assertThat(promise.rejectedCode).isEqualTo("invalid_request");
+    assertThat(promise.resolvedValue).isNull();
+  }
+
   /**
    * Module name and version
    */
@@ -321,6 +430,67 @@ public class ShopifyCheckoutSheetKitModuleTest {
         .isEqualTo("light");
   }
 
+  @Test
+  public void testFollowSystemThemeKeepsAutomaticColorSchemeAcrossModeChanges() {
+    shopifyCheckoutSheetKitModule.setConfig(createAutomaticConfigFollowingSystemTheme());
+
+    ArgumentCaptor<ComponentCallbacks> callbacks = ArgumentCaptor.forClass(ComponentCallbacks.class);
+    verify(mockReactContext).registerComponentCallbacks(callbacks.capture());
+    ColorScheme automatic = ShopifyCheckoutSheetKitModule.checkoutConfig.getColorScheme();
+    assertThat(automatic.getId()).isEqualTo("automatic");
+    assertThat(shopifyCheckoutSheetKitModule.getConfig().getString("colorScheme"))
+        .isEqualTo("automatic");
+
+    CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+    long switchesBefore = metrics.getCounter(CheckoutMetrics.THEME_SWITCH_COUNT);
+    callbacks.getValue().onConfigurationChanged(uiMode(android.content.res.Configuration.UI_MODE_NIGHT_YES));
+    assertThat(ShopifyCheckoutSheetKitModule.checkoutConfig.getColorScheme()).isSameAs(automatic);
+
+    // The same mode again is not a switch
+    callbacks.getValue().onConfigurationChanged(uiMode(android.content.res.Configuration.UI_MODE_NIGHT_YES));
+    assertThat(metrics.getCounter(CheckoutMetrics.THEME_SWITCH_COUNT)).isEqualTo(switchesBefore + 1);
+  }
+
+  @Test
+  public void testFollowSystemThemeDoesNotReconfigureOnModeChange() {
+    shopifyCheckoutSheetKitModule.setConfig(createAutomaticConfigFollowingSystemTheme());
+    ArgumentCaptor<ComponentCallbacks> callbacks = ArgumentCaptor.forClass(ComponentCallbacks.class);
+    verify(mockReactContext).registerComponentCallbacks(callbacks.capture());
+
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      callbacks.getValue().onConfigurationChanged(uiMode(android.content.res.Configuration.UI_MODE_NIGHT_YES));
+
+      mockedShopifyCheckoutSheetKit.verify(() -> ShopifyCheckoutSheetKit.configure(any()), never());
+    }
+  }
+
+  @Test
+  public void testFollowSystemThemeReusesColorSchemeForUnchangedColors() {
+    shopifyCheckoutSheetKitModule.setConfig(createAutomaticConfigFollowingSystemTheme());
+    ColorScheme automatic = ShopifyCheckoutSheetKitModule.checkoutConfig.getColorScheme();
+
+    shopifyCheckoutSheetKitModule.setConfig(createAutomaticConfigFollowingSystemTheme());
+
+    verify(mockReactContext, times(1)).registerComponentCallbacks(any());
+    assertThat(ShopifyCheckoutSheetKitModule.checkoutConfig.getColorScheme()).isSameAs(automatic);
+  }
+
+  @Test
+  public void testTurningOffFollowSystemThemeKeepsAutomaticColorScheme() {
+    shopifyCheckoutSheetKitModule.setConfig(createAutomaticConfigFollowingSystemTheme());
+
+    JavaOnlyMap android = new JavaOnlyMap();
+    android.putBoolean("followSystemTheme", false);
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putMap("android", android);
+    shopifyCheckoutSheetKitModule.setConfig(config);
+
+    verify(mockReactContext).unregisterComponentCallbacks(any());
+    assertThat(ShopifyCheckoutSheetKitModule.checkoutConfig.getColorScheme().getId())
+        .isEqualTo("automatic");
+  }
+
   /**
    * Log Level Configuration
    */
@@ -543,6 +713,83 @@ public class ShopifyCheckoutSheetKitModuleTest {
         .contains("order-123", "test@example.com", "cart-token");
   }
 
+  @Test
+  public void testEventsAreTaggedWithSessionId() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+
+    processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .startsWith("{\"sessionId\":\"" + processor.getSessionId() + "\",\"sequence\":1,")
+        .contains(",\"payload\":{");
+  }
+
+  @Test
+  public void testCloseEventEndsSessionAndCarriesSessionId() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    CustomCheckoutEventProcessor.SessionListener listener = mock(CustomCheckoutEventProcessor.SessionListener.class);
+    processor.setSessionListener(listener);
+
+    processor.onCheckoutCanceled();
+
+    verify(listener).onSessionEnded(processor);
+    verify(mockEventEmitter).emit(eq("close"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .startsWith("{\"sessionId\":\"" + processor.getSessionId() + "\",")
+        .endsWith(",\"payload\":null}");
+  }
+
+  @Test
+  public void testEventsCarrySequenceAndEmitTime() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    long before = System.currentTimeMillis();
+
+    processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+    processor.onCheckoutCanceled();
+
+    verify(mockEventEmitter, times(2)).emit(anyString(), stringCaptor.capture());
+    List<String> events = stringCaptor.getAllValues();
+    assertThat(events.get(0)).contains("\"sequence\":1,\"emittedAt\":");
+    assertThat(events.get(1)).contains("\"sequence\":2,\"emittedAt\":");
+    assertThat(processor.getLastSequence()).isEqualTo(2);
+    assertThat(processor.getLastEmittedAt()).isGreaterThanOrEqualTo(before);
+  }
+
+  @Test
+  public void testGetEventStreamStateReportsActiveSession() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      shopifyCheckoutSheetKitModule.present("https://shopify.com");
+
+      JavaOnlyMap state = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getEventStreamState(null);
+
+      assertThat(state.getString("sessionId")).isNotNull();
+      assertThat(state.getDouble("lastSequence")).isEqualTo(0.0);
+      assertThat(state.getBoolean("ended")).isFalse();
+    }
+  }
+
+  @Test
+  public void testGetEventStreamStateReportsSessionThatJustEnded() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      shopifyCheckoutSheetKitModule.present("https://shopify.com");
+      String sessionId = activeSessionId();
+      shopifyCheckoutSheetKitModule.dismiss();
+
+      JavaOnlyMap state = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getEventStreamState(sessionId);
+
+      assertThat(state.getString("sessionId")).isEqualTo(sessionId);
+      assertThat(state.getBoolean("ended")).isTrue();
+    }
+  }
+
+  @Test
+  public void testGetEventStreamStateReturnsNullForUnknownSession() {
+    assertThat(shopifyCheckoutSheetKitModule.getEventStreamState("unknown")).isNull();
+  }
+
   /**
    * Errors
    */
@@ -601,6 +848,514 @@ public class ShopifyCheckoutSheetKitModuleTest {
         .contains("CheckoutHTTPError", "Not Found", "http_error", "\"statusCode\":404", "\"recoverable\":false");
   }
 
+  /**
+   * Native retries
+   */
+
+  @Test
+  public void testRecoverableHttpErrorIsRetriedNatively() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    CustomCheckoutEventProcessor.RetryHandler retryHandler = mock(CustomCheckoutEventProcessor.RetryHandler.class);
+    processor.setRetryPolicy(createRetryPolicy(2), mockScheduler, retryHandler);
+
+    processor.onCheckoutFailed(createHttpException(503, true));
+
+    verify(mockEventEmitter, never()).emit(eq("error"), any());
+    verify(mockScheduler).schedule(runnableCaptor.capture(), eq(100L), eq(TimeUnit.MILLISECONDS));
+
+    runnableCaptor.getValue().run();
+    verify(retryHandler).retry();
+    assertThat(processor.getRetryAttempts()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRetryDelaysBackOffExponentiallyUpToCap() {
+    CheckoutRetryPolicy policy = createRetryPolicy(5);
+
+    assertThat(policy.getDelayMs(0)).isEqualTo(100L);
+    assertThat(policy.getDelayMs(1)).isEqualTo(200L);
+    assertThat(policy.getDelayMs(2)).isEqualTo(400L);
+    assertThat(policy.getDelayMs(3)).isEqualTo(500L);
+  }
+
+  @Test
+  public void testFinalFailureAfterRetriesIsEmittedWithRetryCount() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setRetryPolicy(createRetryPolicy(1), mockScheduler, mock(CustomCheckoutEventProcessor.RetryHandler.class));
+
+    processor.onCheckoutFailed(createHttpException(503, true));
+    verify(mockEventEmitter, never()).emit(eq("error"), any());
+
+    HttpException finalException = createHttpException(503, true);
+    when(finalException.getErrorDescription()).thenReturn("Service Unavailable");
+    when(finalException.getErrorCode()).thenReturn("http_error");
+    processor.onCheckoutFailed(finalException);
+
+    verify(mockEventEmitter).emit(eq("error"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("CheckoutHTTPError", "\"statusCode\":503", "\"retryAttempts\":1");
+  }
+
+  @Test
+  public void testNonRetryableStatusCodeIsEmittedImmediately() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setRetryPolicy(createRetryPolicy(3), mockScheduler, mock(CustomCheckoutEventProcessor.RetryHandler.class));
+
+    HttpException exception = createHttpException(404, true);
+    when(exception.getErrorDescription()).thenReturn("Not Found");
+    when(exception.getErrorCode()).thenReturn("http_error");
+    processor.onCheckoutFailed(exception);
+
+    verifyNoInteractions(mockScheduler);
+    verify(mockEventEmitter).emit(eq("error"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue()).contains("\"retryAttempts\":0");
+  }
+
+  /**
+   * Error aggregation
+   */
+
+  @Test
+  public void testRepeatedErrorsAreAggregatedIntoSummary() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    long[] now = { 1000L };
+    processor.setErrorAggregator(
+        new CheckoutErrorAggregator(30_000, mockScheduler, () -> now[0], processor::emitErrorSummary));
+
+    processor.onCheckoutFailed(createHttpException(503, true));
+    for (int i = 0; i < 2; i++) {
+      now[0] += 1000;
+      HttpException repeat = mock(HttpException.class);
+      when(repeat.getStatusCode()).thenReturn(503);
+      processor.onCheckoutFailed(repeat);
+    }
+
+    // Only the first occurrence is delivered immediately
+    verify(mockEventEmitter, times(1)).emit(eq("error"), any(String.class));
+    verify(mockScheduler, times(1)).schedule(runnableCaptor.capture(), eq(30_000L), eq(TimeUnit.MILLISECONDS));
+
+    runnableCaptor.getValue().run();
+
+    verify(mockEventEmitter).emit(eq("errorSummary"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("CheckoutHTTPError", "\"count\":3", "\"suppressed\":2", "\"firstSeenAt\":1000",
+            "\"lastSeenAt\":3000");
+  }
+
+  @Test
+  public void testDistinctErrorsAreNotAggregatedTogether() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setErrorAggregator(
+        new CheckoutErrorAggregator(30_000, mockScheduler, () -> 1000L, processor::emitErrorSummary));
+
+    processor.onCheckoutFailed(createHttpException(503, true));
+    processor.onCheckoutFailed(createHttpException(502, true));
+
+    verify(mockEventEmitter, times(2)).emit(eq("error"), any(String.class));
+
+    // Windows without repeats close without a summary
+    verify(mockScheduler, times(2)).schedule(runnableCaptor.capture(), eq(30_000L), eq(TimeUnit.MILLISECONDS));
+    runnableCaptor.getAllValues().forEach(Runnable::run);
+    verify(mockEventEmitter, never()).emit(eq("errorSummary"), any());
+  }
+
+  @Test
+  public void testErrorSummaryIsEmittedAfterSessionEnded() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      JavaOnlyMap errorAggregation = new JavaOnlyMap();
+      errorAggregation.putInt("windowMs", 30_000);
+      JavaOnlyMap androidConfig = new JavaOnlyMap();
+      androidConfig.putMap("errorAggregation", errorAggregation);
+      JavaOnlyMap config = new JavaOnlyMap();
+      config.putMap("android", androidConfig);
+      shopifyCheckoutSheetKitModule.setConfig(config);
+
+      shopifyCheckoutSheetKitModule.present("https://shopify.com");
+      verify(mockComponentActivity).runOnUiThread(runnableCaptor.capture());
+      runnableCaptor.getValue().run();
+      ArgumentCaptor<CustomCheckoutEventProcessor> processorCaptor =
+          ArgumentCaptor.forClass(CustomCheckoutEventProcessor.class);
+      mockedShopifyCheckoutSheetKit.verify(() -> ShopifyCheckoutSheetKit.present(any(), any(), processorCaptor.capture()));
+      CustomCheckoutEventProcessor processor = processorCaptor.getValue();
+
+      processor.onCheckoutFailed(createHttpException(503, true));
+      processor.onCheckoutFailed(createHttpException(503, true));
+      shopifyCheckoutSheetKitModule.dismiss();
+
+      // Reconfiguring flushes the open window
+      shopifyCheckoutSheetKitModule.setConfig(config);
+
+      verify(mockEventEmitter).emit(eq("errorSummary"), stringCaptor.capture());
+      assertThat(stringCaptor.getValue())
+          .contains("\"sessionId\":\"" + processor.getSessionId() + "\"", "\"suppressed\":1");
+    }
+  }
+
+  /**
+   * Custom data limits
+   */
+
+  @Test
+  public void testOversizedCustomDataIsDroppedWithMarker() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setCustomDataPolicy(
+        new CustomDataPolicy(16, CustomDataPolicy.OversizeAction.DROP, Collections.emptySet()));
+    CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+    long savedBefore = metrics.getCounter(CheckoutMetrics.CUSTOM_DATA_BYTES_SAVED);
+
+    String customData = "{\"blob\":\"0123456789012345678901234567890123456789\"}";
+    processor.onWebPixelEvent(createCustomPixelEvent(customData));
+
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("\"customData\":null")
+        .contains("\"customDataLimit\":{\"action\":\"dropped\",\"originalBytes\":" + customData.length() + "}");
+    assertThat(metrics.getCounter(CheckoutMetrics.CUSTOM_DATA_BYTES_SAVED))
+        .isEqualTo(savedBefore + customData.length());
+  }
+
+  @Test
+  public void testOversizedCustomDataIsTruncatedWithMarker() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setCustomDataPolicy(
+        new CustomDataPolicy(10, CustomDataPolicy.OversizeAction.TRUNCATE, Collections.emptySet()));
+
+    processor.onWebPixelEvent(createCustomPixelEvent("{\"blob\":\"0123456789\"}"));
+
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("\"customData\":\"{\\\"blob\\\":\\\"0\"")
+        .contains("\"customDataLimit\":{\"action\":\"truncated\",\"originalBytes\":21}");
+  }
+
+  @Test
+  public void testConfiguredFieldsAreStrippedFromCustomData() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setCustomDataPolicy(new CustomDataPolicy(CustomDataPolicy.DEFAULT_MAX_BYTES,
+        CustomDataPolicy.OversizeAction.DROP, Collections.singleton("debug")));
+
+    processor.onWebPixelEvent(createCustomPixelEvent("{\"points\":1200,\"debug\":{\"trace\":\"abc\"}}"));
+
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("\"customData\":\"{\\\"points\\\":1200}\"")
+        .doesNotContain("trace")
+        .doesNotContain("customDataLimit");
+  }
+
+  @Test
+  public void testCustomDataIsLimitedOnceWhenSinkForwardsToJs() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setCustomDataPolicy(new CustomDataPolicy(CustomDataPolicy.DEFAULT_MAX_BYTES,
+        CustomDataPolicy.OversizeAction.DROP, Collections.singleton("debug")));
+    PixelEventSink sink = mock(PixelEventSink.class);
+    when(sink.forwardsPixelEvents()).thenReturn(true);
+    processor.setPixelSink(sink);
+    CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+    long strippedBefore = metrics.getCounter(CheckoutMetrics.CUSTOM_DATA_STRIPPED_COUNT);
+
+    processor.onWebPixelEvent(createCustomPixelEvent("{\"points\":1200,\"debug\":{\"trace\":\"abc\"}}"));
+
+    verify(sink).offer(stringCaptor.capture());
+    assertThat(stringCaptor.getValue()).doesNotContain("trace");
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue()).doesNotContain("trace");
+    assertThat(metrics.getCounter(CheckoutMetrics.CUSTOM_DATA_STRIPPED_COUNT)).isEqualTo(strippedBefore + 1);
+  }
+
+  @Test
+  public void testCustomDataWithinLimitIsUntouched() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.setCustomDataPolicy(CustomDataPolicy.fromConfig(new JavaOnlyMap()));
+
+    processor.onWebPixelEvent(createCustomPixelEvent("{\"points\":1200}"));
+
+    verify(mockEventEmitter).emit(eq("pixel"), stringCaptor.capture());
+    assertThat(stringCaptor.getValue())
+        .contains("\"customData\":\"{\\\"points\\\":1200}\"")
+        .doesNotContain("customDataLimit");
+  }
+
+  @Test
+  public void testCustomDataPolicyCanBeDisabled() {
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putBoolean("enabled", false);
+
+    assertThat(CustomDataPolicy.fromConfig(config)).isNull();
+  }
+
+  /**
+   * Adaptive preloading
+   */
+
+  @Test
+  public void testAdaptivePreloadSkipsPreloadsThatRarelyConvert() {
+    JavaOnlyMap adaptivePreload = new JavaOnlyMap();
+    adaptivePreload.putInt("minSamples", 0);
+    adaptivePreload.putDouble("minConversionRate", 0.5);
+    JavaOnlyMap androidConfig = new JavaOnlyMap();
+    androidConfig.putMap("adaptivePreload", adaptivePreload);
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putMap("android", androidConfig);
+    shopifyCheckoutSheetKitModule.setConfig(config);
+
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      shopifyCheckoutSheetKitModule.preload("https://shopify.com");
+
+      mockedShopifyCheckoutSheetKit.verify(() -> ShopifyCheckoutSheetKit.preload(any(), any()), never());
+    }
+
+    JavaOnlyMap stats = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getPreloadStats();
+    assertThat(stats.getBoolean("adaptive")).isTrue();
+    assertThat(stats.getDouble("requests")).isEqualTo(1.0);
+    assertThat(stats.getString("lastDecision")).isEqualTo("skip");
+  }
+
+  @Test
+  public void testPresentAfterPreloadCountsAsConversion() {
+    try (MockedStatic<ShopifyCheckoutSheetKit> mockedShopifyCheckoutSheetKit = Mockito
+        .mockStatic(ShopifyCheckoutSheetKit.class)) {
+      shopifyCheckoutSheetKitModule.preload("https://shopify.com");
+      shopifyCheckoutSheetKitModule.present("https://shopify.com");
+
+      mockedShopifyCheckoutSheetKit.verify(() -> ShopifyCheckoutSheetKit.preload(eq("https://shopify.com"), any()));
+    }
+
+    JavaOnlyMap stats = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getPreloadStats();
+    assertThat(stats.getBoolean("adaptive")).isFalse();
+    assertThat(stats.getDouble("conversions")).isEqualTo(1.0);
+    assertThat(stats.getDouble("conversionRate")).isEqualTo(1.0);
+  }
+
+  /**
+   * Geolocation
+   */
+
+  @Test
+  public void testGeolocationRequestEventIncludesRequestId() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext,
+        new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run));
+
+    processor.onGeolocationPermissionsShowPrompt("https://shopify.com", mock(GeolocationPermissions.Callback.class));
+
+    verify(mockEventEmitter).emit(eq("geolocationRequest"), stringCaptor.capture());
+
+    assertThat(stringCaptor.getValue())
+        .contains("\"origin\":\"https://shopify.com\"", "\"requestId\":\"1\"");
+  }
+
+  @Test
+  public void testSecondGeolocationRequestDoesNotOverwriteFirst() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext,
+        new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run));
+    GeolocationPermissions.Callback firstCallback = mock(GeolocationPermissions.Callback.class);
+    GeolocationPermissions.Callback secondCallback = mock(GeolocationPermissions.Callback.class);
+
+    processor.onGeolocationPermissionsShowPrompt("https://first.shopify.com", firstCallback);
+    processor.onGeolocationPermissionsShowPrompt("https://second.shopify.com", secondCallback);
+
+    processor.invokeGeolocationCallback(true, "2", null);
+    verify(secondCallback).invoke("https://second.shopify.com", true, false);
+    verify(firstCallback, never()).invoke(anyString(), anyBoolean(), anyBoolean());
+
+    processor.invokeGeolocationCallback(false, "1", null);
+    verify(firstCallback).invoke("https://first.shopify.com", false, false);
+  }
+
+  @Test
+  public void testCanResolveAllGeolocationRequestsForOrigin() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext,
+        new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run));
+    GeolocationPermissions.Callback firstCallback = mock(GeolocationPermissions.Callback.class);
+    GeolocationPermissions.Callback secondCallback = mock(GeolocationPermissions.Callback.class);
+    GeolocationPermissions.Callback otherOriginCallback = mock(GeolocationPermissions.Callback.class);
+
+    processor.onGeolocationPermissionsShowPrompt("https://shopify.com", firstCallback);
+    processor.onGeolocationPermissionsShowPrompt("https://shopify.com", secondCallback);
+    processor.onGeolocationPermissionsShowPrompt("https://other.com", otherOriginCallback);
+
+    processor.invokeGeolocationCallback(true, null, "https://shopify.com");
+
+    verify(firstCallback).invoke("https://shopify.com", true, false);
+    verify(secondCallback).invoke("https://shopify.com", true, false);
+    verify(otherOriginCallback, never()).invoke(anyString(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  public void testGeolocationRequestIsDeniedAfterTimeout() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext,
+        new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run));
+    GeolocationPermissions.Callback callback = mock(GeolocationPermissions.Callback.class);
+
+    processor.onGeolocationPermissionsShowPrompt("https://shopify.com", callback);
+
+    verify(mockScheduler).schedule(runnableCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    runnableCaptor.getValue().run();
+    verify(callback).invoke("https://shopify.com", false, false);
+
+    // A late answer from the app must not invoke the callback a second time
+    processor.invokeGeolocationCallback(true, "1", null);
+    verify(callback, times(1)).invoke(anyString(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  public void testHidingThePromptOnlyDropsThatSessionsRequests() {
+    GeolocationRequestQueue queue = new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run);
+    CustomCheckoutEventProcessor first = new CustomCheckoutEventProcessor(mockContext, mockReactContext, queue);
+    CustomCheckoutEventProcessor second = new CustomCheckoutEventProcessor(mockContext, mockReactContext, queue);
+    GeolocationPermissions.Callback firstCallback = mock(GeolocationPermissions.Callback.class);
+    GeolocationPermissions.Callback secondCallback = mock(GeolocationPermissions.Callback.class);
+
+    first.onGeolocationPermissionsShowPrompt("https://shopify.com", firstCallback);
+    second.onGeolocationPermissionsShowPrompt("https://shopify.com", secondCallback);
+    first.onGeolocationPermissionsHidePrompt();
+
+    assertThat(queue.size()).isEqualTo(1);
+    second.invokeGeolocationCallback(true, "2", null);
+    verify(secondCallback).invoke("https://shopify.com", true, false);
+    verify(firstCallback, never()).invoke(anyString(), anyBoolean(), anyBoolean());
+  }
+
+  @Test
+  public void testGeolocationTimeoutInvokesCallbackThroughCallbackExecutor() {
+    List<Runnable> mainThread = new ArrayList<>();
+    GeolocationRequestQueue queue = new GeolocationRequestQueue(mockScheduler, 1000, mainThread::add);
+    GeolocationPermissions.Callback callback = mock(GeolocationPermissions.Callback.class);
+
+    queue.enqueue("https://shopify.com", callback);
+    verify(mockScheduler).schedule(runnableCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    runnableCaptor.getValue().run();
+
+    // The scheduler thread only hands the callback over
+    verify(callback, never()).invoke(anyString(), anyBoolean(), anyBoolean());
+    assertThat(mainThread).hasSize(1);
+    mainThread.get(0).run();
+    verify(callback).invoke("https://shopify.com", false, false);
+  }
+
+  @Test
+  public void testGeolocationRequestsAreSettledOnResolveAndTimeout() {
+    GeolocationRequestQueue queue = new GeolocationRequestQueue(mockScheduler, 1000, Runnable::run);
+    List<String> settled = new ArrayList<>();
+
+    String resolved = queue.enqueue("https://shopify.com", mock(GeolocationPermissions.Callback.class), settled::add);
+    String timedOut = queue.enqueue("https://shopify.com", mock(GeolocationPermissions.Callback.class), settled::add);
+    verify(mockScheduler, times(2)).schedule(runnableCaptor.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+
+    queue.resolve(resolved, true);
+    assertThat(settled).containsExactly(resolved);
+
+    runnableCaptor.getAllValues().get(1).run();
+    assertThat(settled).containsExactly(resolved, timedOut);
+  }
+
+  /**
+   * Metrics
+   */
+
+  @Test
+  public void testEmittedEventsAreCounted() {
+    CheckoutMetrics metrics = CheckoutMetrics.getInstance();
+    long before = metrics.getCounter(CheckoutMetrics.EVENTS_EMITTED_PREFIX + "pixel");
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+
+    processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+    processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+
+    assertThat(metrics.getCounter(CheckoutMetrics.EVENTS_EMITTED_PREFIX + "pixel")).isEqualTo(before + 2);
+  }
+
+  @Test
+  public void testGetMetricsReturnsSnapshotAndResets() {
+    mockedArguments.when(Arguments::createArray).thenAnswer(invocation -> new JavaOnlyArray());
+    shopifyCheckoutSheetKitModule.getMetrics(true);
+
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+    processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+
+    JavaOnlyMap snapshot = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getMetrics(true);
+    assertThat(snapshot.getMap("counters").getDouble(CheckoutMetrics.EVENTS_EMITTED_PREFIX + "pixel"))
+        .isEqualTo(1.0);
+    assertThat(snapshot.getMap("histograms").getMap(CheckoutMetrics.SERIALIZATION_MICROS).getDouble("count"))
+        .isEqualTo(1.0);
+    assertThat(snapshot.getMap("histograms").getMap(CheckoutMetrics.PAYLOAD_BYTES).getDouble("sum"))
+        .isGreaterThan(0.0);
+
+    JavaOnlyMap afterReset = (JavaOnlyMap) shopifyCheckoutSheetKitModule.getMetrics(false);
+    assertThat(afterReset.getMap("counters").getDouble(CheckoutMetrics.EVENTS_EMITTED_PREFIX + "pixel"))
+        .isEqualTo(0.0);
+  }
+
+  /**
+   * Tracing
+   */
+
+  @Test
+  public void testTracingIsToggledByConfigFlag() {
+    JavaOnlyMap androidConfig = new JavaOnlyMap();
+    androidConfig.putBoolean("tracing", true);
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putMap("android", androidConfig);
+
+    shopifyCheckoutSheetKitModule.setConfig(config);
+    assertThat(CheckoutTrace.isEnabled()).isTrue();
+
+    androidConfig.putBoolean("tracing", false);
+    shopifyCheckoutSheetKitModule.setConfig(config);
+    assertThat(CheckoutTrace.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void testTraceSectionsWrapSerializationAndEmitWhenEnabled() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+
+    try (MockedStatic<Trace> trace = Mockito.mockStatic(Trace.class)) {
+      CheckoutTrace.setEnabled(true);
+      processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+
+      trace.verify(() -> Trace.beginSection(CheckoutTrace.SERIALIZE));
+      trace.verify(() -> Trace.beginSection(CheckoutTrace.EMIT));
+      trace.verify(Trace::endSection, times(2));
+    }
+  }
+
+  @Test
+  public void testNoTraceSectionsWhenDisabled() {
+    CustomCheckoutEventProcessor processor = new CustomCheckoutEventProcessor(mockContext, mockReactContext);
+
+    try (MockedStatic<Trace> trace = Mockito.mockStatic(Trace.class)) {
+      processor.onWebPixelEvent(new StandardPixelEvent("test", "page_viewed", "timestamp", EventType.STANDARD, null, null));
+
+      trace.verifyNoInteractions();
+    }
+  }
+
+  @Test
+  public void testTraceSectionIsClosedWhenTracingIsDisabledMidSection() {
+    try (MockedStatic<Trace> trace = Mockito.mockStatic(Trace.class)) {
+      CheckoutTrace.setEnabled(true);
+      boolean traced = CheckoutTrace.beginSection(CheckoutTrace.PRESENT);
+      CheckoutTrace.setEnabled(false);
+      CheckoutTrace.endSection(traced);
+
+      trace.verify(() -> Trace.beginSection(CheckoutTrace.PRESENT));
+      trace.verify(Trace::endSection);
+    }
+  }
+
+  @Test
+  public void testTraceSectionIsNotEndedWhenTracingIsEnabledMidSection() {
+    try (MockedStatic<Trace> trace = Mockito.mockStatic(Trace.class)) {
+      boolean traced = CheckoutTrace.beginSection(CheckoutTrace.PRESENT);
+      CheckoutTrace.setEnabled(true);
+      CheckoutTrace.endSection(traced);
+
+      trace.verifyNoInteractions();
+    }
+  }
+
   /**
    * Integration
    */
@@ -651,6 +1406,29 @@ public class ShopifyCheckoutSheetKitModuleTest {
     return colors;
   }
 
+  private JavaOnlyMap createAutomaticConfigFollowingSystemTheme() {
+    JavaOnlyMap androidColors = new JavaOnlyMap();
+    androidColors.putMap("light", createValidLightColors());
+    androidColors.putMap("dark", createValidDarkColors());
+    JavaOnlyMap colorsConfig = new JavaOnlyMap();
+    colorsConfig.putMap("android", androidColors);
+
+    JavaOnlyMap android = new JavaOnlyMap();
+    android.putBoolean("followSystemTheme", true);
+
+    JavaOnlyMap config = new JavaOnlyMap();
+    config.putString("colorScheme", "automatic");
+    config.putMap("colors", colorsConfig);
+    config.putMap("android", android);
+    return config;
+  }
+
+  private static android.content.res.Configuration uiMode(int nightMode) {
+    android.content.res.Configuration configuration = mock(android.content.res.Configuration.class);
+    configuration.uiMode = nightMode;
+    return configuration;
+  }
+
   private JavaOnlyMap createConfigWithAndroidColors(String colorScheme, JavaOnlyMap androidColors) {
     JavaOnlyMap colorsConfig = new JavaOnlyMap();
     colorsConfig.putMap("android", androidColors);
@@ -661,6 +1439,33 @@ public class ShopifyCheckoutSheetKitModuleTest {
     return config;
   }
 
+  private CheckoutRetryPolicy createRetryPolicy(int maxAttempts) {
+    return new CheckoutRetryPolicy(
+        maxAttempts,
+        100,
+        500,
+        2.0,
+        0.0,
+        Collections.singleton("CheckoutHTTPError"),
+        new HashSet<>(Arrays.asList(500, 503)),
+        new Random(0));
+  }
+
+  private CustomPixelEvent createCustomPixelEvent(String customData) {
+    return new CustomPixelEvent("custom-id", "custom_event", "timestamp", EventType.CUSTOM, null, customData);
+  }
+
+  private HttpException createHttpException(int statusCode, boolean recoverable) {
+    HttpException exception = mock(HttpException.class);
+    when(exception.getStatusCode()).thenReturn(statusCode);
+    when(exception.isRecoverable()).thenReturn(recoverable);
+    return exception;
+  }
+
+  private String activeSessionId() {
+    return ((JavaOnlyMap) shopifyCheckoutSheetKitModule.getEventStreamState(null)).getString("sessionId");
+  }
+
   private static class PromiseMock implements Promise {
     public Object resolvedValue;
     public String rejectedCode;